@@ -17,10 +17,26 @@ public class CsvReportGenerator {
                                     ArrayList<String> ExpectedHTTPcode, ArrayList<String> ActualHTTPcode,
                                     ArrayList<String> ExpectedResponse, ArrayList<String> Response,
                                     ArrayList<String> Status, ArrayList<String> Throwable, ArrayList<String> skippedApi) throws IOException {
+        csvGenerator(defaultFilename(), TestCaseId, Model, APIName, MethodName, Request, ExpectedHTTPcode,
+                ActualHTTPcode, ExpectedResponse, Response, Status, Throwable, skippedApi);
+    }
 
-        // Generate a unique filename with timestamp
+    /**
+     * Unique report filename with the current timestamp.
+     */
+    public static String defaultFilename() {
         String timestamp = new SimpleDateFormat("yyyy-MM-dd HH-mm").format(new Date());
-        String filename = "./Reports/" + timestamp + " Report.xlsx";
+        return "./Reports/" + timestamp + " Report.xlsx";
+    }
+
+    /**
+     * Writes the report to the given file, one sheet per model.
+     */
+    public static void csvGenerator(String filename, ArrayList<String> TestCaseId, ArrayList<String> Model,
+                                    ArrayList<String> APIName, ArrayList<String> MethodName, ArrayList<String> Request,
+                                    ArrayList<String> ExpectedHTTPcode, ArrayList<String> ActualHTTPcode,
+                                    ArrayList<String> ExpectedResponse, ArrayList<String> Response,
+                                    ArrayList<String> Status, ArrayList<String> Throwable, ArrayList<String> skippedApi) throws IOException {
 
         System.out.println("Excel report filename: " + filename);
 
@@ -0,0 +1,577 @@
+package Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled, binary form of one test plan sheet.
+ *
+ * A sheet is compiled once into a length-prefixed file that is memory-mapped on load.
+ * Cells that hold JSON objects or arrays are stored as pre-parsed binary trees next to
+ * their text, so readers get the JsonNode without tokenizing the text again. The plan
+ * file name carries the SHA-256 of the sheet's cell text (see SheetStreamReader.sheetHash),
+ * which makes a stale plan simply not found: an edited sheet is recompiled transparently on the next
+ * load, while the plans of the other sheets of the workbook stay valid.
+ *
+ * Layout: magic, version, hash, sheet name, row count, then per row the row index,
+ * column count and for each column a text (length -1 for a missing cell) and a JSON tree
+ * (tag 0 when the cell is not JSON). Strings are an int byte length followed by UTF-8.
+ */
+public final class CompiledPlan {
+
+    private static final int MAGIC = 0x54565350; // "TVSP"
+    private static final int VERSION = 1;
+    private static final String PLAN_DIR = System.getProperty("plan.dir", "./target/compiled-plans");
+
+    // Binary JSON tree tags
+    private static final byte NOT_JSON = 0;
+    private static final byte J_NULL = 1;
+    private static final byte J_TRUE = 2;
+    private static final byte J_FALSE = 3;
+    private static final byte J_INT = 4;
+    private static final byte J_LONG = 5;
+    private static final byte J_DOUBLE = 6;
+    private static final byte J_STRING = 7;
+    private static final byte J_ARRAY = 8;
+    private static final byte J_OBJECT = 9;
+    private static final byte J_BIG_INTEGER = 10;
+    private static final byte J_DECIMAL = 11;
+
+    private static final Map<String, LoadedPlan> loaded = new ConcurrentHashMap<>();
+    private static final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private static final Map<String, SheetHash> hashes = new ConcurrentHashMap<>();
+
+    private final String sheetName;
+    private final ByteBuffer buffer;
+    private final int[] rowIndexes;
+    private final int[] rowOffsets;
+
+    private CompiledPlan(String sheetName, ByteBuffer buffer, int[] rowIndexes, int[] rowOffsets) {
+        this.sheetName = sheetName;
+        this.buffer = buffer;
+        this.rowIndexes = rowIndexes;
+        this.rowOffsets = rowOffsets;
+    }
+
+    /**
+     * Plan registered for a workbook file, with the file stamp it was validated against.
+     */
+    private static final class LoadedPlan {
+        final long lastModified;
+        final long length;
+        final CompiledPlan plan;
+
+        LoadedPlan(long lastModified, long length, CompiledPlan plan) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.plan = plan;
+        }
+    }
+
+    /**
+     * SHA-256 of a sheet's cell text, with the stamp of the workbook file it was computed for.
+     */
+    private static final class SheetHash {
+        final long lastModified;
+        final long length;
+        final byte[] hash;
+
+        SheetHash(long lastModified, long length, byte[] hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Returns the compiled plan for a sheet, compiling it first when no plan exists for the
+     * sheet's current content. Plans already loaded in this JVM are reused until the
+     * workbook file changes. Different sheets load concurrently; callers asking for the
+     * same sheet wait for the first one to finish.
+     */
+    public static CompiledPlan load(String workbookPath, String sheetName) throws IOException {
+        return load(workbookPath, sheetName, true);
+    }
+
+    /**
+     * Returns the plan for a sheet only when one was already compiled from the sheet's
+     * current content, otherwise null. Never compiles.
+     */
+    public static CompiledPlan loadIfCompiled(String workbookPath, String sheetName) throws IOException {
+        return load(workbookPath, sheetName, false);
+    }
+
+    private static CompiledPlan load(String workbookPath, String sheetName, boolean compileIfMissing) throws IOException {
+        File workbook = new File(workbookPath);
+        if (!workbook.exists()) {
+            throw new IOException("Workbook not found: " + workbookPath);
+        }
+
+        String key = workbook.getCanonicalPath() + "|" + sheetName.toLowerCase();
+        LoadedPlan current = loaded.get(key);
+        if (current != null && current.lastModified == workbook.lastModified() && current.length == workbook.length()) {
+            return current.plan;
+        }
+
+        synchronized (loadLocks.computeIfAbsent(key, k -> new Object())) {
+            current = loaded.get(key);
+            if (current != null && current.lastModified == workbook.lastModified() && current.length == workbook.length()) {
+                return current.plan;
+            }
+
+            long lastModified = workbook.lastModified();
+            long length = workbook.length();
+            byte[] hash = sheetHash(workbook, sheetName, key, lastModified, length);
+            Path planFile = planFileFor(workbook, sheetName, hash);
+
+            CompiledPlan plan = null;
+            if (Files.exists(planFile)) {
+                try {
+                    plan = open(planFile, hash);
+                } catch (IOException e) {
+                    System.err.println("Discarding unreadable compiled plan " + planFile + ": " + e.getMessage());
+                }
+            }
+            if (plan == null) {
+                if (!compileIfMissing) {
+                    return null;
+                }
+                long start = System.currentTimeMillis();
+                compile(workbookPath, sheetName, hash, planFile);
+                plan = open(planFile, hash);
+                System.out.println("Compiled plan for sheet '" + sheetName + "' (" + plan.getRowCount() + " rows) in "
+                        + (System.currentTimeMillis() - start) + " ms: " + planFile);
+                removeStalePlans(planFile);
+            }
+
+            loaded.put(key, new LoadedPlan(lastModified, length, plan));
+            return plan;
+        }
+    }
+
+    /**
+     * Reads one cell through the compiled plan of a sheet. Drop-in replacement for
+     * ExcelCommunicator.getDataFromExcel for callers that read plan cells repeatedly: a
+     * missing row or cell fails the same way, and only the requested cell is decoded.
+     */
+    public static String getDataFromPlan(String workbookPath, String sheetName, int rowIndex, int colIndex) throws IOException {
+        CompiledPlan plan = load(workbookPath, sheetName);
+        String failure;
+        if (!plan.hasRow(rowIndex)) {
+            failure = "Row " + rowIndex + " is empty or does not exist in the sheet '" + sheetName + "'.";
+        } else {
+            String cell = plan.getCell(rowIndex, colIndex);
+            if (cell != null) {
+                return cell;
+            }
+            failure = "Cell at row " + rowIndex + ", column " + colIndex + " is empty.";
+        }
+        throw new IOException("Error reading Excel cell at row " + rowIndex + ", column " + colIndex +
+                " in sheet '" + sheetName + "': " + failure);
+    }
+
+    /**
+     * Streams a sheet and writes its compiled plan. The file is written under a temporary
+     * name and moved into place, so readers never see a partial plan.
+     */
+    public static void compile(String workbookPath, String sheetName, byte[] hash, Path planFile) throws IOException {
+        Files.createDirectories(planFile.getParent());
+        Path tmp = Files.createTempFile(planFile.getParent(), planFile.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmp)))) {
+            List<SheetRow> rows = new ArrayList<>();
+            SheetStreamReader.forEachRow(workbookPath, sheetName, rows::add);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hash.length);
+            out.write(hash);
+            writeString(out, sheetName);
+            out.writeInt(rows.size());
+
+            for (SheetRow row : rows) {
+                out.writeInt(row.getRowIndex());
+                out.writeInt(row.getColumnCount());
+                for (int col = 0; col < row.getColumnCount(); col++) {
+                    String text = row.get(col);
+                    writeString(out, text);
+                    JsonNode tree = looksLikeJson(text) ? tryParse(text) : null;
+                    if (tree == null) {
+                        out.writeByte(NOT_JSON);
+                    } else {
+                        writeTree(out, tree);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        try {
+            Files.move(tmp, planFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, planFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Maps a plan file and indexes its rows. Fails if the file is not a plan for the given hash.
+     */
+    private static CompiledPlan open(Path planFile, byte[] expectedHash) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(planFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a compiled plan of version " + VERSION);
+            }
+            byte[] hash = new byte[buffer.getInt()];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, expectedHash)) {
+                throw new IOException("Compiled plan was built from a different version of the sheet");
+            }
+            String sheetName = readString(buffer);
+
+            int rowCount = buffer.getInt();
+            int[] rowIndexes = new int[rowCount];
+            int[] rowOffsets = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                rowOffsets[i] = buffer.position();
+                rowIndexes[i] = buffer.getInt();
+                int columns = buffer.getInt();
+                for (int col = 0; col < columns; col++) {
+                    skipString(buffer);
+                    skipTree(buffer);
+                }
+            }
+            return new CompiledPlan(sheetName, buffer, rowIndexes, rowOffsets);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt compiled plan " + planFile + ": " + e, e);
+        }
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public int getRowCount() {
+        return rowIndexes.length;
+    }
+
+    public boolean hasRow(int rowIndex) {
+        return Arrays.binarySearch(rowIndexes, rowIndex) >= 0;
+    }
+
+    /**
+     * Returns the text of one cell, decoding only that cell, or null when the sheet has no such
+     * row or cell.
+     */
+    public String getCell(int rowIndex, int colIndex) {
+        int pos = Arrays.binarySearch(rowIndexes, rowIndex);
+        if (pos < 0 || colIndex < 0) {
+            return null;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(rowOffsets[pos] + 4);
+        int columns = view.getInt();
+        if (colIndex >= columns) {
+            return null;
+        }
+        for (int col = 0; col < colIndex; col++) {
+            skipString(view);
+            skipTree(view);
+        }
+        return readString(view);
+    }
+
+    /**
+     * Returns the row with the given sheet row index, or null if the sheet has no such row.
+     */
+    public SheetRow getRow(int rowIndex) {
+        int pos = Arrays.binarySearch(rowIndexes, rowIndex);
+        return pos >= 0 ? decodeRow(rowOffsets[pos]) : null;
+    }
+
+    /**
+     * Decodes all data rows (every row after the header) in sheet order.
+     */
+    public List<SheetRow> getDataRows() {
+        List<SheetRow> rows = new ArrayList<>(rowIndexes.length);
+        Iterator<SheetRow> it = dataRowIterator();
+        while (it.hasNext()) {
+            rows.add(it.next());
+        }
+        return rows;
+    }
+
+    /**
+     * Iterates the data rows, decoding each row from the mapped file only when it is reached.
+     */
+    public Iterator<SheetRow> dataRowIterator() {
+        return new Iterator<SheetRow>() {
+            private int next = firstDataRow();
+
+            @Override
+            public boolean hasNext() {
+                return next < rowIndexes.length;
+            }
+
+            @Override
+            public SheetRow next() {
+                if (!hasNext()) {
+                    throw new java.util.NoSuchElementException();
+                }
+                return decodeRow(rowOffsets[next++]);
+            }
+        };
+    }
+
+    private int firstDataRow() {
+        int first = 0;
+        while (first < rowIndexes.length && rowIndexes[first] == 0) {
+            first++;
+        }
+        return first;
+    }
+
+    private SheetRow decodeRow(int offset) {
+        // Each reader works on its own view so concurrent decoding is safe
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        int rowIndex = view.getInt();
+        int columns = view.getInt();
+        String[] cells = new String[columns];
+        JsonNode[] json = new JsonNode[columns];
+        for (int col = 0; col < columns; col++) {
+            cells[col] = readString(view);
+            json[col] = readTree(view);
+        }
+        return new SheetRow(rowIndex, cells, json);
+    }
+
+    private static byte[] sheetHash(File workbook, String sheetName, String key, long lastModified, long length)
+            throws IOException {
+        SheetHash cached = hashes.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.hash;
+        }
+        byte[] hash = SheetStreamReader.sheetHash(workbook.getPath(), sheetName);
+        hashes.put(key, new SheetHash(lastModified, length, hash));
+        return hash;
+    }
+
+    private static Path planFileFor(File workbook, String sheetName, byte[] hash) {
+        String base = workbook.getName().replaceFirst("\\.xlsx$", "");
+        String safeSheet = sheetName.replaceAll("[^A-Za-z0-9_-]", "_");
+        return Paths.get(PLAN_DIR, base + "_" + safeSheet + "-" + toHex(hash).substring(0, 16) + ".plan");
+    }
+
+    /**
+     * Deletes older plans of the same sheet. Failures are ignored, e.g. a plan that is still
+     * mapped on Windows is cleaned up by a later run.
+     */
+    private static void removeStalePlans(Path current) {
+        String name = current.getFileName().toString();
+        String prefix = name.substring(0, name.lastIndexOf('-') + 1);
+        try (DirectoryStream<Path> plans = Files.newDirectoryStream(current.getParent(), prefix + "*.plan")) {
+            for (Path plan : plans) {
+                if (!plan.equals(current)) {
+                    try {
+                        Files.deleteIfExists(plan);
+                    } catch (IOException ignored) {
+                        // still in use
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not clean up stale compiled plans: " + e.getMessage());
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    // ---- strings ----
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+
+    // ---- JSON trees ----
+
+    private static boolean looksLikeJson(String text) {
+        return text != null && !text.isEmpty() && (text.charAt(0) == '{' || text.charAt(0) == '[');
+    }
+
+    private static JsonNode tryParse(String text) {
+        try {
+            return ExcelCommunicator.parseJson(text);
+        } catch (IOException e) {
+            return null; // invalid JSON stays text-only and is reported when the row is used
+        }
+    }
+
+    private static void writeTree(DataOutputStream out, JsonNode node) throws IOException {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            out.writeByte(J_NULL);
+        } else if (node.isBoolean()) {
+            out.writeByte(node.booleanValue() ? J_TRUE : J_FALSE);
+        } else if (node.isInt()) {
+            out.writeByte(J_INT);
+            out.writeInt(node.intValue());
+        } else if (node.isLong()) {
+            out.writeByte(J_LONG);
+            out.writeLong(node.longValue());
+        } else if (node.isBigInteger()) {
+            out.writeByte(J_BIG_INTEGER);
+            writeString(out, node.bigIntegerValue().toString());
+        } else if (node.isBigDecimal()) {
+            out.writeByte(J_DECIMAL);
+            writeString(out, node.decimalValue().toString());
+        } else if (node.isNumber()) {
+            out.writeByte(J_DOUBLE);
+            out.writeDouble(node.doubleValue());
+        } else if (node.isTextual()) {
+            out.writeByte(J_STRING);
+            writeString(out, node.textValue());
+        } else if (node.isArray()) {
+            out.writeByte(J_ARRAY);
+            out.writeInt(node.size());
+            for (JsonNode element : node) {
+                writeTree(out, element);
+            }
+        } else if (node.isObject()) {
+            out.writeByte(J_OBJECT);
+            out.writeInt(node.size());
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                writeString(out, field.getKey());
+                writeTree(out, field.getValue());
+            }
+        } else {
+            out.writeByte(J_STRING);
+            writeString(out, node.asText());
+        }
+    }
+
+    private static JsonNode readTree(ByteBuffer in) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        byte tag = in.get();
+        switch (tag) {
+            case NOT_JSON: return null;
+            case J_NULL: return factory.nullNode();
+            case J_TRUE: return factory.booleanNode(true);
+            case J_FALSE: return factory.booleanNode(false);
+            case J_INT: return factory.numberNode(in.getInt());
+            case J_LONG: return factory.numberNode(in.getLong());
+            case J_DOUBLE: return factory.numberNode(in.getDouble());
+            case J_BIG_INTEGER: return factory.numberNode(new BigInteger(readString(in)));
+            case J_DECIMAL: return factory.numberNode(new BigDecimal(readString(in)));
+            case J_STRING: return factory.textNode(readString(in));
+            case J_ARRAY: {
+                int size = in.getInt();
+                ArrayNode array = factory.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readTree(in));
+                }
+                return array;
+            }
+            case J_OBJECT: {
+                int size = in.getInt();
+                ObjectNode object = factory.objectNode();
+                for (int i = 0; i < size; i++) {
+                    String field = readString(in);
+                    object.set(field, readTree(in));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalStateException("Unknown JSON tag " + tag + " at offset " + (in.position() - 1));
+        }
+    }
+
+    private static void skipTree(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NOT_JSON: case J_NULL: case J_TRUE: case J_FALSE: break;
+            case J_INT: in.position(in.position() + 4); break;
+            case J_LONG: case J_DOUBLE: in.position(in.position() + 8); break;
+            case J_BIG_INTEGER: case J_DECIMAL: case J_STRING: skipString(in); break;
+            case J_ARRAY: {
+                int size = in.getInt();
+                for (int i = 0; i < size; i++) {
+                    skipTree(in);
+                }
+                break;
+            }
+            case J_OBJECT: {
+                int size = in.getInt();
+                for (int i = 0; i < size; i++) {
+                    skipString(in);
+                    skipTree(in);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown JSON tag " + tag + " at offset " + (in.position() - 1));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package Utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Test plan rows from an RFC 4180 CSV file (comma separated, fields with commas, quotes or line
+ * breaks enclosed in double quotes, quotes doubled inside them), as written by {@link PlanConverter}.
+ *
+ * A record's position in the file is its row index: the header is record 0. Records whose fields
+ * are all empty are skipped but still counted, which is how gaps in the original sheet are kept.
+ * The file is parsed in one pass over a buffered reader; the only allocations per row are the
+ * cell strings and the row itself.
+ */
+public class CsvTestCaseSource implements TestCaseSource {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final String sheetName;
+
+    public CsvTestCaseSource(String file, String sheetName) {
+        this.file = Paths.get(file);
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    @Override
+    public void forEachRow(Consumer<SheetRow> handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            parse(reader, handler);
+        } catch (IOException e) {
+            throw new IOException("Error reading CSV plan " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses CSV records, handing every record that has content to the handler.
+     */
+    static void parse(Reader reader, Consumer<SheetRow> handler) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder field = new StringBuilder();
+        List<String> cells = new ArrayList<>();
+        int record = 0;
+        boolean quoted = false;
+        boolean quoteSeen = false; // a quote inside a quoted field: end of field or first half of ""
+        boolean content = false;
+        boolean pendingCr = false;
+        boolean fieldStarted = false;
+
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+
+                if (pendingCr) {
+                    pendingCr = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+
+                if (quoted) {
+                    if (quoteSeen) {
+                        quoteSeen = false;
+                        if (c == '"') {
+                            field.append('"');
+                            continue;
+                        }
+                        quoted = false;
+                        // fall through: the character after the closing quote is handled below
+                    } else if (c == '"') {
+                        quoteSeen = true;
+                        continue;
+                    } else {
+                        field.append(c);
+                        continue;
+                    }
+                }
+
+                if (c == '"' && !fieldStarted) {
+                    quoted = true;
+                    fieldStarted = true;
+                } else if (c == ',') {
+                    content |= endField(field, cells);
+                    fieldStarted = false;
+                } else if (c == '\n' || c == '\r') {
+                    content |= endField(field, cells);
+                    emit(record++, cells, content, handler);
+                    content = false;
+                    fieldStarted = false;
+                    pendingCr = c == '\r';
+                } else {
+                    field.append(c);
+                    fieldStarted = true;
+                }
+            }
+        }
+
+        if (fieldStarted || field.length() > 0 || !cells.isEmpty()) {
+            content |= endField(field, cells);
+            emit(record, cells, content, handler);
+        }
+    }
+
+    private static boolean endField(StringBuilder field, List<String> cells) {
+        String value = field.toString().trim();
+        field.setLength(0);
+        cells.add(value);
+        return !value.isEmpty();
+    }
+
+    private static void emit(int record, List<String> cells, boolean content, Consumer<SheetRow> handler) {
+        if (content) {
+            handler.accept(new SheetRow(record, cells.toArray(new String[0])));
+        }
+        cells.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "CSV plan " + file + " (" + sheetName + ")";
+    }
+}
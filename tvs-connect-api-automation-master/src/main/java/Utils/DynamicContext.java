@@ -1,21 +1,40 @@
 package Utils;
 
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Values rows hand on to later rows (seqNo, stored time fence details, ...).
+ * Shared by all threads: a row and the rows depending on it may run on different threads of the
+ * data provider pool, which orders them so that a value is set before it is read.
+ * When several test blocks run side by side, each uses its own map through {@link #setScope}.
+ */
 public class DynamicContext {
-    private static final ThreadLocal<Map<String, Object>> context = ThreadLocal.withInitial(HashMap::new);
+    private static final Map<String, Object> shared = new ConcurrentHashMap<>();
+    private static volatile Supplier<Map<String, Object>> scope = () -> shared;
+
+    /**
+     * Sets how the map of the running test block is found. The map must be thread-safe.
+     */
+    public static void setScope(Supplier<Map<String, Object>> scope) {
+        DynamicContext.scope = scope != null ? scope : () -> shared;
+    }
 
     public static void set(String key, Object value) {
-        context.get().put(key, value);
+        if (value == null) {
+            scope.get().remove(key);
+        } else {
+            scope.get().put(key, value);
+        }
     }
 
     public static Object get(String key) {
-        return context.get().get(key);
+        return scope.get().get(key);
     }
 
     public static void clear() {
-        context.get().clear();
+        scope.get().clear();
     }
 }
 
@@ -1,109 +1,97 @@
 package Utils;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.TextNode;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.json.JSONException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 public class ExcelCommunicator {
+
+    // Rows SXSSF keeps in memory before flushing them to its temporary file
+    private static final int WRITE_WINDOW_ROWS = Integer.getInteger("excel.write.window", 100);
+
     /**
      * Gets data from Excel cell with improved error messages
      */
     public static String getDataFromExcel(String filepath, String sheetName, int rowIndex, int colIndex) throws IOException {
-        FileInputStream file = null;
-        Workbook workbook = null;
         String cellData = "";
 
         try {
-            file = new FileInputStream(filepath);
-            workbook = new XSSFWorkbook(file);
+            // POI's usermodel is not thread-safe, so reads on a shared workbook are serialized
+            WorkbookCache.CachedWorkbook cached = WorkbookCache.acquire(filepath);
+            try {
+                Workbook workbook = cached.getWorkbook();
 
-            // Get the desired sheet
-            Sheet sheet = workbook.getSheet(sheetName);
-            if (sheet == null) {
-                throw new RuntimeException("Sheet '" + sheetName + "' not found in the workbook.");
-            }
+                // Get the desired sheet
+                Sheet sheet = workbook.getSheet(sheetName);
+                if (sheet == null) {
+                    throw new RuntimeException("Sheet '" + sheetName + "' not found in the workbook.");
+                }
 
-            Row row = sheet.getRow(rowIndex);
-            if (row == null) {
-                throw new RuntimeException("Row " + rowIndex + " is empty or does not exist in the sheet '" + sheetName + "'.");
-            }
+                Row row = sheet.getRow(rowIndex);
+                if (row == null) {
+                    throw new RuntimeException("Row " + rowIndex + " is empty or does not exist in the sheet '" + sheetName + "'.");
+                }
 
-            Cell cell = row.getCell(colIndex);
-            if (cell == null) {
-                throw new RuntimeException("Cell at row " + rowIndex + ", column " + colIndex + " is empty.");
-            }
+                Cell cell = row.getCell(colIndex);
+                if (cell == null) {
+                    throw new RuntimeException("Cell at row " + rowIndex + ", column " + colIndex + " is empty.");
+                }
 
-            // Get cell value based on cell type with better error handling
-            if (cell.getCellType() == CellType.STRING) {
-                cellData = cell.getStringCellValue().trim();
-            } else if (cell.getCellType() == CellType.NUMERIC) {
-                double numValue = cell.getNumericCellValue();
-                // Convert to string, handling integer values properly
-                if (numValue == Math.floor(numValue)) {
-                    cellData = String.valueOf((long)numValue);
+                // Get cell value based on cell type with better error handling
+                if (cell.getCellType() == CellType.STRING) {
+                    cellData = cell.getStringCellValue().trim();
+                } else if (cell.getCellType() == CellType.NUMERIC) {
+                    double numValue = cell.getNumericCellValue();
+                    // Convert to string, handling integer values properly
+                    if (numValue == Math.floor(numValue)) {
+                        cellData = String.valueOf((long)numValue);
+                    } else {
+                        cellData = String.valueOf(numValue);
+                    }
+                } else if (cell.getCellType() == CellType.BOOLEAN) {
+                    cellData = String.valueOf(cell.getBooleanCellValue());
+                } else if (cell.getCellType() == CellType.BLANK) {
+                    cellData = "";
                 } else {
-                    cellData = String.valueOf(numValue);
+                    throw new RuntimeException("Unsupported cell type at row " + rowIndex + ", column " + colIndex +
+                            ": " + cell.getCellType());
                 }
-            } else if (cell.getCellType() == CellType.BOOLEAN) {
-                cellData = String.valueOf(cell.getBooleanCellValue());
-            } else if (cell.getCellType() == CellType.BLANK) {
-                cellData = "";
-            } else {
-                throw new RuntimeException("Unsupported cell type at row " + rowIndex + ", column " + colIndex +
-                        ": " + cell.getCellType());
+            } finally {
+                cached.release();
             }
 
         } catch (Exception e) {
             throw new IOException("Error reading Excel cell at row " + rowIndex + ", column " + colIndex +
                     " in sheet '" + sheetName + "': " + e.getMessage(), e);
-        } finally {
-            if (workbook != null) {
-                workbook.close();
-            }
-            if (file != null) {
-                file.close();
-            }
         }
 
         return cellData;
     }
 
     public static int getLastRow(String filepath, String sheetName) throws IOException {
-        FileInputStream file = null;
-        Workbook workbook = null;
-        int rowCount = 0;
-
+        WorkbookCache.CachedWorkbook cached = WorkbookCache.acquire(filepath);
         try {
-            file = new FileInputStream(filepath);
-            workbook = new XSSFWorkbook(file);
-
-            Sheet sheet = workbook.getSheet(sheetName);
+            Sheet sheet = cached.getWorkbook().getSheet(sheetName);
             if (sheet == null) {
                 throw new RuntimeException("Sheet '" + sheetName + "' not found in the workbook.");
             }
 
-            rowCount = sheet.getLastRowNum();
+            return sheet.getLastRowNum();
         } finally {
-            if (workbook != null) {
-                workbook.close();
-            }
-            if (file != null) {
-                file.close();
-            }
+            cached.release();
         }
-
-        return rowCount;
     }
 
     /**
@@ -111,13 +99,24 @@ public class ExcelCommunicator {
      */
     public static JsonNode getJsonFromExcel(String filepath, String sheetName, int rowIndex, int colIndex) throws IOException {
         String jsonString = getDataFromExcel(filepath, sheetName, rowIndex, colIndex);
+        return parseJsonCell(jsonString, filepath, sheetName, rowIndex, colIndex);
+    }
 
+    /**
+     * Parses the text of an already loaded cell, reporting errors with the cell's location
+     */
+    public static JsonNode parseJsonCell(String jsonString, String filepath, String sheetName, int rowIndex,
+                                         int colIndex) throws IOException {
         if (jsonString == null || jsonString.trim().isEmpty()) {
             throw new RuntimeException("JSON data at row " + rowIndex + ", column " + colIndex + " is empty or invalid.");
         }
 
         try {
-            return parseJson(jsonString);
+            String trimmed = jsonString.trim();
+            if (trimmed.equalsIgnoreCase("NA")) {
+                return new TextNode("NA");
+            }
+            return JsonSupport.parseCell(filepath, sheetName, rowIndex, colIndex, trimmed);
         } catch (Exception e) {
             // Add extra context about the location of the problematic data
             throw new IOException("Invalid JSON format at row " + rowIndex + ", column " + colIndex +
@@ -145,9 +144,8 @@ public class ExcelCommunicator {
         }
 
         // Regular JSON parsing with improved error messages
-        ObjectMapper objectMapper = new ObjectMapper();
         try {
-            return objectMapper.readTree(jsonString);
+            return JsonSupport.readTree(jsonString);
         } catch (Exception e) {
             // Create a more descriptive error that includes a snippet of the problematic JSON
             String snippet = jsonString;
@@ -168,20 +166,9 @@ public class ExcelCommunicator {
         }
 
         try {
-            // Try to parse with both Jackson and org.json for thorough validation
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.readTree(jsonString);
-
-            // If we get here, Jackson parsing succeeded
-            try {
-                new org.json.JSONObject(jsonString);
-                // Both parsers accepted it as valid
-                return true;
-            } catch (JSONException e) {
-                // Jackson accepted but org.json rejected - could be an edge case
-                // Let's trust Jackson in this case
-                return true;
-            }
+            // Jackson's verdict is final, so a second parse with org.json adds nothing
+            JsonSupport.readTree(jsonString);
+            return true;
         } catch (Exception e) {
             return false;
         }
@@ -225,70 +212,168 @@ public class ExcelCommunicator {
     }
 
     /**
-     * Writes data to the specified cell in the Excel sheet and saves to a new output file
+     * Writes the spooled results into a copy of the workbook saved as <original>_output.xlsx.
      *
-     * The new file will be named <original>_output.xlsx
-     */
-    /**
-     * Writes data to the specified cell in the Excel sheet and saves to a new output file.
-     * Accumulates changes and writes only once at the end.
+     * The workbook is opened as it is, so every sheet keeps its cell types, styles, column widths
+     * and merged regions. Only the result sheet is rewritten, through SXSSF: its rows are copied
+     * into a new streamed sheet, with the result rows read back from the spool as the copy
+     * reaches them, and the new sheet takes the place of the old one. SXSSF keeps only a window
+     * of those rows in memory and flushes the rest to disk, so the response bodies of a large
+     * run never sit in memory at once.
+     *
+     * The source workbook itself is still loaded whole (SXSSF needs an XSSFWorkbook as its
+     * template), so memory during the write still grows with the size of the plan as it was
+     * read: its rows, cells and styles. What no longer does is the results written over it.
      */
-    public static void writeAllDataToExcel(String filepath, String sheetName, Map<Integer, Map<Integer, String>> updates)
+    public static void writeAllDataToExcel(String filepath, String sheetName, ResultSpool updates)
             throws IOException {
-        FileInputStream file = null;
-        Workbook workbook = null;
-
-        try {
-            file = new FileInputStream(filepath);
-            workbook = new XSSFWorkbook(file);
-            Sheet sheet = workbook.getSheet(sheetName);
-
-            if (sheet == null) {
+        SXSSFWorkbook workbook = null;
+
+        try (FileInputStream file = new FileInputStream(filepath)) {
+            XSSFWorkbook source = new XSSFWorkbook(file);
+            int sheetIndex = -1;
+            for (int i = 0; i < source.getNumberOfSheets(); i++) {
+                if (source.getSheetName(i).equalsIgnoreCase(sheetName)) {
+                    sheetIndex = i;
+                }
+            }
+            if (sheetIndex < 0) {
+                source.close();
                 throw new RuntimeException("Sheet '" + sheetName + "' not found in workbook.");
             }
 
-            // apply all changes
-            for (Map.Entry<Integer, Map<Integer, String>> rowEntry : updates.entrySet()) {
-                int rowIndex = rowEntry.getKey();
-                Row row = sheet.getRow(rowIndex);
-                if (row == null) {
-                    row = sheet.createRow(rowIndex);
-                }
-                for (Map.Entry<Integer, String> cellEntry : rowEntry.getValue().entrySet()) {
-                    int colIndex = cellEntry.getKey();
-                    String data = cellEntry.getValue();
-
-                    // Truncate data if it exceeds Excel's max cell length
-                    if (data != null && data.length() > 32000) {
-                        data = data.substring(0, 32000) + "...(truncated)";
-                    }
-
-                    Cell cell = row.getCell(colIndex, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                    cell.setCellValue(data);
-                    System.out.println("DEBUG: Writing row " + rowIndex + " col " + colIndex + " data length=" + (data != null ? data.length() : 0));
-                }
+            workbook = new SXSSFWorkbook(source, WRITE_WINDOW_ROWS);
+            workbook.setCompressTempFiles(true);
+            String resultSheetName = source.getSheetName(sheetIndex);
+            // A short name while both sheets exist: sheet names are limited to 31 characters
+            String tempName = "~results";
+            for (int i = 1; source.getSheetIndex(tempName) >= 0; i++) {
+                tempName = "~results" + i;
             }
+            Sheet target = workbook.createSheet(tempName);
+            copySheet(source.getSheetAt(sheetIndex), target, updates);
 
-            // DO NOT close input stream here!
-            // file.close();
+            // The streamed copy takes the place of the source sheet
+            workbook.removeSheetAt(sheetIndex);
+            workbook.setSheetOrder(target.getSheetName(), sheetIndex);
+            workbook.setSheetName(sheetIndex, resultSheetName);
+            workbook.setActiveSheet(sheetIndex);
+            workbook.setSelectedTab(sheetIndex);
 
             // New file name
             String newFilePath = filepath.replace(".xlsx", "_output.xlsx");
-            FileOutputStream outFile = new FileOutputStream(newFilePath);
-            workbook.write(outFile);
-            outFile.close();
+            try (FileOutputStream outFile = new FileOutputStream(newFilePath)) {
+                workbook.write(outFile);
+            }
+            WorkbookCache.invalidate(newFilePath);
 
-            System.out.println("✅ Wrote ALL data to new Excel file: " + newFilePath);
+            System.out.println("✅ Wrote ALL data to new Excel file: " + newFilePath + " (" + updates.size() + " updated rows)");
 
         } catch (Exception e) {
             throw new IOException("Error writing to Excel: " + e.getMessage(), e);
         } finally {
-            if (workbook != null) workbook.close();
-            if (file != null) file.close();
+            if (workbook != null) {
+                // Remove SXSSF's temporary row files
+                workbook.dispose();
+                workbook.close();
+            }
         }
     }
 
+    /**
+     * Copies the source sheet into the streamed target in row order, merging in the spooled
+     * result rows. Result rows that have no source row are inserted at their position.
+     */
+    private static void copySheet(Sheet source, Sheet target, ResultSpool updates) {
+        int[] pending = updates.getRowIndexes();
+        int next = 0;
+        int lastColumn = 0;
+
+        for (Row sourceRow : source) {
+            while (next < pending.length && pending[next] < sourceRow.getRowNum()) {
+                writeRow(target, pending[next], null, readUpdates(updates, pending[next++]));
+            }
+            Map<Integer, String> rowUpdates = null;
+            if (next < pending.length && pending[next] == sourceRow.getRowNum()) {
+                rowUpdates = readUpdates(updates, pending[next++]);
+            }
+            writeRow(target, sourceRow.getRowNum(), sourceRow, rowUpdates);
+            lastColumn = Math.max(lastColumn, sourceRow.getLastCellNum());
+        }
+        while (next < pending.length) {
+            writeRow(target, pending[next], null, readUpdates(updates, pending[next++]));
+        }
 
+        target.setDefaultColumnWidth(source.getDefaultColumnWidth());
+        target.setDefaultRowHeight(source.getDefaultRowHeight());
+        for (int col = 0; col < lastColumn; col++) {
+            target.setColumnWidth(col, source.getColumnWidth(col));
+            target.setColumnHidden(col, source.isColumnHidden(col));
+            if (source.getColumnStyle(col) != null) {
+                target.setDefaultColumnStyle(col, source.getColumnStyle(col));
+            }
+        }
+        for (CellRangeAddress region : source.getMergedRegions()) {
+            target.addMergedRegionUnsafe(region);
+        }
+    }
 
+    private static Map<Integer, String> readUpdates(ResultSpool updates, int rowIndex) {
+        try {
+            return updates.get(rowIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading results of row " + rowIndex + ": " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Writes one row of the result sheet: the source row's cells with their types and styles
+     * (the target sheet is in the same workbook, so styles are shared as they are), then the
+     * result values over them.
+     */
+    private static void writeRow(Sheet target, int rowIndex, Row source, Map<Integer, String> updates) {
+        Row row = target.createRow(rowIndex);
+        if (source != null) {
+            if (source.isFormatted()) {
+                row.setRowStyle(source.getRowStyle());
+            }
+            if (source.getHeight() != target.getDefaultRowHeight()) {
+                row.setHeight(source.getHeight());
+            }
+            row.setZeroHeight(source.getZeroHeight());
+            for (Cell sourceCell : source) {
+                copyCell(sourceCell, row.createCell(sourceCell.getColumnIndex()));
+            }
+        }
+        if (updates != null) {
+            for (Map.Entry<Integer, String> cellEntry : updates.entrySet()) {
+                Cell cell = row.getCell(cellEntry.getKey(), Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+                cell.setCellValue(cellEntry.getValue());
+            }
+        }
+    }
+
+    private static void copyCell(Cell source, Cell target) {
+        target.setCellStyle(source.getCellStyle());
+        switch (source.getCellType()) {
+            case STRING:
+                target.setCellValue(source.getRichStringCellValue());
+                break;
+            case NUMERIC:
+                target.setCellValue(source.getNumericCellValue());
+                break;
+            case BOOLEAN:
+                target.setCellValue(source.getBooleanCellValue());
+                break;
+            case FORMULA:
+                target.setCellFormula(source.getCellFormula());
+                break;
+            case ERROR:
+                target.setCellErrorValue(source.getErrorCellValue());
+                break;
+            default:
+                // Blank: the style alone
+                break;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package Utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Test plan rows from a sheet of an .xlsx workbook, read through the sheet's compiled plan.
+ */
+public class ExcelTestCaseSource implements TestCaseSource {
+    private final String workbookPath;
+    private final String sheetName;
+
+    public ExcelTestCaseSource(String workbookPath, String sheetName) {
+        this.workbookPath = workbookPath;
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    @Override
+    public void forEachRow(Consumer<SheetRow> handler) throws IOException {
+        SheetRow header = CompiledPlan.load(workbookPath, sheetName).getRow(0);
+        if (header != null) {
+            handler.accept(header);
+        }
+        forEachDataRow(handler);
+    }
+
+    @Override
+    public void forEachDataRow(Consumer<SheetRow> handler) throws IOException {
+        for (SheetRow row : readDataRows()) {
+            handler.accept(row);
+        }
+    }
+
+    /**
+     * Iterates the data rows lazily: the preloaded rows when the suite preloaded this sheet,
+     * rows decoded one at a time from the mapped plan when a current plan exists, and
+     * otherwise rows streamed straight from the workbook on a background thread.
+     */
+    @Override
+    public Iterator<SheetRow> dataRowIterator() {
+        try {
+            List<SheetRow> rows = PlanPreloader.getPreloadedRows(workbookPath, sheetName);
+            if (rows != null) {
+                return rows.iterator();
+            }
+            CompiledPlan plan = CompiledPlan.loadIfCompiled(workbookPath, sheetName);
+            if (plan != null) {
+                return plan.dataRowIterator();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not use the compiled plan of sheet '" + sheetName + "', streaming the workbook: "
+                    + e.getMessage());
+        }
+        return new StreamingRowIterator(sheetName, sink -> SheetStreamReader.forEachDataRow(workbookPath, sheetName, sink));
+    }
+
+    /**
+     * Returns the preloaded rows when the suite preloaded this sheet, otherwise the rows of its plan.
+     */
+    @Override
+    public List<SheetRow> readDataRows() throws IOException {
+        return PlanPreloader.getDataRows(workbookPath, sheetName);
+    }
+
+    @Override
+    public String toString() {
+        return "Excel sheet '" + sheetName + "' of " + workbookPath;
+    }
+}
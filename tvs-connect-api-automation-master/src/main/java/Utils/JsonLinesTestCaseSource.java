@@ -0,0 +1,84 @@
+package Utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Test plan rows from a JSON Lines file, one object per line:
+ * <pre>{"row": 5, "cells": ["TC_05", "addUser", "NA", null, "mutation { ... }"]}</pre>
+ *
+ * "row" is the row index in the original sheet (0 for the header) and "cells" holds the cell
+ * texts by column, null for a missing cell. The file is read with Jackson's streaming parser,
+ * so no tree is built per line; JSON cells stay text and are parsed when the test case loads.
+ */
+public class JsonLinesTestCaseSource implements TestCaseSource {
+    private final Path file;
+    private final String sheetName;
+
+    public JsonLinesTestCaseSource(String file, String sheetName) {
+        this.file = Paths.get(file);
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    @Override
+    public void forEachRow(Consumer<SheetRow> handler) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             JsonParser parser = JsonSupport.mapper().getFactory().createParser(in)) {
+            List<String> cells = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a row object at line " + parser.getCurrentLocation().getLineNr());
+                }
+                int row = readRow(parser, cells);
+                handler.accept(new SheetRow(row, cells.toArray(new String[0])));
+            }
+        } catch (IOException e) {
+            throw new IOException("Error reading JSON Lines plan " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the fields of one row object into cells and returns its row index.
+     */
+    private static int readRow(JsonParser parser, List<String> cells) throws IOException {
+        int row = -1;
+        cells.clear();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("row".equals(fieldName)) {
+                row = parser.getIntValue();
+            } else if ("cells".equals(fieldName) && value == JsonToken.START_ARRAY) {
+                while ((value = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    cells.add(value == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (row < 0) {
+            throw new IOException("Row object without a \"row\" index at line " + parser.getCurrentLocation().getLineNr());
+        }
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        return "JSON Lines plan " + file + " (" + sheetName + ")";
+    }
+}
@@ -0,0 +1,118 @@
+package Utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single, centrally configured Jackson setup shared by the whole suite.
+ *
+ * ObjectMapper construction is expensive, while a configured mapper and its readers are
+ * thread-safe, so every parse goes through the instances held here. On top of that sits a
+ * cache of parsed Excel cells keyed by (workbook, sheet, row, column): a JSON cell is parsed
+ * once per run and every later lookup returns the same tree. Cached trees are shared between
+ * tests and must be treated as read-only. The cache is bounded (LRU) by the
+ * "json.cell.cache.size" system property, default 10000 cells.
+ */
+public class JsonSupport {
+
+    // Default Jackson settings, matching the per-call mappers this replaces
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectReader TREE_READER = MAPPER.reader();
+
+    private static final int MAX_CELLS = Integer.getInteger("json.cell.cache.size", 10000);
+
+    // Guarded by itself
+    private static final Map<String, CachedCell> cellCache = new LinkedHashMap<String, CachedCell>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCell> eldest) {
+            return size() > MAX_CELLS;
+        }
+    };
+
+    /**
+     * A parsed cell together with the text it was parsed from, so a cell whose
+     * content changed between lookups is parsed again instead of served stale.
+     */
+    private static class CachedCell {
+        private final String raw;
+        private final JsonNode node;
+
+        CachedCell(String raw, JsonNode node) {
+            this.raw = raw;
+            this.node = node;
+        }
+    }
+
+    /**
+     * The shared mapper, for conversions such as convertValue(). Do not reconfigure it.
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * The shared tree reader.
+     */
+    public static ObjectReader reader() {
+        return TREE_READER;
+    }
+
+    /**
+     * Parses a JSON document into a tree with the shared reader.
+     */
+    public static JsonNode readTree(String json) throws JsonProcessingException {
+        return TREE_READER.readTree(json);
+    }
+
+    /**
+     * Returns the parsed tree of an Excel cell, parsing it on the first lookup only.
+     * Parse failures are not cached, so the caller sees the same error on every lookup.
+     */
+    public static JsonNode parseCell(String workbook, String sheetName, int rowIndex, int colIndex, String raw)
+            throws JsonProcessingException {
+        String key = cellKey(workbook, sheetName, rowIndex, colIndex);
+        CachedCell cached;
+        synchronized (cellCache) {
+            cached = cellCache.get(key);
+        }
+        if (cached != null && cached.raw.equals(raw)) {
+            return cached.node;
+        }
+
+        // Parsed outside the lock: two threads may parse the same cell, the last one is kept
+        JsonNode node = readTree(raw);
+        synchronized (cellCache) {
+            cellCache.put(key, new CachedCell(raw, node));
+        }
+        return node;
+    }
+
+    /**
+     * Number of cells currently held in the parsed-cell cache.
+     */
+    public static int getCachedCellCount() {
+        synchronized (cellCache) {
+            return cellCache.size();
+        }
+    }
+
+    /**
+     * Drops all parsed cells, e.g. when the test data workbook is replaced mid-run.
+     */
+    public static void clearCellCache() {
+        synchronized (cellCache) {
+            cellCache.clear();
+        }
+    }
+
+    private static String cellKey(String workbook, String sheetName, int rowIndex, int colIndex) {
+        String sheet = sheetName != null ? sheetName.toLowerCase() : "";
+        return (workbook != null ? workbook : "") + '|' + sheet + '!' + rowIndex + ':' + colIndex;
+    }
+}
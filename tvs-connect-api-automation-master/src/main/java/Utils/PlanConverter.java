@@ -0,0 +1,225 @@
+package Utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts test plan sheets to CSV or JSON Lines and generates large synthetic plans.
+ *
+ * The output format follows the extension of the output file (.csv, .jsonl or .ndjson).
+ * Any {@link TestCaseSource} can be the input, so a synthetic plan can be scaled up from a
+ * CSV or JSON Lines plan without touching POI:
+ * <pre>
+ * PlanConverter convert &lt;workbook.xlsx|plan.csv|plan.jsonl&gt; &lt;sheet&gt; &lt;out.csv|out.jsonl&gt;
+ * PlanConverter scale   &lt;workbook.xlsx|plan.csv|plan.jsonl&gt; &lt;sheet&gt; &lt;out.csv|out.jsonl&gt; &lt;copies&gt;
+ * </pre>
+ */
+public class PlanConverter {
+
+    /** Column holding the test case id, made unique in every synthetic copy. */
+    private static final int ID_COLUMN = 0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && "convert".equals(args[0])) {
+            int rows = convert(TestCaseSources.open(args[1], args[2]), Paths.get(args[3]));
+            System.out.println("Converted " + rows + " rows of sheet '" + args[2] + "' to " + args[3]);
+        } else if (args.length == 5 && "scale".equals(args[0])) {
+            int rows = scale(TestCaseSources.open(args[1], args[2]), Paths.get(args[3]), Integer.parseInt(args[4]));
+            System.out.println("Generated " + rows + " rows from sheet '" + args[2] + "' in " + args[3]);
+        } else {
+            System.err.println("Usage: PlanConverter convert <source> <sheet> <out.csv|out.jsonl>");
+            System.err.println("       PlanConverter scale <source> <sheet> <out.csv|out.jsonl> <copies>");
+        }
+    }
+
+    /**
+     * Writes all rows of the source, header included, keeping their row indexes.
+     *
+     * @return the number of rows written
+     */
+    public static int convert(TestCaseSource source, Path out) throws IOException {
+        try (RowWriter writer = RowWriter.open(out)) {
+            source.forEachRow(row -> writer.write(row.getRowIndex(), cellsOf(row)));
+            return writer.count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the header and then the data rows of the source the given number of times.
+     * Copy k (from 0) places its rows k sheet-lengths further down and suffixes the test
+     * case id with "_k", so ids and row indexes stay unique across copies.
+     *
+     * @return the number of rows written
+     */
+    public static int scale(TestCaseSource source, Path out, int copies) throws IOException {
+        if (copies < 1) {
+            throw new IllegalArgumentException("copies must be at least 1, was " + copies);
+        }
+
+        int[] span = { 0 };
+        source.forEachRow(row -> span[0] = Math.max(span[0], row.getRowIndex()));
+
+        try (RowWriter writer = RowWriter.open(out)) {
+            source.forEachRow(row -> {
+                if (row.getRowIndex() == 0) {
+                    writer.write(0, cellsOf(row));
+                }
+            });
+            for (int copy = 0; copy < copies; copy++) {
+                int offset = copy * span[0];
+                String suffix = copy == 0 ? "" : "_" + copy;
+                source.forEachDataRow(row -> {
+                    String[] cells = cellsOf(row);
+                    if (!suffix.isEmpty() && cells.length > ID_COLUMN && cells[ID_COLUMN] != null
+                            && !cells[ID_COLUMN].isEmpty()) {
+                        cells[ID_COLUMN] = cells[ID_COLUMN] + suffix;
+                    }
+                    writer.write(row.getRowIndex() + offset, cells);
+                });
+            }
+            return writer.count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String[] cellsOf(SheetRow row) {
+        String[] cells = new String[row.getColumnCount()];
+        for (int col = 0; col < cells.length; col++) {
+            cells[col] = row.get(col);
+        }
+        return cells;
+    }
+
+    /**
+     * Writes rows in ascending row order in the format of the output file.
+     * IO errors are rethrown unchecked so writers can be fed from row handlers;
+     * convert() and scale() turn them back into IOException.
+     */
+    private abstract static class RowWriter implements AutoCloseable {
+        int count;
+
+        static RowWriter open(Path out) throws IOException {
+            Path parent = out.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            String name = out.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) {
+                return new CsvRowWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8));
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return new JsonLinesRowWriter(Files.newOutputStream(out));
+            }
+            throw new IOException("Unsupported plan format for " + out + " (use .csv, .jsonl or .ndjson)");
+        }
+
+        final void write(int rowIndex, String[] cells) {
+            try {
+                writeRow(rowIndex, cells);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void writeRow(int rowIndex, String[] cells) throws IOException;
+
+        @Override
+        public abstract void close() throws IOException;
+    }
+
+    /**
+     * CSV records are positional, so gaps between row indexes are written as empty records.
+     */
+    private static class CsvRowWriter extends RowWriter {
+        private final Writer out;
+        private int nextRecord;
+
+        CsvRowWriter(Writer out) {
+            this.out = new BufferedWriter(out, 64 * 1024);
+        }
+
+        @Override
+        void writeRow(int rowIndex, String[] cells) throws IOException {
+            if (rowIndex < nextRecord) {
+                throw new IOException("Rows must be written in ascending order, got row " + rowIndex
+                        + " after row " + (nextRecord - 1));
+            }
+            for (; nextRecord < rowIndex; nextRecord++) {
+                out.write("\r\n");
+            }
+            for (int col = 0; col < cells.length; col++) {
+                if (col > 0) {
+                    out.write(',');
+                }
+                writeField(cells[col]);
+            }
+            out.write("\r\n");
+            nextRecord++;
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class JsonLinesRowWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        JsonLinesRowWriter(OutputStream out) throws IOException {
+            generator = JsonSupport.mapper().getFactory().createGenerator(out);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        void writeRow(int rowIndex, String[] cells) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("row", rowIndex);
+            generator.writeArrayFieldStart("cells");
+            for (String cell : cells) {
+                if (cell == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(cell);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+}
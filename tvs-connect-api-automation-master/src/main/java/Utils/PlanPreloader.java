@@ -0,0 +1,144 @@
+package Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the test plan sheets of a whole suite concurrently at suite start.
+ *
+ * Every requested sheet is compiled (or its existing plan mapped) and fully decoded on a
+ * thread pool, one task per sheet, so startup takes about as long as the largest sheet rather than the sum of
+ * all sheets. The decoded rows, JSON cells included, are kept until a test block asks for them
+ * through {@link #getDataRows(String, String)}. Rows are handed out only while they still belong
+ * to the current plan of the workbook; after an edit the sheet is simply loaded again.
+ */
+public class PlanPreloader {
+
+    private static final Map<String, PreloadedSheet> preloaded = new ConcurrentHashMap<>();
+
+    /**
+     * Decoded rows of one sheet, tied to the plan they were decoded from.
+     */
+    private static final class PreloadedSheet {
+        final CompiledPlan plan;
+        final List<SheetRow> dataRows;
+
+        PreloadedSheet(CompiledPlan plan, List<SheetRow> dataRows) {
+            this.plan = plan;
+            this.dataRows = dataRows;
+        }
+    }
+
+    /**
+     * Compiles and decodes all given sheets in parallel.
+     *
+     * @param sheetsByWorkbook sheet names to load, grouped by workbook path
+     * @return the failures by "workbook|sheet", empty when every sheet loaded
+     */
+    public static Map<String, Exception> preload(Map<String, Set<String>> sheetsByWorkbook) {
+        List<String[]> sheets = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : sheetsByWorkbook.entrySet()) {
+            for (String sheetName : entry.getValue()) {
+                sheets.add(new String[] { entry.getKey(), sheetName });
+            }
+        }
+        if (sheets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // A failing sheet is recorded and does not stop the others
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        int parallelism = Math.min(sheets.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<?>> loads = new ArrayList<>();
+            for (String[] sheet : sheets) {
+                loads.add(pool.submit(() -> {
+                    loadSheet(sheet[0], sheet[1]);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < loads.size(); i++) {
+                String[] sheet = sheets.get(i);
+                try {
+                    loads.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    failures.put(sheet[0] + "|" + sheet[1], (Exception) cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.put(sheet[0] + "|" + sheet[1], e);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.println("Preloaded " + (sheets.size() - failures.size()) + " of " + sheets.size()
+                + " plan sheet(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return failures;
+    }
+
+    /**
+     * Returns the data rows of a sheet: the preloaded rows when they are still current,
+     * otherwise the rows freshly decoded from the sheet's plan.
+     */
+    public static List<SheetRow> getDataRows(String workbookPath, String sheetName) throws IOException {
+        CompiledPlan plan = CompiledPlan.load(workbookPath, sheetName);
+        PreloadedSheet sheet = preloaded.get(key(workbookPath, sheetName));
+        if (sheet != null && sheet.plan == plan) {
+            return sheet.dataRows;
+        }
+        return plan.getDataRows();
+    }
+
+    /**
+     * Returns the preloaded rows of a sheet when they are still current, otherwise null.
+     * Unlike getDataRows this never loads or compiles the sheet.
+     */
+    public static List<SheetRow> getPreloadedRows(String workbookPath, String sheetName) throws IOException {
+        PreloadedSheet sheet = preloaded.get(key(workbookPath, sheetName));
+        if (sheet == null) {
+            return null;
+        }
+        return sheet.plan == CompiledPlan.loadIfCompiled(workbookPath, sheetName) ? sheet.dataRows : null;
+    }
+
+    /**
+     * Releases the rows held for all sheets.
+     */
+    public static void clear() {
+        preloaded.clear();
+    }
+
+    private static void loadSheet(String workbookPath, String sheetName) throws IOException {
+        CompiledPlan plan = CompiledPlan.load(workbookPath, sheetName);
+        List<SheetRow> rows = Collections.unmodifiableList(plan.getDataRows());
+        preloaded.put(key(workbookPath, sheetName), new PreloadedSheet(plan, rows));
+    }
+
+    private static String key(String workbookPath, String sheetName) {
+        String path;
+        try {
+            path = new File(workbookPath).getCanonicalPath();
+        } catch (IOException e) {
+            path = new File(workbookPath).getAbsolutePath();
+        }
+        return path + "|" + sheetName.toLowerCase();
+    }
+}
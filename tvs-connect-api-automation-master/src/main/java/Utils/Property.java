@@ -4,31 +4,46 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Property {
 
         static String filePath = "./src/main/resources/config.properties"; // Path to the properties file
         static Properties properties = new Properties();
         static FileInputStream fileInput ;
+        // Test blocks running in parallel share the file and the Properties object: one access at a time.
+        // A lock rather than synchronized, so rows on virtual threads do not pin their carrier during the I/O
+        private static final ReentrantLock lock = new ReentrantLock();
+
         public static void propertyWriter(String tokenName, String token) throws IOException {
-            // Load the properties file
-            fileInput = new FileInputStream(filePath);
-            properties.load(fileInput);
-            fileInput.close();
-            // Modify or add new properties
-            properties.setProperty(tokenName,token); // Updating existing key
-            // Save changes to the properties file
-            FileOutputStream fileOutput = new FileOutputStream(filePath);
-            properties.store(fileOutput, "added "+tokenName+" to property file");
-            fileOutput.close();
+            lock.lock();
+            try {
+                // Load the properties file
+                fileInput = new FileInputStream(filePath);
+                properties.load(fileInput);
+                fileInput.close();
+                // Modify or add new properties
+                properties.setProperty(tokenName,token); // Updating existing key
+                // Save changes to the properties file
+                FileOutputStream fileOutput = new FileOutputStream(filePath);
+                properties.store(fileOutput, "added "+tokenName+" to property file");
+                fileOutput.close();
+            } finally {
+                lock.unlock();
+            }
         }
         public static String readProperties(String key) throws IOException {
-            fileInput = new FileInputStream(filePath);
-            properties.load(fileInput);
-
-            fileInput.close();
-            String token = properties.getProperty(key);
-            return token;
+            lock.lock();
+            try {
+                fileInput = new FileInputStream(filePath);
+                properties.load(fileInput);
+
+                fileInput.close();
+                String token = properties.getProperty(key);
+                return token;
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
@@ -0,0 +1,357 @@
+package Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, crash-safe journal of test results.
+ *
+ * Every finished row is appended as one JSON line the moment its test ends, so a run that dies
+ * keeps everything it finished. Appends go straight to the file; the fsync that makes them
+ * survive an OS crash is batched, forced every {@code journal.sync.every} records (default 20)
+ * or {@code journal.sync.ms} milliseconds (default 1000), whichever comes first.
+ *
+ * On open, an existing journal is recovered: a torn last line from a crash is cut off, any
+ * other unreadable line is skipped, and for each key the latest record wins. Only the key,
+ * status and file position of a record stay in memory; the record itself is read back from
+ * disk when a report is materialized.
+ */
+public class ResultJournal implements Closeable {
+
+    public static final String PASS = "PASS";
+    public static final String FAIL = "FAIL";
+    public static final String SKIP = "SKIP";
+
+    private static final int SYNC_EVERY = Integer.getInteger("journal.sync.every", 20);
+    private static final long SYNC_MS = Long.getLong("journal.sync.ms", 1000L);
+
+    private static final Map<String, ResultJournal> open = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService syncer;
+
+    private final Path file;
+    private final FileChannel channel;
+    // Rows on virtual threads append here: a lock rather than synchronized, which would pin
+    // their carrier thread for the duration of the write and the fsync
+    private final ReentrantLock lock = new ReentrantLock();
+    // Latest record per key, in the order the keys were first recorded; guarded by lock
+    private final Map<String, Position> index = new LinkedHashMap<>();
+    private int unsynced;
+    private boolean closed;
+
+    /**
+     * One result as stored in the journal.
+     */
+    public static class Entry {
+        private final String key;
+        private final String status;
+        private final Map<String, String> fields;
+
+        Entry(String key, String status, Map<String, String> fields) {
+            this.key = key;
+            this.status = status;
+            this.fields = fields;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns a recorded field, or null when the record does not have it.
+         */
+        public String get(String field) {
+            return fields.get(field);
+        }
+
+        public Map<String, String> getFields() {
+            return fields;
+        }
+    }
+
+    private static final class Position {
+        final long offset;
+        final int length;
+        final String status;
+
+        Position(long offset, int length, String status) {
+            this.offset = offset;
+            this.length = length;
+            this.status = status;
+        }
+    }
+
+    private ResultJournal(Path file, boolean resume) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (!resume) {
+            Files.deleteIfExists(file);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recover();
+        channel.position(channel.size());
+    }
+
+    /**
+     * Returns the journal with the given name in the directory, opening it on first use.
+     * With resume, the results of an earlier run are recovered; otherwise the journal starts empty.
+     */
+    public static ResultJournal open(String directory, String name, boolean resume) {
+        Path path = Paths.get(directory, name.replaceAll("[^A-Za-z0-9_.-]", "_") + ".journal");
+        return open.computeIfAbsent(path.toAbsolutePath().normalize().toString(), k -> {
+            try {
+                ResultJournal journal = new ResultJournal(path, resume);
+                startSyncer();
+                System.out.println((resume ? "Resuming" : "Started") + " result journal " + path
+                        + " (" + journal.size() + " recorded results)");
+                return journal;
+            } catch (IOException e) {
+                throw new RuntimeException("Could not open result journal " + path + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Appends the result of one row. A later record for the same key replaces the earlier one.
+     */
+    public void append(String key, String status, Map<String, String> fields) throws IOException {
+        ObjectNode record = JsonSupport.mapper().createObjectNode();
+        record.put("key", key);
+        record.put("status", status);
+        record.put("time", System.currentTimeMillis());
+        ObjectNode values = record.putObject("fields");
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            values.put(field.getKey(), field.getValue());
+        }
+        byte[] line = (JsonSupport.mapper().writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Result journal " + file + " is closed");
+            }
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            index.put(key, new Position(offset, line.length, status));
+            if (++unsynced >= SYNC_EVERY) {
+                sync();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True when the key has a recorded PASS or FAIL. Skipped rows are not considered finished.
+     */
+    public boolean isFinished(String key) {
+        lock.lock();
+        try {
+            Position position = index.get(key);
+            return position != null && (PASS.equals(position.status) || FAIL.equals(position.status));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads back the latest record of a key, or null when the key has none.
+     */
+    public Entry get(String key) throws IOException {
+        Position position;
+        lock.lock();
+        try {
+            position = index.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (position == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(position.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position.offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of result journal " + file);
+            }
+        }
+        return toEntry(JsonSupport.readTree(new String(buffer.array(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Streams the latest record of every key to the consumer, in the order keys were first recorded.
+     */
+    public void forEachEntry(Consumer<Entry> consumer) throws IOException {
+        String[] keys;
+        lock.lock();
+        try {
+            keys = index.keySet().toArray(new String[0]);
+        } finally {
+            lock.unlock();
+        }
+        for (String key : keys) {
+            Entry entry = get(key);
+            if (entry != null) {
+                consumer.accept(entry);
+            }
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            if (unsynced > 0 && !closed) {
+                channel.force(false);
+                unsynced = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Syncs and closes the journal. The file stays on disk so a later run can resume from it.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                sync();
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing result journal " + file + ": " + e.getMessage());
+            }
+            closed = true;
+            open.values().remove(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the journal file, cutting off a torn last line.
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+
+        long offset = 0;
+        long validEnd = 0;
+        int skipped = 0;
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            int length = line.size() + 1;
+            try {
+                Entry entry = toEntry(JsonSupport.readTree(new String(line.toByteArray(), StandardCharsets.UTF_8)));
+                index.put(entry.getKey(), new Position(offset, length, entry.getStatus()));
+            } catch (Exception e) {
+                skipped++;
+            }
+            offset += length;
+            validEnd = offset;
+            line.reset();
+        }
+
+        if (validEnd < size) {
+            // The last record was being written when the run died
+            channel.truncate(validEnd);
+            System.err.println("Result journal " + file + ": discarded a torn record of " + (size - validEnd) + " bytes");
+        }
+        if (skipped > 0) {
+            System.err.println("Result journal " + file + ": skipped " + skipped + " unreadable record(s)");
+        }
+    }
+
+    private static Entry toEntry(JsonNode record) throws IOException {
+        if (record == null || !record.hasNonNull("key") || !record.hasNonNull("status")) {
+            throw new IOException("Not a result journal record");
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> it = record.path("fields").fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> field = it.next();
+            fields.put(field.getKey(), field.getValue().isNull() ? null : field.getValue().asText());
+        }
+        return new Entry(record.get("key").asText(), record.get("status").asText(), fields);
+    }
+
+    /**
+     * Starts the background task that syncs journals with pending records on a timer.
+     */
+    private static synchronized void startSyncer() {
+        if (syncer != null) {
+            return;
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "result-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            for (ResultJournal journal : open.values()) {
+                try {
+                    journal.sync();
+                } catch (IOException e) {
+                    System.err.println("Error syncing result journal " + journal.file + ": " + e.getMessage());
+                }
+            }
+        }, SYNC_MS, SYNC_MS, TimeUnit.MILLISECONDS);
+    }
+}
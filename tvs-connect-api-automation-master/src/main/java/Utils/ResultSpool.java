@@ -0,0 +1,162 @@
+package Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk-backed store for per-row result cells that are written back to Excel at the end of a run.
+ *
+ * Each put appends one record to a temporary file, and only the offset of a row's latest record
+ * stays in memory. Heap use therefore depends on the number of rows, not on the size of the
+ * response bodies, and a row is read back from disk only when the writer reaches it.
+ *
+ * Record layout: row index, cell count, then per cell the column index and a length-prefixed
+ * UTF-8 value (length -1 for null).
+ */
+public class ResultSpool implements Closeable {
+
+    /** Longest value Excel accepts in a cell, minus room for the truncation marker. */
+    public static final int MAX_CELL_LENGTH = 32000;
+
+    private final File file;
+    private final RandomAccessFile data;
+    // Per row: file offset and byte length of its latest record
+    private final Map<Integer, long[]> rowRecords = new HashMap<>();
+
+    private ResultSpool(File file) throws IOException {
+        this.file = file;
+        this.data = new RandomAccessFile(file, "rw");
+        this.file.deleteOnExit();
+    }
+
+    /**
+     * Creates an empty spool backed by a new temporary file.
+     */
+    public static ResultSpool create(String name) {
+        try {
+            return new ResultSpool(File.createTempFile(name + "-", ".spool"));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create result spool '" + name + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records the cells of a row, replacing anything recorded for the row before.
+     * Values longer than Excel's cell limit are truncated.
+     */
+    public void put(int rowIndex, Map<Integer, String> cells) throws IOException {
+        // Encode outside the lock and append the record with a single write
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeInt(rowIndex);
+        record.writeInt(cells.size());
+        for (Map.Entry<Integer, String> cell : cells.entrySet()) {
+            record.writeInt(cell.getKey());
+            writeValue(record, truncate(cell.getValue()));
+        }
+        record.flush();
+
+        synchronized (this) {
+            long offset = data.length();
+            data.seek(offset);
+            data.write(buffer.toByteArray());
+            rowRecords.put(rowIndex, new long[] { offset, buffer.size() });
+        }
+    }
+
+    /**
+     * Reads back the latest cells recorded for a row, or null when the row has none.
+     */
+    public Map<Integer, String> get(int rowIndex) throws IOException {
+        byte[] bytes;
+        synchronized (this) {
+            long[] record = rowRecords.get(rowIndex);
+            if (record == null) {
+                return null;
+            }
+            bytes = new byte[(int) record[1]];
+            data.seek(record[0]);
+            data.readFully(bytes);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.readInt();
+        int count = in.readInt();
+        Map<Integer, String> cells = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int col = in.readInt();
+            cells.put(col, readValue(in));
+        }
+        return cells;
+    }
+
+    /**
+     * Row indexes that have results, in ascending order.
+     */
+    public synchronized int[] getRowIndexes() {
+        int[] rows = new int[rowRecords.size()];
+        int i = 0;
+        for (Integer row : rowRecords.keySet()) {
+            rows[i++] = row;
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    public synchronized int size() {
+        return rowRecords.size();
+    }
+
+    /**
+     * Closes and deletes the backing file.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            data.close();
+        } catch (IOException e) {
+            System.err.println("Error closing result spool: " + e.getMessage());
+        }
+        if (!file.delete() && file.exists()) {
+            System.err.println("Could not delete result spool " + file);
+        }
+    }
+
+    private static String truncate(String value) {
+        if (value != null && value.length() > MAX_CELL_LENGTH) {
+            return value.substring(0, MAX_CELL_LENGTH) + "...(truncated)";
+        }
+        return value;
+    }
+
+    private static void writeValue(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readValue(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
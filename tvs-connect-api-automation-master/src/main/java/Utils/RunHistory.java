@@ -0,0 +1,217 @@
+package Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations and outcomes of test plan rows over past runs, kept in a small JSON file.
+ *
+ * For each row the store keeps how often it ran and failed, a moving average of how long it took,
+ * its last {@link #RECENT_RUNS} outcomes, the hash of the row's content when it last ran and how
+ * many runs in a row it was left out since. The runner uses it to start long and flaky rows
+ * first, and to leave out unchanged rows that passed. Rows only move when the scenario graph
+ * leaves them independent ("scenario.graph" = inferred); a serial sheet runs in sheet order.
+ *
+ * Results are collected in memory during the run and written once with {@link #saveAll()}; the
+ * file is replaced atomically, so a run that dies leaves the previous history intact.
+ */
+public class RunHistory {
+
+    /** Number of outcomes kept per row to tell flaky rows from broken ones. */
+    public static final int RECENT_RUNS = 10;
+
+    // Weight of the latest duration in the moving average
+    private static final double ALPHA = 0.3;
+
+    private static final Map<String, RunHistory> open = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Map<String, Stats> rows = new LinkedHashMap<>();
+    private boolean changed;
+
+    /**
+     * History of one row.
+     */
+    public static class Stats {
+        private int runs;
+        private int failures;
+        private double averageMillis;
+        // Oldest first, 'P' or 'F'
+        private String recent = "";
+        private String contentHash;
+        private int deselectedRuns;
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        /** Moving average of the row's duration, 0 when it never ran. */
+        public long getAverageMillis() {
+            return Math.round(averageMillis);
+        }
+
+        /** Outcomes of the last runs, oldest first ('P' passed, 'F' failed). */
+        public String getRecent() {
+            return recent;
+        }
+
+        /** True when the last run of the row passed. */
+        public boolean lastPassed() {
+            return recent.endsWith("P");
+        }
+
+        /** Hash of the row's content when it last ran, null when not recorded. */
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /** Number of runs since the row last ran because it was left out as unchanged. */
+        public int getDeselectedRuns() {
+            return deselectedRuns;
+        }
+
+        /**
+         * True when the row both passed and failed within its recent runs.
+         */
+        public boolean isFlaky() {
+            return recent.indexOf('P') >= 0 && recent.indexOf('F') >= 0;
+        }
+    }
+
+    private RunHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the history with the given name in the directory, loading it on first use.
+     */
+    public static RunHistory open(String directory, String name) {
+        Path path = Paths.get(directory, name.replaceAll("[^A-Za-z0-9_.-]", "_") + ".json");
+        return open.computeIfAbsent(path.toAbsolutePath().normalize().toString(), k -> {
+            RunHistory history = new RunHistory(path);
+            if (Files.exists(path)) {
+                try {
+                    history.load();
+                } catch (IOException e) {
+                    // A broken history only costs the ordering; start from scratch
+                    System.err.println("Ignoring unreadable run history " + path + ": " + e.getMessage());
+                    history.rows.clear();
+                }
+            }
+            return history;
+        });
+    }
+
+    /**
+     * The history of a row, or null when it never ran.
+     */
+    public synchronized Stats get(String key) {
+        return rows.get(key);
+    }
+
+    /**
+     * Records a finished run of a row with the hash of its content. Skipped runs say nothing
+     * about the row and are ignored.
+     */
+    public synchronized void record(String key, String status, long durationMillis, String contentHash) {
+        boolean failed = ResultJournal.FAIL.equals(status);
+        if (!failed && !ResultJournal.PASS.equals(status)) {
+            return;
+        }
+        Stats stats = rows.computeIfAbsent(key, k -> new Stats());
+        stats.averageMillis = stats.runs == 0 ? durationMillis : ALPHA * durationMillis + (1 - ALPHA) * stats.averageMillis;
+        stats.runs++;
+        if (failed) {
+            stats.failures++;
+        }
+        String recent = stats.recent + (failed ? 'F' : 'P');
+        stats.recent = recent.length() > RECENT_RUNS ? recent.substring(recent.length() - RECENT_RUNS) : recent;
+        stats.contentHash = contentHash;
+        stats.deselectedRuns = 0;
+        changed = true;
+    }
+
+    /**
+     * Records that a row known to the history was left out of this run.
+     */
+    public synchronized void deselected(String key) {
+        Stats stats = rows.get(key);
+        if (stats != null) {
+            stats.deselectedRuns++;
+            changed = true;
+        }
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    /**
+     * Writes the history if it changed since it was loaded or last saved.
+     */
+    public synchronized void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        ObjectNode root = JsonSupport.mapper().createObjectNode();
+        for (Map.Entry<String, Stats> row : rows.entrySet()) {
+            Stats stats = row.getValue();
+            ObjectNode node = root.putObject(row.getKey());
+            node.put("runs", stats.runs);
+            node.put("failures", stats.failures);
+            node.put("averageMillis", stats.getAverageMillis());
+            node.put("recent", stats.recent);
+            node.put("contentHash", stats.contentHash);
+            node.put("deselectedRuns", stats.deselectedRuns);
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, JsonSupport.mapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+    }
+
+    /**
+     * Writes every history opened in this run.
+     */
+    public static void saveAll() {
+        for (RunHistory history : open.values()) {
+            try {
+                history.save();
+            } catch (IOException e) {
+                System.err.println("Could not save run history " + history.file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        JsonNode root = JsonSupport.readTree(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Iterator<Map.Entry<String, JsonNode>> it = root.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> row = it.next();
+            Stats stats = new Stats();
+            stats.runs = row.getValue().path("runs").asInt();
+            stats.failures = row.getValue().path("failures").asInt();
+            stats.averageMillis = row.getValue().path("averageMillis").asDouble();
+            stats.recent = row.getValue().path("recent").asText("");
+            stats.contentHash = row.getValue().path("contentHash").asText(null);
+            stats.deselectedRuns = row.getValue().path("deselectedRuns").asInt();
+            rows.put(row.getKey(), stats);
+        }
+    }
+}
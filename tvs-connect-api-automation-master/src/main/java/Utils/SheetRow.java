@@ -0,0 +1,68 @@
+package Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Immutable snapshot of one sheet row, holding each cell's text by column index.
+ * Rows decoded from a compiled plan also carry the pre-parsed JSON of their JSON cells.
+ */
+public final class SheetRow {
+    private final int rowIndex;
+    private final String[] cells;
+    private final JsonNode[] json;
+
+    public SheetRow(int rowIndex, String[] cells) {
+        this(rowIndex, cells, null);
+    }
+
+    public SheetRow(int rowIndex, String[] cells, JsonNode[] json) {
+        this.rowIndex = rowIndex;
+        this.cells = cells.clone();
+        this.json = json != null ? json.clone() : null;
+    }
+
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * Number of columns up to and including the last populated cell.
+     */
+    public int getColumnCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the cell text, or null when the cell does not exist in the sheet.
+     */
+    public String get(int colIndex) {
+        if (colIndex < 0 || colIndex >= cells.length) {
+            return null;
+        }
+        return cells[colIndex];
+    }
+
+    /**
+     * Returns the cell text, or an empty string when the cell does not exist.
+     */
+    public String getOrEmpty(int colIndex) {
+        String value = get(colIndex);
+        return value != null ? value : "";
+    }
+
+    /**
+     * Returns the pre-parsed JSON of a cell, or null when the cell was not compiled as JSON.
+     * The node is shared and must not be modified.
+     */
+    public JsonNode getJson(int colIndex) {
+        if (json == null || colIndex < 0 || colIndex >= json.length) {
+            return null;
+        }
+        return json[colIndex];
+    }
+
+    @Override
+    public String toString() {
+        return "SheetRow{row=" + rowIndex + ", columns=" + cells.length + "}";
+    }
+}
@@ -0,0 +1,213 @@
+package Utils;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads sheets through POI's XSSF event (SAX) model instead of the DOM-style XSSFWorkbook.
+ *
+ * A sheet is streamed once and handed out as compact {@link SheetRow} records, one row at a
+ * time, so memory use depends on the row being read, not on the workbook's object graph.
+ *
+ * Cell text is the one ExcelCommunicator.getDataFromExcel used to return: numbers are written
+ * without their number format (1000, not 1,000 or 1.0E+3; whole numbers without a decimal
+ * point), and dates as their serial number. Boolean cells come through as TRUE / FALSE.
+ */
+public class SheetStreamReader {
+
+    /**
+     * Streams every non-empty row of the sheet, header row included, to the handler.
+     * Sheet names are matched case-insensitively, like Workbook.getSheet().
+     */
+    public static void forEachRow(String filepath, String sheetName, Consumer<SheetRow> handler) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(filepath, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetData = sheets.next()) {
+                    if (!sheets.getSheetName().equalsIgnoreCase(sheetName)) {
+                        continue;
+                    }
+
+                    XMLReader parser = newXmlReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings,
+                            new RowCollector(handler), new PlainNumberFormatter(), false));
+                    parser.parse(new InputSource(sheetData));
+                    return;
+                }
+            }
+            throw new IOException("Sheet '" + sheetName + "' not found in the workbook.");
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error streaming sheet '" + sheetName + "' from " + filepath + ": " + e.getMessage(), e);
+        } finally {
+            if (pkg != null) {
+                // Read-only package: revert instead of close so nothing is written back
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Streams the data rows of a sheet (everything after the header row) to the handler in a
+     * single pass, without keeping them.
+     */
+    public static void forEachDataRow(String filepath, String sheetName, Consumer<SheetRow> handler) throws IOException {
+        forEachRow(filepath, sheetName, row -> {
+            if (row.getRowIndex() > 0) {
+                handler.accept(row);
+            }
+        });
+    }
+
+    /**
+     * SHA-256 of a sheet's rows as they are read: the row numbers and cell text, shared strings
+     * resolved. It changes when the sheet's data changes, and not when another sheet or only the
+     * formatting is edited. The sheet's XML part alone would not do: a cell holding shared text
+     * only stores the index of its string, and an edit can change the string and keep the index.
+     */
+    public static byte[] sheetHash(String filepath, String sheetName) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        forEachRow(filepath, sheetName, row -> {
+            digest.update(Integer.toString(row.getRowIndex()).getBytes(StandardCharsets.UTF_8));
+            for (int col = 0; col < row.getColumnCount(); col++) {
+                // Separators keep "a|bc" and "ab|c" apart, and a missing cell apart from an empty one
+                String value = row.get(col);
+                digest.update((byte) (value == null ? 1 : 0));
+                if (value != null) {
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            digest.update((byte) '\n');
+        });
+        return digest.digest();
+    }
+
+    /**
+     * Lists the sheet names of a workbook in workbook order.
+     */
+    public static List<String> getSheetNames(String filepath) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(filepath, PackageAccess.READ);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            List<String> names = new ArrayList<>();
+            while (sheets.hasNext()) {
+                // The name is known once the sheet's stream is opened; its data is not needed
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+            return names;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error listing sheets of " + filepath + ": " + e.getMessage(), e);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    private static XMLReader newXmlReader() throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return factory.newSAXParser().getXMLReader();
+    }
+
+    /**
+     * Formats numeric cells the way getDataFromExcel did, whatever their number format: whole
+     * numbers as a long, others as Double.toString.
+     */
+    static final class PlainNumberFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return plain(value);
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return plain(value);
+        }
+
+        static String plain(double value) {
+            return value == Math.floor(value) && !Double.isInfinite(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    /**
+     * Collects the cells of the row being parsed and emits a SheetRow when it ends.
+     */
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<SheetRow> handler;
+        private final List<String> cells = new ArrayList<>();
+        private boolean hasContent;
+
+        RowCollector(Consumer<SheetRow> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            hasContent = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (hasContent) {
+                handler.accept(new SheetRow(rowNum, cells.toArray(new String[0])));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            while (cells.size() <= col) {
+                cells.add(null);
+            }
+
+            String value = formattedValue != null ? formattedValue.trim() : "";
+            cells.set(col, value);
+            if (!value.isEmpty()) {
+                hasContent = true;
+            }
+        }
+
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+            // Headers and footers are not part of the test data
+        }
+    }
+}
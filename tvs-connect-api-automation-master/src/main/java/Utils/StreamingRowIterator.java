@@ -0,0 +1,130 @@
+package Utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Iterates rows while a background thread is still reading them.
+ *
+ * A producer thread streams the source into a bounded queue and the iterator takes rows from
+ * it, so the first row is available as soon as it has been parsed and no more than the queue's
+ * capacity of rows is held in memory at a time. A read error of the producer is rethrown from
+ * {@link #hasNext()}. Closing the iterator stops the producer, e.g. when a run is aborted
+ * before all rows were consumed.
+ */
+public class StreamingRowIterator implements Iterator<SheetRow>, AutoCloseable {
+
+    /**
+     * Reads rows from a source and hands each one to the sink.
+     */
+    public interface RowProducer {
+        void produce(Consumer<SheetRow> sink) throws IOException;
+    }
+
+    private static final int DEFAULT_CAPACITY = Integer.getInteger("row.stream.buffer", 256);
+    private static final SheetRow END = new SheetRow(-1, new String[0]);
+
+    private final BlockingQueue<SheetRow> queue;
+    private final Thread producer;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private SheetRow next;
+    private boolean finished;
+
+    public StreamingRowIterator(String name, RowProducer source) {
+        this(name, DEFAULT_CAPACITY, source);
+    }
+
+    public StreamingRowIterator(String name, int capacity, RowProducer source) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.producer = new Thread(() -> {
+            try {
+                source.produce(this::put);
+            } catch (Throwable e) {
+                if (!closed) {
+                    failure = e;
+                }
+            }
+            if (!closed) {
+                try {
+                    put(END);
+                } catch (IllegalStateException e) {
+                    // Closed while finishing: nobody is waiting for the end marker
+                }
+            }
+        }, "row-stream-" + name);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        SheetRow row;
+        try {
+            row = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the next row", e);
+        }
+
+        if (row == END) {
+            finished = true;
+            if (failure != null) {
+                throw new RuntimeException("Error streaming rows: " + failure.getMessage(), failure);
+            }
+            return false;
+        }
+        next = row;
+        return true;
+    }
+
+    @Override
+    public SheetRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SheetRow row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * Stops the producer and discards the rows not consumed yet.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        queue.clear();
+        producer.interrupt();
+    }
+
+    /**
+     * Hands a row to the consumer, waiting while the queue is full. Gives up once the
+     * iterator is closed, which makes the producer's read fail and end.
+     */
+    private void put(SheetRow row) {
+        try {
+            while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new IllegalStateException("Row stream closed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Row stream interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A source of test plan rows for one sheet (model).
+ *
+ * Rows keep the row index they have in the original sheet: the header is row 0 and data rows
+ * start at 1. The index ties a row to its result in the journal and to the row the simulators
+ * read from their message workbook, so every implementation must preserve it.
+ */
+public interface TestCaseSource {
+
+    /**
+     * Name of the sheet (model) the rows belong to.
+     */
+    String getSheetName();
+
+    /**
+     * Streams every row, header included, in row order.
+     */
+    void forEachRow(Consumer<SheetRow> handler) throws IOException;
+
+    /**
+     * Streams every data row (everything after the header) in row order.
+     */
+    default void forEachDataRow(Consumer<SheetRow> handler) throws IOException {
+        forEachRow(row -> {
+            if (row.getRowIndex() > 0) {
+                handler.accept(row);
+            }
+        });
+    }
+
+    /**
+     * Iterates the data rows while they are still being read: a background thread streams
+     * the source through a bounded buffer, so memory use does not grow with the plan.
+     * Close the iterator if it is abandoned before the end.
+     */
+    default Iterator<SheetRow> dataRowIterator() {
+        return new StreamingRowIterator(getSheetName(), this::forEachDataRow);
+    }
+
+    /**
+     * Loads all data rows in row order.
+     */
+    default List<SheetRow> readDataRows() throws IOException {
+        List<SheetRow> rows = new ArrayList<>();
+        forEachDataRow(rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package Utils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Picks the {@link TestCaseSource} implementation for a plan location.
+ *
+ * <ul>
+ *   <li>a .csv file is read as CSV, a .jsonl or .ndjson file as JSON Lines;</li>
+ *   <li>a directory holds one file per sheet, named after the sheet (e.g. U546.csv or U546.jsonl);</li>
+ *   <li>anything else is an Excel workbook.</li>
+ * </ul>
+ */
+public class TestCaseSources {
+
+    private static final String[] PLAN_EXTENSIONS = { ".jsonl", ".ndjson", ".csv" };
+
+    public static TestCaseSource open(String location, String sheetName) throws IOException {
+        File file = new File(location);
+        if (file.isDirectory()) {
+            return open(findSheetFile(file, sheetName).getPath(), sheetName);
+        }
+
+        String lower = location.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            return new CsvTestCaseSource(location, sheetName);
+        }
+        if (lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) {
+            return new JsonLinesTestCaseSource(location, sheetName);
+        }
+        return new ExcelTestCaseSource(location, sheetName);
+    }
+
+    /**
+     * Finds the plan file of a sheet in a directory. Names are matched case-insensitively,
+     * like sheet names in a workbook.
+     */
+    private static File findSheetFile(File directory, String sheetName) throws IOException {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (String extension : PLAN_EXTENSIONS) {
+                for (File candidate : files) {
+                    if (candidate.getName().equalsIgnoreCase(sheetName + extension)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        throw new IOException("No plan file for sheet '" + sheetName + "' in " + directory
+                + " (expected " + sheetName + ".jsonl, .ndjson or .csv)");
+    }
+}
@@ -0,0 +1,227 @@
+package Utils;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared cache of opened workbooks so a suite inflates each .xlsx only once.
+ *
+ * Entries are keyed by the canonical file path and re-validated against the file's
+ * last-modified time and size on every lookup, so an edited workbook is reloaded
+ * transparently. The cache is bounded (LRU) by the "workbook.cache.size" system
+ * property, default 4 workbooks.
+ *
+ * A workbook is loaded by the first thread that asks for it, outside the cache's lock;
+ * threads asking for the same file meanwhile wait for that load, threads asking for other
+ * files do not. A workbook dropped from the cache (evicted, invalidated or out of date) is
+ * closed once the last thread that acquired it has released it.
+ */
+public class WorkbookCache {
+
+    private static final int MAX_WORKBOOKS = Integer.getInteger("workbook.cache.size", 4);
+
+    // Scenario rows may run on virtual threads, which must not block inside synchronized
+    private static final ReentrantLock cacheLock = new ReentrantLock();
+
+    // Guarded by cacheLock
+    private static final Map<String, CachedWorkbook> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * An opened workbook together with the file stamp it was loaded from.
+     * Acquired with {@link WorkbookCache#acquire}, which also locks it: POI's usermodel is not
+     * safe for concurrent access. Every acquire must be followed by {@link #release()}.
+     */
+    public static class CachedWorkbook {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CompletableFuture<Workbook> workbook = new CompletableFuture<>();
+        private final long lastModified;
+        private final long length;
+        // Guarded by cacheLock
+        private int users;
+        private boolean retired;
+        private volatile boolean closed;
+
+        CachedWorkbook(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        public Workbook getWorkbook() {
+            return workbook.join();
+        }
+
+        /**
+         * Unlocks the workbook and gives up this thread's use of it.
+         */
+        public void release() {
+            lock.unlock();
+            unuse();
+        }
+
+        private void unuse() {
+            boolean close;
+            cacheLock.lock();
+            try {
+                users--;
+                close = retired && users == 0;
+            } finally {
+                cacheLock.unlock();
+            }
+            if (close) {
+                closeQuietly(this);
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /**
+     * Returns the cached workbook for the given path, locked for the caller, loading it on
+     * first use or when the file changed on disk since it was cached. The caller must
+     * {@link CachedWorkbook#release()} it.
+     */
+    public static CachedWorkbook acquire(String filepath) throws IOException {
+        File file = new File(filepath);
+        if (!file.exists()) {
+            throw new IOException("Workbook not found: " + filepath);
+        }
+
+        String key = file.getCanonicalPath();
+        List<CachedWorkbook> toClose = new ArrayList<>();
+        CachedWorkbook entry;
+        boolean load = false;
+        cacheLock.lock();
+        try {
+            entry = cache.get(key);
+            if (entry != null && !entry.isCurrent(file)) {
+                cache.remove(key);
+                retire(entry, toClose);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new CachedWorkbook(file.lastModified(), file.length());
+                cache.put(key, entry);
+                evictOverflow(toClose);
+                load = true;
+            }
+            // Taken before the lock is let go, so the entry cannot be closed under the caller
+            entry.users++;
+        } finally {
+            cacheLock.unlock();
+        }
+        toClose.forEach(WorkbookCache::closeQuietly);
+
+        if (load) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                entry.workbook.complete(new XSSFWorkbook(in));
+            } catch (IOException | RuntimeException e) {
+                entry.workbook.completeExceptionally(e);
+                dropFailed(key, entry);
+            }
+        }
+        try {
+            entry.workbook.join();
+        } catch (CompletionException e) {
+            entry.unuse();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("Could not load workbook " + filepath + ": " + cause.getMessage(), cause);
+        }
+        entry.lock.lock();
+        return entry;
+    }
+
+    /**
+     * Drops the cached workbook for one file, e.g. after it was rewritten.
+     */
+    public static void invalidate(String filepath) {
+        List<CachedWorkbook> toClose = new ArrayList<>();
+        cacheLock.lock();
+        try {
+            retire(cache.remove(new File(filepath).getCanonicalPath()), toClose);
+        } catch (IOException e) {
+            System.err.println("Could not resolve workbook path for invalidation: " + filepath);
+        } finally {
+            cacheLock.unlock();
+        }
+        toClose.forEach(WorkbookCache::closeQuietly);
+    }
+
+    /**
+     * Drops every cached workbook and releases its memory.
+     */
+    public static void invalidateAll() {
+        List<CachedWorkbook> toClose = new ArrayList<>();
+        cacheLock.lock();
+        try {
+            for (CachedWorkbook cached : cache.values()) {
+                retire(cached, toClose);
+            }
+            cache.clear();
+        } finally {
+            cacheLock.unlock();
+        }
+        toClose.forEach(WorkbookCache::closeQuietly);
+    }
+
+    // A failed load is not cached, so the next lookup tries again
+    private static void dropFailed(String key, CachedWorkbook entry) {
+        cacheLock.lock();
+        try {
+            cache.remove(key, entry);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private static void evictOverflow(List<CachedWorkbook> toClose) {
+        Iterator<Map.Entry<String, CachedWorkbook>> it = cache.entrySet().iterator();
+        while (cache.size() > MAX_WORKBOOKS && it.hasNext()) {
+            Map.Entry<String, CachedWorkbook> eldest = it.next();
+            it.remove();
+            retire(eldest.getValue(), toClose);
+            System.out.println("Evicted workbook from cache: " + eldest.getKey());
+        }
+    }
+
+    // Called with cacheLock held; a workbook still in use is closed by its last release()
+    private static void retire(CachedWorkbook cached, List<CachedWorkbook> toClose) {
+        if (cached == null) {
+            return;
+        }
+        cached.retired = true;
+        if (cached.users == 0) {
+            toClose.add(cached);
+        }
+    }
+
+    private static void closeQuietly(CachedWorkbook cached) {
+        if (cached.workbook.isCompletedExceptionally()) {
+            return;
+        }
+        cached.closed = true;
+        try {
+            cached.workbook.join().close();
+        } catch (IOException e) {
+            System.err.println("Error closing cached workbook: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compiling a sheet to its binary plan and reading it back.
+ */
+public class CompiledPlanTest {
+
+    private File workbook;
+
+    @BeforeMethod
+    public void createWorkbook() throws IOException {
+        workbook = File.createTempFile("plan-test", ".xlsx");
+        writeWorkbook("{\"status\":200}", "other");
+    }
+
+    @AfterMethod
+    public void deleteWorkbook() throws IOException {
+        for (Path plan : plansOf("Plan")) {
+            Files.deleteIfExists(plan);
+        }
+        for (Path plan : plansOf("Other")) {
+            Files.deleteIfExists(plan);
+        }
+        Files.deleteIfExists(workbook.toPath());
+    }
+
+    @Test
+    public void rowsSurviveTheRoundTripThroughThePlanFile() throws IOException {
+        CompiledPlan plan = CompiledPlan.load(workbook.getPath(), "Plan");
+
+        Assert.assertEquals(plan.getSheetName(), "Plan");
+        Assert.assertEquals(plan.getRowCount(), 3);
+        Assert.assertEquals(plan.getRow(0).get(0), "ID");
+
+        SheetRow row = plan.getRow(1);
+        Assert.assertEquals(row.get(0), "TC_01");
+        Assert.assertEquals(row.get(1), "1000", "numbers keep their plain text whatever their format");
+        Assert.assertEquals(row.get(2), "{\"status\":200}");
+        JsonNode json = row.getJson(2);
+        Assert.assertNotNull(json);
+        Assert.assertEquals(json.path("status").intValue(), 200);
+        Assert.assertNull(row.get(3), "a missing cell stays missing");
+
+        SheetRow arrayRow = plan.getRow(2);
+        Assert.assertTrue(arrayRow.getJson(2).isArray());
+        Assert.assertEquals(arrayRow.getJson(2).get(1).path("a").asText(), "x");
+        Assert.assertEquals(arrayRow.get(3), "{not json");
+        Assert.assertNull(arrayRow.getJson(3), "invalid JSON is kept as text only");
+    }
+
+    @Test
+    public void dataRowIteratorSkipsTheHeader() throws IOException {
+        List<String> ids = new ArrayList<>();
+        Iterator<SheetRow> rows = CompiledPlan.load(workbook.getPath(), "Plan").dataRowIterator();
+        while (rows.hasNext()) {
+            ids.add(rows.next().get(0));
+        }
+        Assert.assertEquals(ids, List.of("TC_01", "TC_02"));
+    }
+
+    @Test
+    public void getDataFromPlanFailsLikeGetDataFromExcel() throws IOException {
+        Assert.assertEquals(CompiledPlan.getDataFromPlan(workbook.getPath(), "Plan", 2, 3), "{not json");
+        Assert.assertEquals(CompiledPlan.getDataFromPlan(workbook.getPath(), "Plan", 1, 1), "1000");
+
+        IOException missingCell = Assert.expectThrows(IOException.class,
+                () -> CompiledPlan.getDataFromPlan(workbook.getPath(), "Plan", 1, 3));
+        Assert.assertTrue(missingCell.getMessage().contains("Cell at row 1, column 3 is empty"), missingCell.getMessage());
+
+        IOException missingRow = Assert.expectThrows(IOException.class,
+                () -> CompiledPlan.getDataFromPlan(workbook.getPath(), "Plan", 7, 0));
+        Assert.assertTrue(missingRow.getMessage().contains("Row 7 is empty or does not exist"), missingRow.getMessage());
+    }
+
+    @Test
+    public void editingAnotherSheetKeepsThePlan() throws IOException {
+        CompiledPlan.load(workbook.getPath(), "Plan");
+        List<Path> before = plansOf("Plan");
+        Assert.assertEquals(before.size(), 1);
+
+        writeWorkbook("{\"status\":200}", "edited");
+        CompiledPlan.load(workbook.getPath(), "Plan");
+        Assert.assertEquals(plansOf("Plan"), before, "the plan of an unchanged sheet is reused");
+
+        writeWorkbook("{\"status\":500}", "edited");
+        CompiledPlan plan = CompiledPlan.load(workbook.getPath(), "Plan");
+        Assert.assertNotEquals(plansOf("Plan"), before, "an edited sheet is recompiled");
+        Assert.assertEquals(plan.getRow(1).getJson(2).path("status").intValue(), 500);
+    }
+
+    private void writeWorkbook(String expected, String otherText) throws IOException {
+        long previous = workbook.lastModified();
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(workbook)) {
+            Sheet sheet = wb.createSheet("Plan");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ID");
+            header.createCell(1).setCellValue("Count");
+            header.createCell(2).setCellValue("Expected");
+
+            CellStyle thousands = wb.createCellStyle();
+            thousands.setDataFormat(wb.createDataFormat().getFormat("#,##0"));
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue("TC_01");
+            first.createCell(1).setCellValue(1000);
+            first.getCell(1).setCellStyle(thousands);
+            first.createCell(2).setCellValue(expected);
+
+            Row second = sheet.createRow(2);
+            second.createCell(0).setCellValue("TC_02");
+            second.createCell(2).setCellValue("[1,{\"a\":\"x\"}]");
+            second.createCell(3).setCellValue("{not json");
+
+            wb.createSheet("Other").createRow(0).createCell(0).setCellValue(otherText);
+            wb.write(out);
+        }
+        // The plan cache goes by the file stamp: make sure a rewrite changes it
+        workbook.setLastModified(Math.max(System.currentTimeMillis(), previous + 2000));
+    }
+
+    private List<Path> plansOf(String sheetName) throws IOException {
+        List<Path> plans = new ArrayList<>();
+        Path dir = Paths.get(System.getProperty("plan.dir", "./target/compiled-plans"));
+        if (!Files.isDirectory(dir)) {
+            return plans;
+        }
+        String prefix = workbook.getName().replaceFirst("\\.xlsx$", "") + "_" + sheetName + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*.plan")) {
+            files.forEach(plans::add);
+        }
+        return plans;
+    }
+}
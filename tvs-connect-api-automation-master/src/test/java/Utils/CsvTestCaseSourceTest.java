@@ -0,0 +1,83 @@
+package Utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parsing CSV plans.
+ */
+public class CsvTestCaseSourceTest {
+
+    @Test
+    public void plainFieldsAreSplitOnCommas() throws IOException {
+        List<SheetRow> rows = parse("ID,API,Request\nTC_01,login,{}\n");
+        Assert.assertEquals(rows.size(), 2);
+        assertCells(rows.get(1), "TC_01", "login", "{}");
+        Assert.assertEquals(rows.get(1).getRowIndex(), 1);
+    }
+
+    @Test
+    public void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<SheetRow> rows = parse("ID,Request\r\n"
+                + "TC_01,\"{\"\"query\"\":\"\"{ a, b }\"\"}\"\r\n"
+                + "TC_02,\"line one\nline two\"\r\n"
+                + "TC_03,\"\"\r\n");
+        Assert.assertEquals(rows.size(), 4);
+        assertCells(rows.get(1), "TC_01", "{\"query\":\"{ a, b }\"}");
+        assertCells(rows.get(2), "TC_02", "line one\nline two");
+        assertCells(rows.get(3), "TC_03", "");
+        Assert.assertEquals(rows.get(3).getRowIndex(), 3, "a line break inside quotes does not start a record");
+    }
+
+    @Test
+    public void emptyRecordsAreSkippedButCounted() throws IOException {
+        List<SheetRow> rows = parse("ID\n\n,,\nTC_03\n");
+        Assert.assertEquals(rows.size(), 2);
+        Assert.assertEquals(rows.get(1).getRowIndex(), 3);
+        Assert.assertEquals(rows.get(1).get(0), "TC_03");
+    }
+
+    @Test
+    public void theLastRecordNeedsNoLineBreak() throws IOException {
+        List<SheetRow> rows = parse("ID,Expected\nTC_01,\"{\"\"status\"\":200}\"");
+        assertCells(rows.get(1), "TC_01", "{\"status\":200}");
+    }
+
+    @Test
+    public void fieldsAreTrimmedAndMissingCellsAreMissing() throws IOException {
+        SheetRow row = parse("  TC_01 , login\n").get(0);
+        assertCells(row, "TC_01", "login");
+        Assert.assertNull(row.get(2));
+    }
+
+    @Test
+    public void aDoubledQuoteAcrossTheReadBufferIsKept() throws IOException {
+        // The buffer holds 64K characters: put the "" pair across its end
+        char[] filler = new char[64 * 1024 - "TC_01,\"".length() - 1];
+        Arrays.fill(filler, 'x');
+        String value = new String(filler) + "\"" + "tail";
+        List<SheetRow> rows = parse("TC_01,\"" + value.replace("\"", "\"\"") + "\"\nTC_02,y\n");
+        Assert.assertEquals(rows.size(), 2);
+        Assert.assertEquals(rows.get(0).get(1), value);
+        assertCells(rows.get(1), "TC_02", "y");
+    }
+
+    private static List<SheetRow> parse(String csv) throws IOException {
+        List<SheetRow> rows = new ArrayList<>();
+        CsvTestCaseSource.parse(new StringReader(csv), rows::add);
+        return rows;
+    }
+
+    private static void assertCells(SheetRow row, String... expected) {
+        Assert.assertEquals(row.getColumnCount(), expected.length, row.toString());
+        for (int col = 0; col < expected.length; col++) {
+            Assert.assertEquals(row.get(col), expected[col], "column " + col);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package Utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Writing the results of a run into the output copy of the workbook.
+ */
+public class ExcelCommunicatorTest {
+
+    private File workbook;
+    private File output;
+
+    @BeforeMethod
+    public void createWorkbook() throws IOException {
+        workbook = File.createTempFile("write-test", ".xlsx");
+        output = new File(workbook.getPath().replace(".xlsx", "_output.xlsx"));
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(workbook)) {
+            Sheet settings = wb.createSheet("Settings");
+            settings.createRow(0).createCell(0).setCellValue("untouched");
+
+            Sheet plan = wb.createSheet("Plan");
+            CellStyle header = wb.createCellStyle();
+            Font bold = wb.createFont();
+            bold.setBold(true);
+            header.setFont(bold);
+            header.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+            header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            Row headerRow = plan.createRow(0);
+            for (String title : new String[] { "ID", "Count", "Enabled", "Total", "Actual" }) {
+                Cell cell = headerRow.createCell(headerRow.getPhysicalNumberOfCells());
+                cell.setCellValue(title);
+                cell.setCellStyle(header);
+            }
+            Row first = plan.createRow(1);
+            first.createCell(0).setCellValue("TC_01");
+            first.createCell(1).setCellValue(3);
+            first.createCell(2).setCellValue(true);
+            first.createCell(3).setCellFormula("B2*2");
+            plan.createRow(3).createCell(0).setCellValue("TC_03");
+            plan.setColumnWidth(4, 60 * 256);
+            plan.addMergedRegion(new CellRangeAddress(5, 5, 0, 4));
+            plan.createRow(5).createCell(0).setCellValue("notes");
+            wb.write(out);
+        }
+    }
+
+    @AfterMethod
+    public void deleteWorkbooks() throws IOException {
+        Files.deleteIfExists(workbook.toPath());
+        Files.deleteIfExists(output.toPath());
+    }
+
+    @Test
+    public void resultsAreWrittenAndTheSheetKeepsItsFormatting() throws IOException {
+        try (ResultSpool spool = ResultSpool.create("write-test")) {
+            spool.put(1, Map.of(4, "{\"status\":200}"));
+            spool.put(2, Map.of(4, "inserted"));
+            spool.put(3, Map.of(4, "second"));
+            ExcelCommunicator.writeAllDataToExcel(workbook.getPath(), "plan", spool);
+        }
+
+        try (FileInputStream in = new FileInputStream(output); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            Assert.assertEquals(wb.getSheetName(0), "Settings");
+            Assert.assertEquals(wb.getSheetName(1), "Plan", "the result sheet keeps its name and place");
+            Assert.assertEquals(wb.getSheetAt(0).getRow(0).getCell(0).getStringCellValue(), "untouched");
+
+            Sheet plan = wb.getSheet("Plan");
+            Cell title = plan.getRow(0).getCell(0);
+            Assert.assertTrue(((XSSFCellStyle) title.getCellStyle()).getFont().getBold());
+            Assert.assertEquals(title.getCellStyle().getFillForegroundColor(), IndexedColors.YELLOW.getIndex());
+
+            Row first = plan.getRow(1);
+            Assert.assertEquals(first.getCell(1).getCellType(), CellType.NUMERIC);
+            Assert.assertEquals(first.getCell(1).getNumericCellValue(), 3.0);
+            Assert.assertEquals(first.getCell(2).getCellType(), CellType.BOOLEAN);
+            Assert.assertEquals(first.getCell(3).getCellType(), CellType.FORMULA);
+            Assert.assertEquals(first.getCell(3).getCellFormula(), "B2*2");
+            Assert.assertEquals(first.getCell(4).getStringCellValue(), "{\"status\":200}");
+
+            Assert.assertEquals(plan.getRow(2).getCell(4).getStringCellValue(), "inserted");
+            Assert.assertEquals(plan.getRow(3).getCell(0).getStringCellValue(), "TC_03");
+            Assert.assertEquals(plan.getRow(3).getCell(4).getStringCellValue(), "second");
+
+            Assert.assertEquals(plan.getColumnWidth(4), 60 * 256);
+            Assert.assertEquals(plan.getNumMergedRegions(), 1);
+            Assert.assertEquals(plan.getMergedRegion(0).formatAsString(), "A6:E6");
+        }
+    }
+
+    @Test
+    public void aSheetWithTheLongestNameExcelAllowsIsWritten() throws IOException {
+        String longName = "Vehicle_Settings_Regression_031";
+        try (FileInputStream in = new FileInputStream(workbook); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            wb.setSheetName(1, longName);
+            try (FileOutputStream out = new FileOutputStream(workbook)) {
+                wb.write(out);
+            }
+        }
+
+        try (ResultSpool spool = ResultSpool.create("write-test")) {
+            spool.put(1, Map.of(4, "done"));
+            ExcelCommunicator.writeAllDataToExcel(workbook.getPath(), longName, spool);
+        }
+
+        try (FileInputStream in = new FileInputStream(output); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            Assert.assertEquals(wb.getNumberOfSheets(), 2);
+            Assert.assertEquals(wb.getSheetName(1), longName);
+            Assert.assertEquals(wb.getSheet(longName).getRow(1).getCell(4).getStringCellValue(), "done");
+        }
+    }
+
+    @Test
+    public void aMissingSheetFails() throws IOException {
+        try (ResultSpool spool = ResultSpool.create("write-test")) {
+            IOException failure = Assert.expectThrows(IOException.class,
+                    () -> ExcelCommunicator.writeAllDataToExcel(workbook.getPath(), "Missing", spool));
+            Assert.assertTrue(failure.getMessage().contains("Sheet 'Missing' not found"), failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package Utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The cache of parsed JSON cells.
+ */
+public class JsonSupportTest {
+
+    @BeforeMethod
+    public void clearCache() {
+        JsonSupport.clearCellCache();
+    }
+
+    @Test
+    public void aCellIsParsedOnce() throws JsonProcessingException {
+        JsonNode first = JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{\"status\":200}");
+        JsonNode second = JsonSupport.parseCell("a.xlsx", "PLAN", 1, 5, "{\"status\":200}");
+        Assert.assertSame(second, first, "sheet names are not case sensitive");
+        Assert.assertEquals(JsonSupport.getCachedCellCount(), 1);
+    }
+
+    @Test
+    public void theSameCellOfAnotherWorkbookIsItsOwnEntry() throws JsonProcessingException {
+        JsonNode first = JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{\"status\":200}");
+        JsonNode other = JsonSupport.parseCell("b.xlsx", "Plan", 1, 5, "{\"status\":200}");
+        Assert.assertNotSame(other, first);
+        Assert.assertEquals(JsonSupport.getCachedCellCount(), 2);
+        Assert.assertSame(JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{\"status\":200}"), first);
+    }
+
+    @Test
+    public void aChangedCellIsParsedAgain() throws JsonProcessingException {
+        JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{\"status\":200}");
+        JsonNode changed = JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{\"status\":500}");
+        Assert.assertEquals(changed.path("status").intValue(), 500);
+        Assert.assertEquals(JsonSupport.getCachedCellCount(), 1);
+    }
+
+    @Test
+    public void parseFailuresAreNotCached() {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Assert.expectThrows(JsonProcessingException.class,
+                    () -> JsonSupport.parseCell("a.xlsx", "Plan", 1, 5, "{not json"));
+        }
+        Assert.assertEquals(JsonSupport.getCachedCellCount(), 0);
+    }
+
+    @Test
+    public void theLeastRecentlyUsedCellsAreDropped() throws JsonProcessingException {
+        int max = Integer.getInteger("json.cell.cache.size", 10000);
+        JsonNode kept = JsonSupport.parseCell("a.xlsx", "Plan", 0, 0, "[0]");
+        JsonNode dropped = JsonSupport.parseCell("a.xlsx", "Plan", 0, 1, "[1]");
+        JsonSupport.parseCell("a.xlsx", "Plan", 0, 0, "[0]");
+        for (int row = 1; row < max; row++) {
+            JsonSupport.parseCell("a.xlsx", "Plan", row, 0, "[" + row + "]");
+        }
+
+        Assert.assertEquals(JsonSupport.getCachedCellCount(), max);
+        Assert.assertSame(JsonSupport.parseCell("a.xlsx", "Plan", 0, 0, "[0]"), kept);
+        Assert.assertNotSame(JsonSupport.parseCell("a.xlsx", "Plan", 0, 1, "[1]"), dropped);
+    }
+}
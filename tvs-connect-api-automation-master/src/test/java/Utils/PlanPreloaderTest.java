@@ -0,0 +1,65 @@
+package Utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loading the sheets of a suite up front.
+ */
+public class PlanPreloaderTest {
+
+    private File workbook;
+
+    @BeforeMethod
+    public void createWorkbook() throws IOException {
+        workbook = File.createTempFile("preload-test", ".xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(workbook)) {
+            for (String sheetName : new String[] { "Login", "Trips" }) {
+                Sheet sheet = wb.createSheet(sheetName);
+                sheet.createRow(0).createCell(0).setCellValue("ID");
+                sheet.createRow(1).createCell(0).setCellValue(sheetName + "_01");
+            }
+            wb.write(out);
+        }
+    }
+
+    @AfterMethod
+    public void deleteWorkbook() throws IOException {
+        PlanPreloader.clear();
+        String base = workbook.getName().replaceFirst("\\.xlsx$", "");
+        Path dir = Paths.get(System.getProperty("plan.dir", "./target/compiled-plans"));
+        try (DirectoryStream<Path> plans = Files.newDirectoryStream(dir, base + "_*.plan")) {
+            for (Path plan : plans) {
+                Files.deleteIfExists(plan);
+            }
+        }
+        Files.deleteIfExists(workbook.toPath());
+    }
+
+    @Test
+    public void aMissingSheetFailsAloneAndTheOthersAreServed() throws IOException {
+        Set<String> sheets = new LinkedHashSet<>(List.of("Login", "Missing", "Trips"));
+        Map<String, Exception> failures = PlanPreloader.preload(Map.of(workbook.getPath(), sheets));
+
+        Assert.assertEquals(failures.keySet(), Set.of(workbook.getPath() + "|Missing"));
+        Assert.assertTrue(failures.values().iterator().next().getMessage().contains("Missing"));
+        Assert.assertEquals(PlanPreloader.getPreloadedRows(workbook.getPath(), "Login").get(0).get(0), "Login_01");
+        Assert.assertEquals(PlanPreloader.getPreloadedRows(workbook.getPath(), "Trips").get(0).get(0), "Trips_01");
+    }
+}
@@ -0,0 +1,92 @@
+package Utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Recovering the result journal after a run died.
+ */
+public class ResultJournalTest {
+
+    private Path dir;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("journal-test");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void aTornLastRecordIsCutOff() throws IOException {
+        ResultJournal journal = ResultJournal.open(dir.toString(), "Plan", false);
+        journal.append("TC_01", ResultJournal.PASS, Map.of("actual", "{\"status\":200}"));
+        journal.append("TC_02", ResultJournal.FAIL, Map.of("actual", "first"));
+        journal.append("TC_02", ResultJournal.PASS, Map.of("actual", "second"));
+        Path file = journal.getFile();
+        journal.close();
+        long complete = Files.size(file);
+
+        // A line that is not a record, then the run dies halfway through the next one
+        Files.write(file, "not a record\n{\"key\":\"TC_03\",\"sta".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        ResultJournal resumed = ResultJournal.open(dir.toString(), "Plan", true);
+        try {
+            Assert.assertEquals(Files.size(file), complete + "not a record\n".length(), "only the torn tail is cut off");
+            Assert.assertEquals(resumed.size(), 2);
+            Assert.assertTrue(resumed.isFinished("TC_01"));
+            Assert.assertEquals(resumed.get("TC_02").get("actual"), "second", "the latest record of a key wins");
+            Assert.assertNull(resumed.get("TC_03"));
+
+            resumed.append("TC_03", ResultJournal.SKIP, Map.of());
+            Assert.assertFalse(resumed.isFinished("TC_03"), "a skipped row is not finished");
+        } finally {
+            resumed.close();
+        }
+
+        ResultJournal reopened = ResultJournal.open(dir.toString(), "Plan", true);
+        try {
+            List<String> keys = new ArrayList<>();
+            reopened.forEachEntry(entry -> keys.add(entry.getKey() + "=" + entry.getStatus()));
+            Assert.assertEquals(keys, List.of("TC_01=PASS", "TC_02=PASS", "TC_03=SKIP"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void withoutResumeTheJournalStartsEmpty() throws IOException {
+        ResultJournal journal = ResultJournal.open(dir.toString(), "Plan", false);
+        journal.append("TC_01", ResultJournal.PASS, Map.of());
+        journal.close();
+
+        ResultJournal fresh = ResultJournal.open(dir.toString(), "Plan", false);
+        try {
+            Assert.assertEquals(fresh.size(), 0);
+            Assert.assertFalse(fresh.isFinished("TC_01"));
+        } finally {
+            fresh.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package Utils;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sharing opened workbooks between threads, and closing them only once nobody reads them.
+ */
+public class WorkbookCacheTest {
+
+    private File workbook;
+
+    @BeforeMethod
+    public void createWorkbook() throws IOException {
+        workbook = File.createTempFile("cache-test", ".xlsx");
+        writeWorkbook("first");
+    }
+
+    @AfterMethod
+    public void deleteWorkbook() throws IOException {
+        WorkbookCache.invalidateAll();
+        Files.deleteIfExists(workbook.toPath());
+    }
+
+    @Test
+    public void aWorkbookInUseIsClosedByItsLastRelease() throws IOException {
+        WorkbookCache.CachedWorkbook cached = WorkbookCache.acquire(workbook.getPath());
+        WorkbookCache.invalidate(workbook.getPath());
+
+        Assert.assertFalse(cached.isClosed(), "invalidated while in use");
+        Assert.assertEquals(valueOf(cached.getWorkbook()), "first");
+        cached.release();
+        Assert.assertTrue(cached.isClosed());
+    }
+
+    @Test
+    public void aChangedFileIsReloaded() throws IOException {
+        WorkbookCache.CachedWorkbook first = WorkbookCache.acquire(workbook.getPath());
+        first.release();
+
+        writeWorkbook("second");
+        WorkbookCache.CachedWorkbook second = WorkbookCache.acquire(workbook.getPath());
+        try {
+            Assert.assertNotSame(second, first);
+            Assert.assertEquals(valueOf(second.getWorkbook()), "second");
+            Assert.assertTrue(first.isClosed(), "the stale workbook is released");
+        } finally {
+            second.release();
+        }
+    }
+
+    @Test
+    public void threadsAskingForTheSameFileShareOneLoad() throws Exception {
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Workbook>> loaded = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Workbook> read = () -> {
+                    start.await();
+                    WorkbookCache.CachedWorkbook cached = WorkbookCache.acquire(workbook.getPath());
+                    try {
+                        Assert.assertEquals(valueOf(cached.getWorkbook()), "first");
+                        return cached.getWorkbook();
+                    } finally {
+                        cached.release();
+                    }
+                };
+                loaded.add(pool.submit(read));
+            }
+            start.countDown();
+            for (Future<Workbook> workbookOfThread : loaded) {
+                Assert.assertSame(workbookOfThread.get(), loaded.get(0).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void aFailedLoadIsNotCached() throws IOException {
+        Files.write(workbook.toPath(), "not a workbook".getBytes(StandardCharsets.UTF_8));
+        Assert.expectThrows(IOException.class, () -> WorkbookCache.acquire(workbook.getPath()));
+
+        writeWorkbook("fixed");
+        WorkbookCache.CachedWorkbook cached = WorkbookCache.acquire(workbook.getPath());
+        try {
+            Assert.assertEquals(valueOf(cached.getWorkbook()), "fixed");
+        } finally {
+            cached.release();
+        }
+    }
+
+    private static String valueOf(Workbook wb) {
+        return wb.getSheet("Plan").getRow(0).getCell(0).getStringCellValue();
+    }
+
+    private void writeWorkbook(String value) throws IOException {
+        long previous = workbook.lastModified();
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(workbook)) {
+            wb.createSheet("Plan").createRow(0).createCell(0).setCellValue(value);
+            wb.write(out);
+        }
+        // The cache goes by the file stamp: make sure a rewrite changes it
+        workbook.setLastModified(Math.max(System.currentTimeMillis(), previous + 2000));
+    }
+}
@@ -2,10 +2,15 @@ package api.auth;
 
 import Utils.ExcelCommunicator;
 import Utils.FileUtils;
+import Utils.ResultJournal;
+import Utils.ResultSpool;
+import Utils.SheetRow;
+import Utils.TestCaseSources;
 import api.auth.TokenManager;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import configuration.ConfigReader;
+import configuration.RunOptions;
 import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import org.testng.Assert;
@@ -13,8 +18,12 @@ import org.testng.annotations.AfterSuite;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import static io.restassured.RestAssured.given;
 
@@ -23,27 +32,63 @@ public class ExcelDrivenApiTest {
     String filePath = System.getProperty("user.dir") + "/" + ConfigReader.getExcelFilePath();
     String sheetName = ConfigReader.getExcelSheetName();
 
-    static Map<Integer, Map<Integer, String>> finalUpdates = new HashMap<>();
+    // Every result is journaled as its test finishes; the output workbook is built from the journal
+    static ResultJournal journal;
+
+    private synchronized ResultJournal journal() {
+        if (journal == null) {
+            journal = ResultJournal.open(RunOptions.getJournalDir(), "excel-driven_" + sheetName, RunOptions.isResume());
+        }
+        return journal;
+    }
 
     @DataProvider(name = "apiDataProvider")
-    public Object[][] apiDataProvider() throws Exception {
-        int lastRow = ExcelCommunicator.getLastRow(filePath, sheetName);
-        Object[][] data = new Object[lastRow][1];
+    public Iterator<Object[]> apiDataProvider() throws Exception {
+        // One streaming pass over the sheet; each row is mapped when TestNG asks for it
+        Iterator<SheetRow> rows = TestCaseSources.open(filePath, sheetName).dataRowIterator();
+        boolean resume = RunOptions.isResume();
 
-        for (int i = 1; i <= lastRow; i++) {
-            Map<String, String> rowData = new HashMap<>();
-            rowData.put("rowNumber", String.valueOf(i));
-            rowData.put("testCaseId", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 0));
-            rowData.put("endpoint", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 4));
-            rowData.put("method", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 8));
-            rowData.put("requestBody", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 5));
-            rowData.put("expectedStatusCode", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 7));
-            rowData.put("expectedData", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 6));
-            rowData.put("validationRules", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 9));
-           // rowData.put("variablesToSave", ExcelCommunicator.getDataFromExcel(filePath, sheetName, i, 13));
-            data[i - 1][0] = rowData;
-        }
-        return data;
+        return new Iterator<Object[]>() {
+            private SheetRow next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && rows.hasNext()) {
+                    SheetRow row = rows.next();
+                    // Rows an interrupted run already finished keep their journaled result
+                    if (resume && journal().isFinished(String.valueOf(row.getRowIndex()))) {
+                        System.out.println("Resuming: row " + row.getRowIndex() + " already finished, skipped");
+                        continue;
+                    }
+                    next = row;
+                }
+                return next != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                SheetRow row = next;
+                next = null;
+                return new Object[] { toRowData(row) };
+            }
+        };
+    }
+
+    private static Map<String, String> toRowData(SheetRow row) {
+        Map<String, String> rowData = new HashMap<>();
+        rowData.put("rowNumber", String.valueOf(row.getRowIndex()));
+        rowData.put("testCaseId", row.getOrEmpty(0));
+        rowData.put("endpoint", row.getOrEmpty(4));
+        rowData.put("method", row.getOrEmpty(8));
+        rowData.put("requestBody", row.getOrEmpty(5));
+        rowData.put("expectedStatusCode", row.getOrEmpty(7));
+        rowData.put("expectedData", row.getOrEmpty(6));
+        rowData.put("validationRules", row.getOrEmpty(9));
+       // rowData.put("variablesToSave", row.getOrEmpty(13));
+        return rowData;
     }
 
     @Test(dataProvider = "apiDataProvider")
@@ -162,12 +207,16 @@ public class ExcelDrivenApiTest {
             System.out.println("❌ Test FAILED for row " + rowNumber + ": " + failureReason);
         }
 
-        // Always update finalUpdates regardless of pass or fail
-        Map<Integer, String> cellMap = new HashMap<>();
-        cellMap.put(10, actualResponse);
-        cellMap.put(11, statusResult);
-        cellMap.put(12, failureReason);
-        finalUpdates.put(rowNumber, cellMap);
+        // Always journal the result regardless of pass or fail
+        Map<String, String> result = new HashMap<>();
+        result.put("actualResponse", actualResponse);
+        result.put("status", statusResult);
+        result.put("failureReason", failureReason);
+        try {
+            journal().append(String.valueOf(rowNumber), "Pass".equals(statusResult) ? ResultJournal.PASS : ResultJournal.FAIL, result);
+        } catch (IOException e) {
+            System.err.println("❌ Could not record results for row " + rowNumber + ": " + e.getMessage());
+        }
 
         // If failed, make test fail for TestNG reporting
         if ("Fail".equals(statusResult)) {
@@ -242,7 +291,22 @@ public class ExcelDrivenApiTest {
 
     @AfterSuite
     public void afterSuiteWriteBack() {
+        ResultSpool finalUpdates = ResultSpool.create("excel-driven-results");
         try {
+            // Materialize the output cells from the journal, which includes resumed rows
+            journal().sync();
+            journal().forEachEntry(entry -> {
+                Map<Integer, String> cellMap = new HashMap<>();
+                cellMap.put(10, entry.get("actualResponse"));
+                cellMap.put(11, entry.get("status"));
+                cellMap.put(12, entry.get("failureReason"));
+                try {
+                    finalUpdates.put(Integer.parseInt(entry.getKey()), cellMap);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
             System.out.println("Writing results to Excel. Number of rows to update: " + finalUpdates.size());
             System.out.println("Output file path: " + filePath.replace(".xlsx", "_output.xlsx"));
             ExcelCommunicator.writeAllDataToExcel(filePath, sheetName, finalUpdates);
@@ -250,6 +314,9 @@ public class ExcelDrivenApiTest {
         } catch (Exception e) {
             System.err.println("❌ Exception while writing Excel output:");
             e.printStackTrace();
+        } finally {
+            finalUpdates.close();
+            journal().close();
         }
     }
 
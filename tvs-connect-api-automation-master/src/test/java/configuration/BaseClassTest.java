@@ -1,48 +1,129 @@
 package configuration;
 
+import Utils.DynamicContext;
+import Utils.PlanPreloader;
 import Utils.Property;
+import Utils.ResultJournal;
+import Utils.RunHistory;
+import org.testng.ITestContext;
 import org.testng.annotations.*;
-import org.testng.asserts.SoftAssert;
-import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.xml.XmlTest;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class BaseClassTest {
 
-    public static String ExcelFilePath;
     public static String DevServiceRole;
     public static final String OUTPUT_FOLDER = "./Reports/";
     public static String FILE_NAME = "TestExecutionReport(DEV).html";
-    public static String model;
-    public static SoftAssert softAssert;
-    public static String id;
-    public static String name;
-    public static String request;
-    public static String expected;
-    public static String expectedStatusCode;
-    public static String apiName;
-    public static JsonNode validationObject;
     public static String statusPath;
-    public static String actualStatusCode;
-    public static String actualResponseBody;
-    public static String errorDetails;
+    // Model, environment, VIN and tokens are per <test> block: see TestConfig.
+    // The row being executed and its results are per invocation: see ExecutionContext
 
     @BeforeSuite
-    public void beforeSuite() throws IOException {
+    public void beforeSuite(ITestContext context) throws IOException {
         System.out.println("BeforeSuite");
         // writting service auth token to property file
         DevServiceRole = Property.readProperties("DEV_Service_role");
+
+        RunOptions.init(context.getSuite().getXmlSuite().getParameters());
+        // Values handed on between rows stay within the <test> block that produced them
+        DynamicContext.setScope(() -> TestConfig.current().getDynamicContext());
+        preloadTestPlans(context);
+        if (WarmUp.isEnabled()) {
+            WarmUp.exerciseCodePaths();
+        }
+    }
+
+    /** Name prefix of the scenario journals, followed by the workbook name. */
+    public static final String SCENARIO_JOURNAL_PREFIX = "scenarios_";
+
+    private static final Map<String, ResultJournal> scenarioJournals = new LinkedHashMap<>();
+
+    /**
+     * Journal of the scenario results of this run, one per test data workbook (and shard).
+     * Opened on first use; with the "resume" option an earlier run's journal is continued.
+     */
+    public static synchronized ResultJournal scenarioJournal(String excelFilePath) {
+        String workbook = workbookName(excelFilePath);
+        return scenarioJournals.computeIfAbsent(workbook, name -> ResultJournal.open(RunOptions.getJournalDir(),
+                RunOptions.shardFileName(SCENARIO_JOURNAL_PREFIX + name), RunOptions.isResume()));
+    }
+
+    /**
+     * The scenario journal of a workbook if this run opened one, otherwise null.
+     */
+    public static synchronized ResultJournal scenarioJournalIfOpen(String excelFilePath) {
+        if (excelFilePath == null) {
+            return null;
+        }
+        return scenarioJournals.get(workbookName(excelFilePath));
+    }
+
+    /**
+     * Durations and outcomes of the workbook's rows in earlier runs (of this shard), saved after the suite.
+     */
+    public static RunHistory rowHistory(String excelFilePath) {
+        return RunHistory.open(RunOptions.getHistoryDir(), RunOptions.shardFileName("history_" + workbookName(excelFilePath)));
+    }
+
+    private static String workbookName(String excelFilePath) {
+        return new File(excelFilePath).getName().replaceFirst("\\.xlsx$", "");
+    }
+
+    /**
+     * Compiles the model sheets of every <test> block in the suite in parallel, so each
+     * block's data provider finds its plan already loaded and parsed.
+     * A sheet that fails here is only logged; its test block reports the error when it loads.
+     */
+    private void preloadTestPlans(ITestContext context) {
+        Map<String, Set<String>> sheetsByWorkbook = new LinkedHashMap<>();
+        for (XmlTest test : context.getSuite().getXmlSuite().getTests()) {
+            Map<String, String> params = test.getAllParameters();
+            String sheet = params.get("model");
+            String instance = params.get("instance");
+            if (sheet == null || instance == null) {
+                continue;
+            }
+            try {
+                sheetsByWorkbook.computeIfAbsent(resolveExcelPath(instance), k -> new LinkedHashSet<>()).add(sheet);
+            } catch (Exception e) {
+                System.err.println("Skipping plan preload for test '" + test.getName() + "': " + e.getMessage());
+            }
+        }
+
+        Map<String, Exception> failures = PlanPreloader.preload(sheetsByWorkbook);
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            System.err.println("Could not preload plan " + failure.getKey() + ": " + failure.getValue().getMessage());
+        }
+    }
+
+    /**
+     * Maps an instance parameter (DEV_URL, UAT_URL, ...) to the test data workbook of that environment.
+     */
+    public static String resolveExcelPath(String instance) throws IOException {
+        if (instance.equals("DEV_URL")) {
+            return Property.readProperties("DEV_ExcelPath");
+        } else if (instance.equals("UAT_URL")) {
+            return Property.readProperties("UAT_ExcelPath");
+        } else {
+            return Property.readProperties("PROD_ExcelPath");
+        }
     }
 
-    public static String serviceAuthToken;
-    public static String executingInstance;
     @Parameters({ "instance", "Vin", "UserId", "DeviceId", "Token", "RoleId", "model" })
     @BeforeTest
-    public void beforeTest(String instance, String Vin, String UserId, String DeviceID, String Token, String RoleId,String model1)
-            throws IOException {
+    public void beforeTest(ITestContext context, String instance, String Vin, String UserId, String DeviceID, String Token,
+                           String RoleId, String model) throws IOException {
         System.out.println("BeforeTest");
-        model = model1;
-        executingInstance = instance;
+        TestConfig config = TestConfig.of(context);
+        config.setModel(model);
+        config.setExecutingInstance(instance);
 
         // reading data from properties file
         instance = Property.readProperties(instance);
@@ -52,24 +133,21 @@ public class BaseClassTest {
         RoleId = Property.readProperties(RoleId);
 
 
-        if (executingInstance.equals("DEV_URL")) {
-            serviceAuthToken = TokenGenerator.generateServiceAuthToken(instance, RoleId);
-            ExcelFilePath = Property.readProperties("DEV_ExcelPath");
-        } else if (executingInstance.equals("UAT_URL")) {
-            serviceAuthToken = TokenGenerator.generateServiceAuthToken(instance, RoleId);
-            ExcelFilePath = Property.readProperties("UAT_ExcelPath");
-        } else {
-            serviceAuthToken = TokenGenerator.generateServiceAuthToken(instance, RoleId);
-            ExcelFilePath = Property.readProperties("PROD_ExcelPath");
-        }
+        String serviceAuthToken = TokenGenerator.generateServiceAuthToken(instance, RoleId);
+        config.setServiceAuthToken(serviceAuthToken);
+        config.setExcelFilePath(resolveExcelPath(config.getExecutingInstance()));
         System.out.println("serviceauthtoken= " + serviceAuthToken);
+        if (WarmUp.isEnabled()) {
+            // Connection set-up is paid here, not by the block's first row
+            WarmUp.primeEndpoint(instance, serviceAuthToken);
+        }
 
         String tokenData;
 //        tokenData = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJwcm90ZWN0ZWQiOiJleUpsYm1NaU9pSkJNalUyUjBOTklpd2lZV3huSWpvaVpHbHlJaXdpYTJsa0lqb2lObUpFVWxaZlNrZE5jVVpJZFhwUVZrWTVUM1p2YjNKWlRVcG9kMEZIVG5Oa1kwbzBNRzVPVEZwaWR5SjkiLCJpdiI6IlJoWkMyMXc2bVFIUE4tVFoiLCJjaXBoZXJ0ZXh0IjoieVFvUGkwcDFES1huUjhEdzFGSHhxd01teHh0bWRBUHpIbTRyWW1YLUxTTl9WdjE3UDFqVER1emlFNnFfZktzSXpvanJacVNMN01ZWTRwRHVZZlI5TzVuRS0wWXlrcmhsTG9yS3I3dXV5X0RFMVR2Ny01RWMxcjdyWlp2VXdVSmNadHZLbDhtX0t3Q1ZWeklNdkZsclFzS3pwM2VsUldxcTZVWmMzTGdQcElrSDZVZl95bXdrLVQ0VzFFOG9pT01LWWlOZ0QzOWR1UDhPY2tJR0RWZUdRQ0xyU3ZDS1lVWEdjRUJRX2h1YVkxZ3FZSzdXcXdWakZGU0E3SUlBSXdCdzJXMDVZdzFQdDFOOGRFQU9WTmZYSThyX3d5RGdsbFIzc0lpblV0NDUwYXJwSXdFaGhCNl9tNmY4cXlIS1ZyRDBVa0N2Q1ZMRF9QUnBoelB3cEhmdjZhOXEtQndaMjU1WXladWxWcXdnNnJIbXc5OElvZzBtM0hOaHF4NUViM1RkSEVsMFBCYUhYZyIsInRhZyI6IjhjeXJmenBxd2ZhSDIzSG5rbzVMamciLCJpYXQiOjE3NDk1NjQ4Mzl9.sIHYbHExt6k5eYa4z7Ppn-uUlT1XfxLLwBliAnVagWE";
         if (DeviceID.equals("null")) {
-            tokenData = TokenGenerator.reGenerateToken(instance, Vin, UserId);
+            tokenData = TokenGenerator.reGenerateToken(instance, serviceAuthToken, Vin, UserId);
         } else {
-            tokenData = TokenGenerator.reGenerateToken(instance, Vin, UserId, DeviceID);
+            tokenData = TokenGenerator.reGenerateToken(instance, serviceAuthToken, Vin, UserId, DeviceID);
         }
 
         if (model.equals("Onboard")||model.equals("OffBoard")) {
@@ -83,25 +161,19 @@ public class BaseClassTest {
         Property.propertyWriter(Token,tokenData);
     }
 
-    public static String instanceE;
-    public static String VinE;
-    public static String UserIdE;
-    public static String DeviceIDE;
-    public static String authToken;
-
     @Parameters({ "instance", "Vin", "UserId", "DeviceId", "Token" })
     @BeforeClass
-    public static void beforeClass(String instance, String Vin, String UserId, String DeviceID, String Token) throws InterruptedException, IOException {
+    public static void beforeClass(ITestContext context, String instance, String Vin, String UserId, String DeviceID,
+                                   String Token) throws InterruptedException, IOException {
         System.out.println("BeforeClass");
-        instanceE = Property.readProperties(instance);
-        VinE = Property.readProperties(Vin);
-        UserIdE = Property.readProperties(UserId);
-        DeviceIDE = Property.readProperties(DeviceID);
-        authToken = Property.readProperties(Token);
-
-        // We're moving softAssert initialization to each test method to avoid state sharing
-        // This line is now commented out to avoid creating a class-level softAssert
-        // softAssert = new SoftAssert();
+        TestConfig config = TestConfig.of(context);
+        config.setBaseUrl(Property.readProperties(instance));
+        config.setVin(Property.readProperties(Vin));
+        config.setUserId(Property.readProperties(UserId));
+        config.setDeviceId(Property.readProperties(DeviceID));
+        config.setAuthToken(Property.readProperties(Token));
+
+        // Each test invocation gets its own SoftAssert through ExecutionContext
     }
 
     @AfterClass
@@ -119,5 +191,15 @@ public class BaseClassTest {
     @AfterSuite
     public void afterSuite() {
         System.out.println("After Suite");
+        synchronized (BaseClassTest.class) {
+            for (ResultJournal journal : scenarioJournals.values()) {
+                journal.close();
+            }
+            scenarioJournals.clear();
+        }
+        RunHistory.saveAll();
+        Listeners.reportPhaseTimings();
+        PersistedQueries.save();
+        HttpTransport.shutdown();
     }
 }
\ No newline at end of file
@@ -0,0 +1,294 @@
+package configuration;
+
+import org.testng.SkipException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of a backend the scenarios call (the GraphQL endpoint, the device
+ * simulators).
+ *
+ * While the backend answers, calls pass through and their outcome is counted. The breaker opens
+ * after "breaker.failures" consecutive failures (default 5) or when at least "breaker.error.rate"
+ * (a fraction between 0 and 1, default 0.5; 0 turns it off) of the last "breaker.window" calls
+ * (default 20) failed. An exception or an HTTP 5xx counts as a failure; an expected 4xx does not.
+ * The device simulators have a breaker per model and environment, and only count the errors of
+ * reaching the broker: an unknown model or a bad plan cell is the row's failure, not theirs.
+ *
+ * While open, rows calling the backend are skipped at once with a {@link OpenException}
+ * ("breaker.mode" = fail, the default) or wait for it to come back ("breaker.mode" = pause, at
+ * most "breaker.pause.max.seconds", default 600). After "breaker.open.seconds" (default 30) one
+ * call is let through as a probe: if it succeeds the breaker closes and the run carries on,
+ * otherwise it stays open for another period. Skipped rows are not finished in the result
+ * journal, so a resumed run picks them up once the backend is back.
+ *
+ * Set "breaker.enabled" to false to call the backends unguarded.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of calling a backend whose breaker is open. TestNG reports the row as skipped.
+     */
+    public static class OpenException extends SkipException {
+        private static final long serialVersionUID = 1L;
+
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A call to the backend.
+     */
+    public interface Call<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int failureThreshold;
+    private final double errorRate;
+    private final boolean[] window;
+    private final long openMillis;
+    private final boolean pause;
+    private final long maxPauseMillis;
+
+    // Waiting rows may be virtual threads, which must not block inside synchronized
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int recorded;
+    private int failuresInWindow;
+    private int next;
+    private long openedAt;
+    private boolean probing;
+    private String lastFailure;
+
+    CircuitBreaker(String name) {
+        this.name = name;
+        this.failureThreshold = RunOptions.getInt("breaker.failures", 5);
+        this.errorRate = RunOptions.getRate("breaker.error.rate", 0.5);
+        this.window = new boolean[Math.max(1, RunOptions.getInt("breaker.window", 20))];
+        this.openMillis = TimeUnit.SECONDS.toMillis(RunOptions.getInt("breaker.open.seconds", 30));
+        this.pause = "pause".equalsIgnoreCase(RunOptions.get("breaker.mode", "fail"));
+        this.maxPauseMillis = TimeUnit.SECONDS.toMillis(RunOptions.getInt("breaker.pause.max.seconds", 600));
+    }
+
+    /**
+     * The breaker of a backend, created on first use.
+     */
+    public static CircuitBreaker forBackend(String name) {
+        return breakers.computeIfAbsent(name, CircuitBreaker::new);
+    }
+
+    public static boolean isEnabled() {
+        return RunOptions.getBoolean("breaker.enabled", true);
+    }
+
+    /**
+     * Runs the call through the breaker. {@code failureOf} names what makes a completed call a
+     * failure of the backend (e.g. an HTTP 503), or returns null when it succeeded.
+     */
+    public <T, E extends Exception> T call(Call<T, E> action, Function<T, String> failureOf) throws E {
+        return call(action, failureOf, e -> true);
+    }
+
+    /**
+     * {@link #call(Call, Function)} where only the exceptions {@code backendFailure} accepts count
+     * against the backend. The others (a misconfigured row, a bad plan cell) say nothing about
+     * it and are not counted.
+     */
+    public <T, E extends Exception> T call(Call<T, E> action, Function<T, String> failureOf,
+                                           Predicate<Throwable> backendFailure) throws E {
+        acquire();
+        T result;
+        try {
+            result = action.run();
+        } catch (Throwable e) {
+            if (backendFailure.test(e)) {
+                onFailure(e.toString());
+            } else {
+                onIgnored();
+            }
+            throw e;
+        }
+        String failure = failureOf != null ? failureOf.apply(result) : null;
+        if (failure != null) {
+            onFailure(failure);
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    /**
+     * Async {@link #call}: the call starts once the breaker lets it, as for {@link #call}, and its
+     * outcome is counted when the returned future completes.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> action, Function<T, String> failureOf) {
+        acquire();
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            onFailure(e.toString());
+            throw e;
+        }
+        return result.whenComplete((value, error) -> {
+            String failure = error != null ? error.toString() : failureOf != null ? failureOf.apply(value) : null;
+            if (failure != null) {
+                onFailure(failure);
+            } else {
+                onSuccess();
+            }
+        });
+    }
+
+    /**
+     * Returns when a call may go to the backend: the breaker is closed, or this call is the
+     * probe of a half-open breaker. Otherwise fails fast or, in pause mode, waits.
+     */
+    public void acquire() {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            long deadline = System.currentTimeMillis() + maxPauseMillis;
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (state == State.OPEN && now - openedAt >= openMillis) {
+                    state = State.HALF_OPEN;
+                    probing = false;
+                }
+                if (state == State.CLOSED) {
+                    return;
+                }
+                if (state == State.HALF_OPEN && !probing) {
+                    probing = true;
+                    System.out.println("Circuit breaker '" + name + "' is half-open: probing the backend");
+                    return;
+                }
+                if (!pause || now >= deadline) {
+                    throw new OpenException("Backend '" + name + "' is unavailable (circuit breaker open, last failure: "
+                            + lastFailure + ")");
+                }
+                // Open: until the probe is due; half-open: until the probe has its answer
+                long wait = state == State.OPEN ? openedAt + openMillis - now : deadline - now;
+                try {
+                    stateChanged.await(Math.max(1, Math.min(wait, deadline - now)), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OpenException("Interrupted while waiting for backend '" + name + "' to come back");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state != State.CLOSED) {
+                System.out.println("Circuit breaker '" + name + "' closed: the backend answers again");
+                state = State.CLOSED;
+                probing = false;
+                recorded = 0;
+                failuresInWindow = 0;
+                next = 0;
+                stateChanged.signalAll();
+            }
+            consecutiveFailures = 0;
+            record(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A call ended without telling whether the backend works. A probe that ends this way lets
+     * the next call probe instead.
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probing) {
+                probing = false;
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure(String reason) {
+        lock.lock();
+        try {
+            lastFailure = reason;
+            if (state == State.HALF_OPEN) {
+                trip("the probe failed: " + reason);
+                return;
+            }
+            if (state == State.OPEN) {
+                // A call started before the breaker opened
+                return;
+            }
+            consecutiveFailures++;
+            record(true);
+            if (failureThreshold > 0 && consecutiveFailures >= failureThreshold) {
+                trip(consecutiveFailures + " consecutive failures, last: " + reason);
+            } else if (errorRate > 0 && recorded >= window.length && failuresInWindow >= errorRate * window.length) {
+                trip(failuresInWindow + " of the last " + window.length + " calls failed, last: " + reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void trip(String why) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probing = false;
+        System.err.println("Circuit breaker '" + name + "' opened (" + why + "); "
+                + (pause ? "pausing" : "skipping") + " calls for " + TimeUnit.MILLISECONDS.toSeconds(openMillis) + " s");
+        stateChanged.signalAll();
+    }
+
+    // Outcome of the last calls, as a ring buffer
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failuresInWindow--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failuresInWindow++;
+        }
+        next = (next + 1) % window.length;
+    }
+}
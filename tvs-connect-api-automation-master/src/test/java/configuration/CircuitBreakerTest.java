@@ -0,0 +1,134 @@
+package configuration;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The states of a circuit breaker and the options it reads.
+ */
+public class CircuitBreakerTest {
+
+    private static final String[] OPTIONS = {
+            "breaker.failures", "breaker.error.rate", "breaker.window", "breaker.open.seconds", "breaker.mode" };
+
+    @AfterMethod
+    public void clearOptions() {
+        for (String option : OPTIONS) {
+            System.clearProperty(option);
+        }
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndFailsFast() {
+        System.setProperty("breaker.failures", "3");
+        System.setProperty("breaker.error.rate", "0");
+        CircuitBreaker breaker = new CircuitBreaker("unit");
+
+        breaker.onFailure("HTTP 503");
+        breaker.onFailure("HTTP 503");
+        breaker.onSuccess();
+        breaker.onFailure("HTTP 503");
+        breaker.onFailure("HTTP 503");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED, "a success resets the count");
+
+        breaker.onFailure("HTTP 503");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertThrows(CircuitBreaker.OpenException.class, breaker::acquire);
+    }
+
+    @Test
+    public void opensWhenTheErrorRateOfTheWindowIsReached() {
+        System.setProperty("breaker.failures", "0");
+        System.setProperty("breaker.window", "4");
+        System.setProperty("breaker.error.rate", "0.5");
+        CircuitBreaker breaker = new CircuitBreaker("unit");
+
+        breaker.onSuccess();
+        breaker.onFailure("HTTP 500");
+        breaker.onSuccess();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED, "the window is not full yet");
+        breaker.onFailure("HTTP 500");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void letsOneProbeThroughOnceTheOpenPeriodIsOver() {
+        System.setProperty("breaker.failures", "1");
+        System.setProperty("breaker.open.seconds", "0");
+        CircuitBreaker breaker = new CircuitBreaker("unit");
+
+        breaker.onFailure("connection refused");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+
+        breaker.acquire();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        // One probe at a time
+        Assert.assertThrows(CircuitBreaker.OpenException.class, breaker::acquire);
+
+        breaker.onFailure("connection refused");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN, "a failed probe opens it again");
+
+        breaker.acquire();
+        breaker.onSuccess();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        breaker.acquire();
+    }
+
+    @Test
+    public void anErrorStartingAnAsyncProbeOpensTheBreakerAgain() {
+        System.setProperty("breaker.failures", "1");
+        System.setProperty("breaker.open.seconds", "0");
+        CircuitBreaker breaker = new CircuitBreaker("unit");
+        breaker.onFailure("connection refused");
+
+        Assert.assertThrows(StackOverflowError.class, () -> breaker.callAsync(() -> {
+            throw new StackOverflowError();
+        }, null));
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN, "the probe is not left hanging");
+
+        breaker.callAsync(() -> CompletableFuture.completedFuture("ok"), null).join();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void exceptionsThatAreNotTheBackendsAreNotCounted() {
+        System.setProperty("breaker.failures", "1");
+        System.setProperty("breaker.open.seconds", "0");
+        CircuitBreaker breaker = new CircuitBreaker("unit");
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> breaker.call(() -> {
+            throw new IllegalArgumentException("Unknown model for simulation: X1");
+        }, null, SimulatorDispatcher::isConnectionFailure));
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+
+        Assert.assertThrows(RuntimeException.class, () -> breaker.call(() -> {
+            throw new RuntimeException("publish failed", new MqttException(MqttException.REASON_CODE_SERVER_CONNECT_ERROR));
+        }, null, SimulatorDispatcher::isConnectionFailure));
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+
+        // The probe fails for a reason of its own: the next call probes instead
+        Assert.assertThrows(IllegalArgumentException.class, () -> breaker.call(() -> {
+            throw new IllegalArgumentException("bad cell");
+        }, null, SimulatorDispatcher::isConnectionFailure));
+        Assert.assertEquals(breaker.call(() -> "sent", null), "sent");
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void rateOptionsOutOfRangeFallBackToTheDefault() {
+        System.setProperty("breaker.error.rate", "0.25");
+        Assert.assertEquals(RunOptions.getRate("breaker.error.rate", 0.5), 0.25, 0.0);
+        System.setProperty("breaker.error.rate", "1.5");
+        Assert.assertEquals(RunOptions.getRate("breaker.error.rate", 0.5), 0.5, 0.0);
+        System.setProperty("breaker.error.rate", "-0.1");
+        Assert.assertEquals(RunOptions.getRate("breaker.error.rate", 0.5), 0.5, 0.0);
+        System.setProperty("breaker.error.rate", "half");
+        Assert.assertEquals(RunOptions.getRate("breaker.error.rate", 0.5), 0.5, 0.0);
+        System.setProperty("breaker.error.rate", "NaN");
+        Assert.assertEquals(RunOptions.getRate("breaker.error.rate", 0.5), 0.5, 0.0);
+    }
+}
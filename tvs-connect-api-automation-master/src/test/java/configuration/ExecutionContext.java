@@ -0,0 +1,212 @@
+package configuration;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.ITestResult;
+import org.testng.asserts.SoftAssert;
+
+/**
+ * State of the test invocation running on the current thread.
+ *
+ * Everything the request, validation and reporting code shares about one scenario (the row's
+ * data, the soft assertions, the report node and the actual results) lives here instead of in
+ * statics, so the data provider can hand rows to several threads at once. Listeners begins a
+ * context when TestNG starts an invocation and attaches it to the ITestResult, so the result
+ * callbacks read the same context even if they are not called on the test's thread.
+ */
+public class ExecutionContext {
+
+    /** ITestResult attribute holding the context of the invocation. */
+    public static final String RESULT_ATTRIBUTE = "executionContext";
+
+    private static final ThreadLocal<ExecutionContext> current = new ThreadLocal<>();
+
+    private SoftAssert softAssert = new SoftAssert();
+    private ExtentTest test;
+    private TestConfig config;
+    private String model;
+    private String id;
+    private String name;
+    private String request;
+    private String expected;
+    private String expectedStatusCode;
+    private String apiName;
+    private JsonNode validationObject;
+    private String actualStatusCode;
+    private String actualResponseBody;
+    private String errorDetails = "";
+    private PhaseTimer phaseTimer = new PhaseTimer();
+
+    /**
+     * Starts a fresh context on the current thread, replacing the one of the previous invocation.
+     */
+    public static ExecutionContext begin() {
+        ExecutionContext context = new ExecutionContext();
+        current.set(context);
+        return context;
+    }
+
+    /**
+     * The context of the invocation running on this thread. Code running outside a test
+     * invocation (e.g. a configuration method) gets a context of its own.
+     */
+    public static ExecutionContext current() {
+        ExecutionContext context = current.get();
+        return context != null ? context : begin();
+    }
+
+    /**
+     * The context attached to a test result, falling back to the current thread's context.
+     */
+    public static ExecutionContext of(ITestResult result) {
+        Object context = result != null ? result.getAttribute(RESULT_ATTRIBUTE) : null;
+        return context instanceof ExecutionContext ? (ExecutionContext) context : current();
+    }
+
+    /**
+     * Makes this the current thread's context and attaches it to the test result.
+     */
+    public ExecutionContext attach(ITestResult result) {
+        current.set(this);
+        if (result != null) {
+            result.setAttribute(RESULT_ATTRIBUTE, this);
+        }
+        return this;
+    }
+
+    public static void end() {
+        current.remove();
+    }
+
+    /** Soft assertions of the current invocation. */
+    public static SoftAssert softAssert() {
+        return current().getSoftAssert();
+    }
+
+    /** Report node of the current invocation. */
+    public static ExtentTest test() {
+        return current().getTest();
+    }
+
+    public SoftAssert getSoftAssert() {
+        return softAssert;
+    }
+
+    public void setSoftAssert(SoftAssert softAssert) {
+        this.softAssert = softAssert;
+    }
+
+    public ExtentTest getTest() {
+        return test;
+    }
+
+    public void setTest(ExtentTest test) {
+        this.test = test;
+    }
+
+    /** Configuration of the &lt;test&gt; block the invocation belongs to. */
+    public TestConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(TestConfig config) {
+        this.config = config;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public void setExpected(String expected) {
+        this.expected = expected;
+    }
+
+    public String getExpectedStatusCode() {
+        return expectedStatusCode;
+    }
+
+    public void setExpectedStatusCode(String expectedStatusCode) {
+        this.expectedStatusCode = expectedStatusCode;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public void setApiName(String apiName) {
+        this.apiName = apiName;
+    }
+
+    public JsonNode getValidationObject() {
+        return validationObject;
+    }
+
+    public void setValidationObject(JsonNode validationObject) {
+        this.validationObject = validationObject;
+    }
+
+    public String getActualStatusCode() {
+        return actualStatusCode;
+    }
+
+    public void setActualStatusCode(String actualStatusCode) {
+        this.actualStatusCode = actualStatusCode;
+    }
+
+    public String getActualResponseBody() {
+        return actualResponseBody;
+    }
+
+    public void setActualResponseBody(String actualResponseBody) {
+        this.actualResponseBody = actualResponseBody;
+    }
+
+    public String getErrorDetails() {
+        return errorDetails;
+    }
+
+    public void setErrorDetails(String errorDetails) {
+        this.errorDetails = errorDetails;
+    }
+
+    /** Time the invocation spent in each phase of its scenario. */
+    public PhaseTimer getPhaseTimer() {
+        return phaseTimer;
+    }
+
+    public void setPhaseTimer(PhaseTimer phaseTimer) {
+        this.phaseTimer = phaseTimer;
+    }
+}
@@ -0,0 +1,255 @@
+package configuration;
+
+import Utils.JsonSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends read-only GraphQL queries of rows running at the same time in one POST.
+ *
+ * With "batch.enabled" set, a query (not a mutation or subscription) waits up to
+ * "batch.linger.ms" (default 20) for other queries to the same endpoint with the same token, and
+ * the batch goes out as soon as it holds "batch.size" (default 10) queries. The batch is sent as
+ * a JSON array of operations, and the array of results it gets back is split into one response
+ * per query, with the batch's status and headers: each row sees the response it would have got
+ * on its own. Rows only run once the rows they depend on have finished, so the queries of a
+ * batch never depend on one another.
+ *
+ * An endpoint that answers a batch with a success or a 400 but not with an array of as many
+ * results is not batched again; the queries of that batch are sent one by one. Other answers
+ * (a 502 page from a gateway, a 503 during an outage) only send that batch's queries one by one.
+ *
+ * A query carries everything its batch needs, the URL, token and body the row passed in, so the
+ * batcher's threads never look up a row's or block's configuration.
+ *
+ * Only rows running in parallel (scenario.threads above 1, or scenario.executor = virtual) can
+ * share a batch; rows running one after another only pay the linger time.
+ *
+ * The timer thread only hands batches over: every POST, a batch or a query sent on its own, goes
+ * out on a virtual thread of its own, so a slow endpoint never holds up the linger timers of the
+ * other endpoints, and the queries of a batch that is split up are sent in parallel.
+ */
+public class GraphQLBatcher {
+
+    private static final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private static final Set<String> unbatchable = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "graphql-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService sender =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("graphql-batch-", 0).factory());
+
+    /**
+     * Sends one POST body to the endpoint.
+     */
+    interface Transport {
+        Response send(String body) throws IOException;
+    }
+
+    public static boolean isEnabled() {
+        return RunOptions.getBoolean("batch.enabled", false);
+    }
+
+    /**
+     * Whether a GraphQL body (the JSON with the query) may go in a batch: a query, to an endpoint
+     * that takes batches.
+     */
+    public static boolean isBatchable(String url, String body) {
+        if (!isEnabled() || unbatchable.contains(url)) {
+            return false;
+        }
+        String query;
+        try {
+            query = new JSONObject(body).optString("query", "").trim();
+        } catch (Exception e) {
+            return false;
+        }
+        return query.startsWith("{") || query.startsWith("query");
+    }
+
+    /**
+     * Queues a query for the next batch to its endpoint.
+     */
+    public static CompletableFuture<Response> submit(String url, String authToken, String body) {
+        return endpoints.computeIfAbsent(url + "\n" + authToken,
+                key -> new Endpoint(url, batchBody -> HttpTransport.send(url, authToken, batchBody))).add(body);
+    }
+
+    /**
+     * Queues a query and waits for its response.
+     */
+    public static Response post(String url, String authToken, String body) throws IOException {
+        try {
+            return submit(url, authToken, body).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Pending {
+        final String body;
+        final CompletableFuture<Response> response = new CompletableFuture<>();
+
+        Pending(String body) {
+            this.body = body;
+        }
+    }
+
+    /**
+     * The queue of one endpoint and token.
+     */
+    static final class Endpoint {
+        private final String url;
+        private final Transport transport;
+        private final int batchSize = Math.max(1, RunOptions.getInt("batch.size", 10));
+        private final long lingerMillis = Math.max(0, RunOptions.getInt("batch.linger.ms", 20));
+
+        private List<Pending> queue = new ArrayList<>();
+        private ScheduledFuture<?> flushTask;
+
+        Endpoint(String url, Transport transport) {
+            this.url = url;
+            this.transport = transport;
+        }
+
+        CompletableFuture<Response> add(String body) {
+            Pending pending = new Pending(body);
+            List<Pending> full = null;
+            synchronized (this) {
+                queue.add(pending);
+                if (queue.size() >= batchSize) {
+                    full = takeQueue();
+                } else if (queue.size() == 1) {
+                    flushTask = timer.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full != null) {
+                List<Pending> batch = full;
+                sender.execute(() -> send(batch));
+            }
+            return pending.response;
+        }
+
+        private void flush() {
+            List<Pending> batch;
+            synchronized (this) {
+                batch = takeQueue();
+            }
+            if (!batch.isEmpty()) {
+                sender.execute(() -> send(batch));
+            }
+        }
+
+        private List<Pending> takeQueue() {
+            List<Pending> batch = queue;
+            queue = new ArrayList<>();
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+            return batch;
+        }
+
+        private void send(List<Pending> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (batch.size() == 1 || unbatchable.contains(url)) {
+                sendOneByOne(batch);
+                return;
+            }
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < batch.size(); i++) {
+                body.append(i > 0 ? "," : "").append(batch.get(i).body);
+            }
+            body.append(']');
+            try {
+                Response response = transport.send(body.toString());
+                JsonNode results = resultsOf(response);
+                if (results == null || results.size() != batch.size()) {
+                    int status = response.getStatusCode();
+                    if (status / 100 == 2 || status == 400) {
+                        System.err.println("GraphQL endpoint " + url + " does not take batched queries (HTTP "
+                                + status + "), sending them one by one");
+                        unbatchable.add(url);
+                    } else {
+                        // A gateway error or an outage says nothing about batching: try again next time
+                        System.err.println("GraphQL endpoint " + url + " failed a batch (HTTP " + status
+                                + "), sending its queries one by one");
+                    }
+                    sendOneByOne(batch);
+                    return;
+                }
+                System.out.println("Sent " + batch.size() + " queries in one batch to " + url);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).response.complete(split(response, results.get(i)));
+                }
+            } catch (Exception e) {
+                for (Pending pending : batch) {
+                    pending.response.completeExceptionally(e);
+                }
+            }
+        }
+
+        // The array of results of a batch, or null when the body is not a JSON array
+        private static JsonNode resultsOf(Response response) {
+            try {
+                JsonNode results = JsonSupport.readTree(response.asString());
+                return results != null && results.isArray() ? results : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        // Each on its own thread: the rows of the batch wait for all of them
+        private void sendOneByOne(List<Pending> batch) {
+            for (Pending pending : batch) {
+                sender.execute(() -> {
+                    try {
+                        pending.response.complete(transport.send(pending.body));
+                    } catch (Exception e) {
+                        pending.response.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+
+        /**
+         * The response of one query of a batch: its own result with the batch's status and headers.
+         */
+        static Response split(Response batchResponse, JsonNode result) {
+            return new ResponseBuilder()
+                    .setStatusCode(batchResponse.getStatusCode())
+                    .setStatusLine(batchResponse.getStatusLine())
+                    .setHeaders(batchResponse.getHeaders())
+                    .setContentType(batchResponse.getContentType())
+                    .setBody(result.toString())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package configuration;
+
+import Utils.JsonSupport;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting the answer of a batch into the responses of its queries, and falling back to
+ * sending them on their own.
+ */
+public class GraphQLBatcherTest {
+
+    @BeforeMethod
+    public void setOptions() {
+        System.setProperty("batch.size", "3");
+        System.setProperty("batch.linger.ms", "10000");
+    }
+
+    @AfterMethod
+    public void clearOptions() {
+        System.clearProperty("batch.size");
+        System.clearProperty("batch.linger.ms");
+    }
+
+    @Test
+    public void everyQueryGetsItsOwnResult() {
+        List<String> sent = new ArrayList<>();
+        GraphQLBatcher.Endpoint endpoint = new GraphQLBatcher.Endpoint("http://batch.test/graphql", body -> {
+            sent.add(body);
+            return response(200, "[{\"data\":{\"n\":1}},{\"data\":{\"n\":2}},{\"data\":{\"n\":3}}]");
+        });
+
+        List<CompletableFuture<Response>> responses = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            responses.add(endpoint.add("{\"query\":\"{ n" + i + " }\"}"));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Response response = responses.get(i).orTimeout(5, TimeUnit.SECONDS).join();
+            Assert.assertEquals(response.getStatusCode(), 200);
+            Assert.assertEquals(response.asString(), "{\"data\":{\"n\":" + (i + 1) + "}}");
+        }
+        Assert.assertEquals(sent, List.of("[{\"query\":\"{ n1 }\"},{\"query\":\"{ n2 }\"},{\"query\":\"{ n3 }\"}]"));
+    }
+
+    @Test
+    public void queriesOfARefusedBatchAreSentInParallel() {
+        CountDownLatch allSent = new CountDownLatch(3);
+        GraphQLBatcher.Endpoint endpoint = new GraphQLBatcher.Endpoint("http://nobatch.test/graphql", body -> {
+            if (body.startsWith("[")) {
+                return response(400, "{\"errors\":[{\"message\":\"batching is not supported\"}]}");
+            }
+            allSent.countDown();
+            // Only answers once all three are in flight: one by one, the first would time out
+            boolean parallel;
+            try {
+                parallel = allSent.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return response(parallel ? 200 : 504, "{\"data\":{\"echo\":" + body + "}}");
+        });
+
+        List<CompletableFuture<Response>> responses = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            responses.add(endpoint.add("{\"query\":\"{ n" + i + " }\"}"));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Response response = responses.get(i).orTimeout(10, TimeUnit.SECONDS).join();
+            Assert.assertEquals(response.getStatusCode(), 200);
+            Assert.assertTrue(response.asString().contains("n" + (i + 1)));
+        }
+    }
+
+    @Test
+    public void aGatewayErrorDoesNotTurnBatchingOff() {
+        String url = "http://flaky.test/graphql";
+        List<Integer> batchSizes = new ArrayList<>();
+        boolean[] down = { true };
+        GraphQLBatcher.Endpoint endpoint = new GraphQLBatcher.Endpoint(url, body -> {
+            if (!body.startsWith("[")) {
+                return response(200, "{\"data\":{}}");
+            }
+            batchSizes.add(body.split("query").length - 1);
+            if (down[0]) {
+                down[0] = false;
+                return new ResponseBuilder().setStatusCode(502).setStatusLine("HTTP/1.1 502 Bad Gateway")
+                        .setContentType("text/html").setBody("<html>Bad Gateway</html>").build();
+            }
+            return response(200, "[{\"data\":{}},{\"data\":{}},{\"data\":{}}]");
+        });
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            List<CompletableFuture<Response>> responses = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                responses.add(endpoint.add("{\"query\":\"{ n" + i + " }\"}"));
+            }
+            for (CompletableFuture<Response> response : responses) {
+                Assert.assertEquals(response.orTimeout(5, TimeUnit.SECONDS).join().getStatusCode(), 200);
+            }
+        }
+        Assert.assertEquals(batchSizes, List.of(3, 3), "the second batch is still sent as a batch");
+    }
+
+    @Test
+    public void aSplitResponseKeepsTheBatchStatusAndHeaders() {
+        Response batch = new ResponseBuilder().setStatusCode(200).setStatusLine("HTTP/1.1 200 OK")
+                .setHeader("X-Request-Id", "42").setContentType("application/json").setBody("[]").build();
+
+        Response single = GraphQLBatcher.Endpoint.split(batch, JsonSupport.mapper().createObjectNode().put("id", 7));
+
+        Assert.assertEquals(single.getStatusCode(), 200);
+        Assert.assertEquals(single.getHeader("X-Request-Id"), "42");
+        Assert.assertEquals(single.asString(), "{\"id\":7}");
+    }
+
+    private static Response response(int status, String body) {
+        return new ResponseBuilder().setStatusCode(status).setStatusLine("HTTP/1.1 " + status)
+                .setContentType("application/json").setBody(body).build();
+    }
+}
@@ -0,0 +1,263 @@
+package configuration;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GraphQL requests over HTTP/2, selected with "http.transport" = http2, and every async request.
+ *
+ * All requests to a host share one java.net.http connection and run on it as concurrent
+ * streams, instead of each holding a pooled HTTP/1.1 socket. At most "http2.max.streams"
+ * (default 100) requests are in flight at once; the others wait for a stream, async ones without
+ * holding a thread. A host that does not negotiate HTTP/2 is served over HTTP/1.1 by the same
+ * client, and a host whose HTTP/2 connection fails with a protocol error is switched to HTTP/1.1
+ * for the rest of the run. Responses are handed back as RestAssured responses, so the validators
+ * read them as before. Timeouts are the ones of {@link HttpTransport}.
+ */
+public class Http2Transport {
+
+    private static HttpClient client;
+    private static int maxStreams;
+    private static Duration requestTimeout;
+
+    // Requests waiting for a stream, and the streams free for the next request; guarded by streamWaiters
+    private static final Deque<CompletableFuture<Void>> streamWaiters = new ArrayDeque<>();
+    private static int freeStreams;
+
+    private static final Map<String, HttpClient.Version> negotiated = new ConcurrentHashMap<>();
+    private static final Set<String> http1Hosts = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public static boolean isSelected() {
+        return "http2".equalsIgnoreCase(RunOptions.get("http.transport", "pooled"));
+    }
+
+    public static synchronized boolean isInUse() {
+        return client != null;
+    }
+
+    private static synchronized HttpClient client() {
+        if (client == null) {
+            maxStreams = Math.max(1, RunOptions.getInt("http2.max.streams", 100));
+            synchronized (streamWaiters) {
+                freeStreams = maxStreams;
+            }
+            requestTimeout = Duration.ofSeconds(RunOptions.getInt("http.read.timeout.seconds", 60));
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofSeconds(RunOptions.getInt("http.connect.timeout.seconds", 10)))
+                    .build();
+            System.out.println("HTTP transport: HTTP/2, up to " + maxStreams + " concurrent stream(s)");
+        }
+        return client;
+    }
+
+    /**
+     * POSTs a GraphQL body. The token is sent as a bearer token when there is one.
+     */
+    public static Response post(String url, String authToken, String body) throws IOException {
+        HttpClient httpClient = client();
+        URI uri = URI.create(url);
+        boolean http1 = http1Hosts.contains(uri.getHost());
+        try {
+            return toResponse(send(httpClient, uri, authToken, body, http1));
+        } catch (IOException e) {
+            if (http1 || !isProtocolError(e)) {
+                throw e;
+            }
+            useHttp1(uri.getHost(), e);
+            return toResponse(send(httpClient, uri, authToken, body, true));
+        }
+    }
+
+    /**
+     * {@link #post} without blocking: the future completes on the client's thread with the
+     * response, or with the IOException that failed the request.
+     */
+    public static CompletableFuture<Response> postAsync(String url, String authToken, String body) {
+        HttpClient httpClient = client();
+        URI uri = URI.create(url);
+        boolean http1 = http1Hosts.contains(uri.getHost());
+        return sendAsync(httpClient, uri, authToken, body, http1)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (http1 || !(cause instanceof IOException) || !isProtocolError((IOException) cause)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    useHttp1(uri.getHost(), cause);
+                    return sendAsync(httpClient, uri, authToken, body, true);
+                })
+                .thenApply(Http2Transport::toResponse);
+    }
+
+    private static HttpRequest request(URI uri, String authToken, String body, boolean http1) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        if (authToken != null) {
+            request.header("Authorization", "Bearer " + authToken);
+        }
+        if (http1) {
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        return request.build();
+    }
+
+    private static HttpResponse<String> send(HttpClient httpClient, URI uri, String authToken, String body,
+                                             boolean http1) throws IOException {
+        HttpRequest request = request(uri, authToken, body, http1);
+        CompletableFuture<Void> stream = acquireStream();
+        try {
+            stream.get();
+        } catch (InterruptedException e) {
+            // The stream may still be granted: hand it on when it is
+            stream.thenRun(Http2Transport::releaseStream);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an HTTP/2 stream to " + uri.getHost(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        streamStarted();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            noteVersion(uri, response);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the response of " + uri.getHost(), e);
+        } finally {
+            streamFinished();
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> sendAsync(HttpClient httpClient, URI uri, String authToken,
+                                                                     String body, boolean http1) {
+        HttpRequest request = request(uri, authToken, body, http1);
+        return acquireStream().thenCompose(granted -> {
+            streamStarted();
+            try {
+                return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                        .whenComplete((response, error) -> {
+                            streamFinished();
+                            if (response != null) {
+                                noteVersion(uri, response);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                streamFinished();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * A stream for the next request: completed right away when one is free, otherwise once a
+     * running request finishes.
+     */
+    private static CompletableFuture<Void> acquireStream() {
+        synchronized (streamWaiters) {
+            if (freeStreams > 0) {
+                freeStreams--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            streamWaiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    private static void releaseStream() {
+        CompletableFuture<Void> next;
+        synchronized (streamWaiters) {
+            next = streamWaiters.poll();
+            if (next == null) {
+                freeStreams++;
+                return;
+            }
+        }
+        // Outside the lock: the waiter's request starts on this thread
+        next.complete(null);
+    }
+
+    private static void streamStarted() {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    }
+
+    private static void streamFinished() {
+        inFlight.decrementAndGet();
+        releaseStream();
+    }
+
+    private static void noteVersion(URI uri, HttpResponse<String> response) {
+        if (negotiated.put(uri.getHost(), response.version()) != response.version()) {
+            System.out.println("Talking " + response.version() + " to " + uri.getHost());
+        }
+    }
+
+    private static void useHttp1(String host, Throwable failure) {
+        if (http1Hosts.add(host)) {
+            System.err.println("HTTP/2 to " + host + " failed (" + failure.getMessage() + "), using HTTP/1.1 from now on");
+        }
+    }
+
+    /**
+     * Failures of the HTTP/2 connection itself, which HTTP/1.1 may not have: a refused upgrade,
+     * a GOAWAY or a reset stream. Timeouts and refused connections are not.
+     */
+    private static boolean isProtocolError(IOException e) {
+        String message = String.valueOf(e.getMessage()).toLowerCase();
+        return message.contains("http/2") || message.contains("goaway") || message.contains("rst_stream")
+                || message.contains("protocol error") || message.contains("header parsing");
+    }
+
+    private static Response toResponse(HttpResponse<String> response) {
+        List<Header> headers = new ArrayList<>();
+        response.headers().map().forEach((name, values) -> {
+            for (String value : values) {
+                headers.add(new Header(name, value));
+            }
+        });
+        String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+        return new ResponseBuilder()
+                .setStatusCode(response.statusCode())
+                .setStatusLine(version + " " + response.statusCode())
+                .setHeaders(new Headers(headers))
+                .setContentType(response.headers().firstValue("content-type").orElse("application/json"))
+                .setBody(response.body())
+                .build();
+    }
+
+    /**
+     * Streams in flight with their peak, and the protocol each host talks.
+     */
+    public static synchronized String getStats() {
+        if (client == null) {
+            return "HTTP/2 client not in use";
+        }
+        return "HTTP/2 client: " + inFlight.get() + " stream(s) in flight (peak " + peakInFlight.get() + " of "
+                + maxStreams + "), " + negotiated;
+    }
+}
@@ -0,0 +1,209 @@
+package configuration;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP transport of every GraphQL call: the scenario requests, the token requests and the
+ * warm-up queries.
+ *
+ * Left to its defaults RestAssured builds a new HTTP client, and so a new connection with a new
+ * TLS handshake, for every request. Requests made with {@link #given()} instead lease keep-alive
+ * connections from one pool shared by the whole run:
+ * <ul>
+ * <li>"http.pool.max.total" (default 50) connections at most, "http.pool.max.per.route" (default
+ * 20) to the same endpoint;</li>
+ * <li>connections idle for "http.pool.idle.seconds" (default 30), or older than
+ * "http.pool.ttl.seconds" (default 300), are closed;</li>
+ * <li>"http.connect.timeout.seconds" (default 10) to connect or to wait for a free connection,
+ * "http.read.timeout.seconds" (default 60) to wait for response data.</li>
+ * </ul>
+ * Set "http.pool" to false to go back to a client per request. The pool's leased, idle and
+ * pending connections are sampled every second; {@link #getStats()} reports them with the
+ * highest counts seen, to size the pool for parallel runs.
+ *
+ * With "http.transport" = http2 the scenario requests go over {@link Http2Transport} instead. Async
+ * requests always do: RestAssured can only block.
+ */
+public class HttpTransport {
+
+    private static RestAssuredConfig config;
+    private static SharedConnectionManager connectionManager;
+    private static ScheduledExecutorService monitor;
+    private static int peakLeased;
+    private static int peakPending;
+
+    /**
+     * A request on the shared transport.
+     */
+    public static RequestSpecification given() {
+        RestAssuredConfig transportConfig = config();
+        return transportConfig != null ? RestAssured.given().config(transportConfig) : RestAssured.given();
+    }
+
+    /**
+     * POSTs a GraphQL body as JSON over the transport of the run, with the token as a bearer
+     * token when there is one. Queries go through the {@link GraphQLBatcher} when batching is on.
+     */
+    public static Response postGraphQL(String url, String authToken, String body) throws IOException {
+        if (GraphQLBatcher.isBatchable(url, body)) {
+            return GraphQLBatcher.post(url, authToken, body);
+        }
+        return send(url, authToken, body);
+    }
+
+    /**
+     * POSTs a body without batching, by its document's hash when persisted queries are on.
+     */
+    static Response send(String url, String authToken, String body) throws IOException {
+        if (PersistedQueries.appliesTo(url, body)) {
+            return PersistedQueries.send(url, body, persisted -> post(url, authToken, persisted));
+        }
+        return post(url, authToken, body);
+    }
+
+    private static Response post(String url, String authToken, String body) throws IOException {
+        if (Http2Transport.isSelected()) {
+            return Http2Transport.post(url, authToken, body);
+        }
+        RequestSpecification request = given().contentType("application/json");
+        if (authToken != null) {
+            request.header("Authorization", "Bearer " + authToken);
+        }
+        return request.body(body).post(url);
+    }
+
+    /**
+     * {@link #postGraphQL} without blocking: the java.net.http client sends the request and
+     * completes the future when the response is in, over HTTP/2 when the host speaks it.
+     */
+    public static CompletableFuture<Response> postGraphQLAsync(String url, String authToken, String body) {
+        if (GraphQLBatcher.isBatchable(url, body)) {
+            return GraphQLBatcher.submit(url, authToken, body);
+        }
+        if (PersistedQueries.appliesTo(url, body)) {
+            return PersistedQueries.sendAsync(url, body, persisted -> Http2Transport.postAsync(url, authToken, persisted));
+        }
+        return Http2Transport.postAsync(url, authToken, body);
+    }
+
+    public static boolean isEnabled() {
+        return RunOptions.getBoolean("http.pool", true);
+    }
+
+    // RestAssured's HttpClientConfig factory returns the old AbstractHttpClient, so the pool has
+    // to be the deprecated ClientConnectionManager kind rather than HttpClientBuilder's
+    @SuppressWarnings("deprecation")
+    private static synchronized RestAssuredConfig config() {
+        if (config == null && isEnabled()) {
+            int maxTotal = Math.max(1, RunOptions.getInt("http.pool.max.total", 50));
+            int maxPerRoute = Math.max(1, Math.min(maxTotal, RunOptions.getInt("http.pool.max.per.route", 20)));
+            int idleSeconds = Math.max(1, RunOptions.getInt("http.pool.idle.seconds", 30));
+            int ttlSeconds = RunOptions.getInt("http.pool.ttl.seconds", 300);
+            int connectMillis = RunOptions.getInt("http.connect.timeout.seconds", 10) * 1000;
+            int readMillis = RunOptions.getInt("http.read.timeout.seconds", 60) * 1000;
+
+            connectionManager = new SharedConnectionManager(ttlSeconds);
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+            // A client per request keeps RestAssured's per-request settings apart; the
+            // connections behind it are the pool's
+            HttpClientConfig httpClientConfig = HttpClientConfig.httpClientConfig()
+                    .httpClientFactory(() -> new DefaultHttpClient(connectionManager))
+                    .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, connectMillis)
+                    .setParam(CoreConnectionPNames.SO_TIMEOUT, readMillis)
+                    .setParam(ClientPNames.CONN_MANAGER_TIMEOUT, (long) connectMillis);
+            config = RestAssured.config().httpClient(httpClientConfig);
+
+            monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "http-pool-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            monitor.scheduleWithFixedDelay(() -> {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleSeconds, TimeUnit.SECONDS);
+                sample();
+            }, 1, 1, TimeUnit.SECONDS);
+
+            System.out.println("HTTP transport: pooled keep-alive connections, max " + maxTotal + " (" + maxPerRoute
+                    + " per endpoint), idle " + idleSeconds + " s, connect timeout " + connectMillis / 1000
+                    + " s, read timeout " + readMillis / 1000 + " s");
+        }
+        return config;
+    }
+
+    private static synchronized void sample() {
+        PoolStats stats = connectionManager.getTotalStats();
+        peakLeased = Math.max(peakLeased, stats.getLeased());
+        peakPending = Math.max(peakPending, stats.getPending());
+    }
+
+    /**
+     * Leased, idle and pending connections of the pool, with the highest leased and pending
+     * counts seen so far.
+     */
+    public static synchronized String getStats() {
+        if (connectionManager == null) {
+            return "HTTP pool not in use";
+        }
+        sample();
+        PoolStats stats = connectionManager.getTotalStats();
+        return "HTTP pool: " + stats.getLeased() + " leased (peak " + peakLeased + "), " + stats.getAvailable()
+                + " idle, " + stats.getPending() + " pending (peak " + peakPending + "), max " + stats.getMax();
+    }
+
+    /**
+     * Closes the pool's connections. Called once the suite has finished.
+     */
+    public static synchronized void shutdown() {
+        if (Http2Transport.isInUse()) {
+            System.out.println(Http2Transport.getStats());
+        }
+        if (connectionManager == null) {
+            return;
+        }
+        System.out.println(getStats());
+        monitor.shutdownNow();
+        connectionManager.close();
+        connectionManager = null;
+        config = null;
+    }
+
+    /**
+     * RestAssured shuts down the connection manager of a client it does not reuse once its
+     * request is done; the pool outlives those clients and is only closed by {@link #shutdown()}.
+     */
+    @SuppressWarnings("deprecation")
+    private static final class SharedConnectionManager extends PoolingClientConnectionManager {
+
+        SharedConnectionManager(int ttlSeconds) {
+            super(SchemeRegistryFactory.createDefault(), ttlSeconds > 0 ? ttlSeconds : -1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void shutdown() {
+            // Kept open for the next request
+        }
+
+        void close() {
+            super.shutdown();
+        }
+    }
+}
@@ -3,17 +3,22 @@ import com.aventstack.extentreports.*;
 import com.aventstack.extentreports.markuputils.ExtentColor;
 import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import org.testng.*;
+import org.testng.xml.XmlSuite;
 
+import Utils.ResultJournal;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import static ReportGenerator.CsvReportGenerator.csvGenerator;
+import static ReportGenerator.CsvReportGenerator.defaultFilename;
 
-public class Listeners extends BaseClassTest implements ITestListener
+public class Listeners extends BaseClassTest implements ITestListener, IAlterSuiteListener
 {
-    public static ExtentReports extent;
-    public static ExtentTest test;
+    public static volatile ExtentReports extent;
 
     public static ArrayList<String> TestCaseId = new ArrayList<>();
     public static ArrayList<String> Model = new ArrayList<>();
@@ -35,79 +40,136 @@ public class Listeners extends BaseClassTest implements ITestListener
     public static int failedTestCount = 0;
     public static int skippedTestCount = 0;
 
+    /** Where shards keep the Extent data ShardReportMerger merges. */
+    public static final String SHARD_FOLDER = OUTPUT_FOLDER + "shards/";
+
+    /**
+     * Number of threads the scenario rows of a test block run on (-Dscenario.threads or the
+     * suite parameter of the same name). 1, the default, runs them one after another on TestNG's
+     * thread; more run them on a pool of their own (see ScenarioExecutor).
+     */
+    public static int scenarioThreads() {
+        return Math.max(1, RunOptions.getInt("scenario.threads", 1));
+    }
+
+    /**
+     * Whether scenario rows run on virtual threads (-Dscenario.executor=virtual) instead of a
+     * platform pool; "scenario.concurrency" then caps how many run at a time.
+     */
+    public static boolean virtualScenarioThreads() {
+        return "virtual".equalsIgnoreCase(RunOptions.get("scenario.executor", "platform"));
+    }
+
+    /**
+     * Registers the run options before TestNG builds the suite, so they are known before
+     * beforeSuite.
+     */
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        for (XmlSuite suite : suites) {
+            RunOptions.init(suite.getParameters());
+            int threads = scenarioThreads();
+            if (threads > 1 && !virtualScenarioThreads()) {
+                System.out.println("Running scenario rows of suite '" + suite.getName() + "' on " + threads + " threads");
+            }
+            if ((threads > 1 || RunOptions.isHistoryOrder()) && !RunOptions.isInferredGraph()) {
+                System.out.println("scenario.graph is serial: rows of suite '" + suite.getName() + "' keep the sheet's "
+                        + "order; set scenario.graph=inferred to run independent rows by their history");
+            }
+            if (RunOptions.isAsyncRequests() && !virtualScenarioThreads()) {
+                System.out.println("http.async only frees threads with scenario.executor=virtual; rows of suite '"
+                        + suite.getName() + "' still wait for their responses on their own thread");
+            }
+        }
+    }
+
     @Override
     public void onTestStart(ITestResult result) {
-        test = extent.createTest(result.getName());
-        // Capture the package name (Model) for each test
-//        String packageName = result.getTestClass().getRealClass().getPackage().getName();
-//        Model.add(model);
-
-        // Capture the API name (class name)
-//        String className = result.getTestClass().getRealClass().getSimpleName(); // Class name (API name)
-       // APIName.add(className); // Store the class name (API name)
+        ExecutionContext context = ExecutionContext.begin().attach(result);
+        TestConfig config = TestConfig.of(result.getTestContext());
+        context.setConfig(config);
+        context.setModel(config.getModel());
+        context.setTest(extent.createTest(result.getName()));
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        test.log(Status.PASS, MarkupHelper.createLabel(name + " - Test Case Passed", ExtentColor.GREEN));
-        passedTestCount++;
-        
-        APIStatus.add("PASS");
-        TestCaseId.add(id);
-        Model.add(model);
-        APIName.add(apiName);
-        MethodList.add(name);
-        Request.add(request);
-        ExpectedHTTPcode.add(expectedStatusCode);
-        ExpectedResponse.add(expected);
-        ActualHTTPcode.add(actualStatusCode);
-        ActaulResponse.add(actualResponseBody);
-        Throwable.add("NA");
+        ExecutionContext context = ExecutionContext.of(result);
+        reportNode(result, context).log(Status.PASS, MarkupHelper.createLabel(context.getName() + " - Test Case Passed", ExtentColor.GREEN));
+        record("PASS", context, context.getRequest(), context.getActualResponseBody(), "NA");
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
+        ExecutionContext context = ExecutionContext.of(result);
+        ExtentTest test = reportNode(result, context);
         test.log(Status.FAIL, MarkupHelper.createLabel(result.getName() + " - Test Case Failed", ExtentColor.RED));
         test.fail(result.getThrowable());
-        failedTestCount++;
-//        failedAPIs.add(result.getName());
-//        MethodList.add(result.getName());
-       // APIStatus.add("FAIL");
-
-        APIStatus.add("FAIL");
-        TestCaseId.add(id);
-        Model.add(model);
-        APIName.add(apiName);
-        MethodList.add(name);
-        Request.add(request);
-        ExpectedHTTPcode.add(expectedStatusCode);
-        ExpectedResponse.add(expected);
-        ActualHTTPcode.add(actualStatusCode);
-        ActaulResponse.add(actualResponseBody);
-//        Throwable.add(errorDetails+"/n"+result.getThrowable().toString());
-        Throwable.add(errorDetails);
+        record("FAIL", context, context.getRequest(), context.getActualResponseBody(), context.getErrorDetails());
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        test.log(Status.SKIP, MarkupHelper.createLabel(result.getName() + " - Test Case Skipped", ExtentColor.YELLOW));
-        skippedTestCount++;
-//        skippedAPIs.add(result.getName());
-//        MethodList.add(result.getName());
-        APIStatus.add("SKIP");
-        Throwable.add("NA");
-        Request.add("NA");
-        ActaulResponse.add("NA");
-        TestCaseId.add(id);
-        Model.add(model);
-        APIName.add(apiName);
-        MethodList.add(name);
+        ExecutionContext context = ExecutionContext.of(result);
+        reportNode(result, context).log(Status.SKIP, MarkupHelper.createLabel(result.getName() + " - Test Case Skipped", ExtentColor.YELLOW));
+        record("SKIP", context, "NA", "NA", "NA");
+    }
 
+    /**
+     * The report node of an invocation. A result TestNG did not start (e.g. skipped because
+     * its data provider failed) gets a node of its own.
+     */
+    private static ExtentTest reportNode(ITestResult result, ExecutionContext context) {
+        if (context.getTest() == null) {
+            context.setTest(extent.createTest(result.getName()));
+        }
+        return context.getTest();
     }
 
+    /**
+     * Adds one row to the report lists. Rows finish on several threads when the data provider
+     * runs in parallel, so the lists and counters are only updated here, under one lock.
+     */
+    private static synchronized void record(String status, ExecutionContext context, String request,
+                                            String actualResponse, String failure) {
+        if ("PASS".equals(status)) {
+            passedTestCount++;
+        } else if ("FAIL".equals(status)) {
+            failedTestCount++;
+        } else {
+            skippedTestCount++;
+        }
+
+        APIStatus.add(status);
+        TestCaseId.add(context.getId());
+        Model.add(context.getModel());
+        APIName.add(context.getApiName());
+        MethodList.add(context.getName());
+        Request.add(request);
+        ActaulResponse.add(actualResponse);
+        Throwable.add(failure);
+        if (!"SKIP".equals(status)) {
+            ExpectedHTTPcode.add(context.getExpectedStatusCode());
+            ExpectedResponse.add(context.getExpected());
+            ActualHTTPcode.add(context.getActualStatusCode());
+        }
+    }
+
+    /**
+     * Sets up the Extent report when the first &lt;test&gt; block starts. Blocks running in
+     * parallel share it, so it is created only once per run.
+     */
     @Override
     public void onStart(ITestContext context) {
-        ExtentSparkReporter htmlReporter = new ExtentSparkReporter(OUTPUT_FOLDER + FILE_NAME);
+        synchronized (Listeners.class) {
+            if (extent == null) {
+                extent = createExtentReports();
+            }
+        }
+    }
+
+    private static ExtentReports createExtentReports() {
+        ExtentSparkReporter htmlReporter = new ExtentSparkReporter(OUTPUT_FOLDER + RunOptions.shardFileName(FILE_NAME));
         final File confFile = new File("./src/main/java/extentReport/extentReportConfig.xml");
 
         try {
@@ -115,8 +177,14 @@ public class Listeners extends BaseClassTest implements ITestListener
             htmlReporter.loadXMLConfig(confFile);
 
             // Initialize ExtentReports and attach the reporter
-            extent = new ExtentReports();
-            extent.attachReporter(htmlReporter);
+            ExtentReports reports = new ExtentReports();
+            reports.attachReporter(htmlReporter);
+            if (RunOptions.isSharded()) {
+                // The shard's tests are also archived as JSON, for merging into one report
+                new File(SHARD_FOLDER).mkdirs();
+                reports.attachReporter(new JsonFormatter(SHARD_FOLDER + RunOptions.shardFileName("extent.json")));
+            }
+            return reports;
 
         } catch (Exception e) {
             // Handle the exception if loading the config file or initializing ExtentReports fails
@@ -126,13 +194,89 @@ public class Listeners extends BaseClassTest implements ITestListener
 
     @Override
     public void onFinish(ITestContext context) {
-        extent.flush();
-        // Generate CSV report after all tests are executed
-        try {
-            csvGenerator(TestCaseId,Model, APIName, MethodList, Request,ExpectedHTTPcode,ExpectedResponse,ActualHTTPcode,ActaulResponse, APIStatus, Throwable, skippedAPIs);
-        } catch (Exception e) {
-            e.printStackTrace();
+        // Blocks finishing at the same time write the same report files: one at a time
+        synchronized (Listeners.class) {
+            extent.flush();
+            // Generate CSV report after all tests are executed
+            try {
+                ResultJournal journal = scenarioJournalIfOpen(TestConfig.of(context).getExcelFilePath());
+                if (journal != null) {
+                    // The journal also holds the rows an interrupted run finished before a resume
+                    journal.sync();
+                    generateReportFromJournal(journal);
+                } else {
+                    csvGenerator(RunOptions.shardFileName(defaultFilename()), TestCaseId,Model, APIName, MethodList, Request,ExpectedHTTPcode,ExpectedResponse,ActualHTTPcode,ActaulResponse, APIStatus, Throwable, skippedAPIs);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Adds the average phase timings of every API to the Extent report and writes the totals to
+     * Reports/phase-timings.json. Called once all blocks have finished.
+     */
+    public static void reportPhaseTimings() {
+        if (!PhaseTimer.hasTotals()) {
+            return;
         }
+        synchronized (Listeners.class) {
+            if (extent != null) {
+                extent.createTest("Phase timings by API").info(MarkupHelper.createTable(PhaseTimer.summaryTable()));
+                extent.flush();
+            }
+            try {
+                PhaseTimer.export(OUTPUT_FOLDER + RunOptions.shardFileName("phase-timings.json"));
+            } catch (IOException e) {
+                System.err.println("Could not write the phase timings: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Builds the Excel report from the latest journal record of every row.
+     */
+    private static void generateReportFromJournal(ResultJournal journal) throws IOException {
+        List<ResultJournal.Entry> entries = new ArrayList<>();
+        journal.forEachEntry(entries::add);
+        generateReport(entries, RunOptions.shardFileName(defaultFilename()));
+    }
+
+    /**
+     * Writes the Excel report of the given journal records.
+     */
+    static void generateReport(List<ResultJournal.Entry> entries, String filename) throws IOException {
+        ArrayList<String> ids = new ArrayList<>();
+        ArrayList<String> models = new ArrayList<>();
+        ArrayList<String> apiNames = new ArrayList<>();
+        ArrayList<String> methods = new ArrayList<>();
+        ArrayList<String> requests = new ArrayList<>();
+        ArrayList<String> expectedCodes = new ArrayList<>();
+        ArrayList<String> expectedResponses = new ArrayList<>();
+        ArrayList<String> actualCodes = new ArrayList<>();
+        ArrayList<String> actualResponses = new ArrayList<>();
+        ArrayList<String> statuses = new ArrayList<>();
+        ArrayList<String> failures = new ArrayList<>();
+
+        for (ResultJournal.Entry entry : entries) {
+            boolean skipped = ResultJournal.SKIP.equals(entry.getStatus());
+            ids.add(entry.get("id"));
+            models.add(entry.get("model"));
+            apiNames.add(entry.get("apiName"));
+            methods.add(entry.get("method"));
+            requests.add(skipped ? "NA" : entry.get("request"));
+            expectedCodes.add(entry.get("expectedStatusCode"));
+            expectedResponses.add(entry.get("expected"));
+            actualCodes.add(entry.get("actualStatusCode"));
+            actualResponses.add(skipped ? "NA" : entry.get("actualResponse"));
+            statuses.add(entry.getStatus());
+            String failure = entry.get("failure");
+            failures.add(ResultJournal.FAIL.equals(entry.getStatus()) ? failure : "NA");
+        }
+
+        csvGenerator(filename, ids, models, apiNames, methods, requests, expectedCodes, expectedResponses, actualCodes,
+                actualResponses, statuses, failures, skippedAPIs);
     }
 
 }
@@ -0,0 +1,299 @@
+package configuration;
+
+import Utils.JsonSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.restassured.response.Response;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Automatic persisted queries: requests carry the SHA-256 of their GraphQL document instead of
+ * the document, once the endpoint has it.
+ *
+ * With "apq.enabled" set, a document is sent in full with its hash (as the persistedQuery
+ * extension) the first time, which registers it with the endpoint, and by its hash alone after
+ * that. An endpoint that answers PersistedQueryNotFound (it dropped the document) gets the full
+ * document again; one that answers PersistedQueryNotSupported gets full documents for the rest of
+ * the run. The hashes each endpoint has are kept in apq-registry.json in the history directory,
+ * so the next run sends the hash alone from its first request; at most "apq.registry.max"
+ * (default 5000) hashes per endpoint, the least recently used go first.
+ *
+ * Only documents that are the same from run to run benefit: a request whose formatted document
+ * carries run-specific values (timestamps, ids of earlier rows) is a new document every time.
+ */
+public class PersistedQueries {
+
+    private static final String NOT_FOUND = "PersistedQueryNotFound";
+    private static final String NOT_SUPPORTED = "PersistedQueryNotSupported";
+
+    private static final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+    // Hashes each endpoint has, least recently used first; guarded by the class lock
+    private static Map<String, Set<String>> registry;
+    private static boolean changed;
+
+    public interface Sender {
+        Response post(String body) throws IOException;
+    }
+
+    public static boolean isEnabled() {
+        return RunOptions.getBoolean("apq.enabled", false);
+    }
+
+    /**
+     * Whether a body is a single GraphQL operation to an endpoint that takes persisted queries.
+     */
+    public static boolean appliesTo(String url, String body) {
+        return isEnabled() && !unsupported.contains(url) && body.startsWith("{");
+    }
+
+    /**
+     * Sends a GraphQL body by its document's hash when the endpoint has the document, and
+     * registers the document otherwise.
+     */
+    public static Response send(String url, String body, Sender sender) throws IOException {
+        JSONObject request = new JSONObject(body);
+        String query = request.optString("query", null);
+        if (query == null) {
+            return sender.post(body);
+        }
+        String hash = hashOf(query);
+        if (isRegistered(url, hash)) {
+            Response response = sender.post(hashOnly(request, hash));
+            String error = persistedQueryError(response);
+            if (error == null) {
+                return response;
+            }
+            if (!handleError(url, hash, error)) {
+                return sender.post(body);
+            }
+        }
+        Response response = sender.post(withHash(request, hash));
+        if (!registered(url, hash, response)) {
+            return sender.post(body);
+        }
+        return response;
+    }
+
+    /**
+     * {@link #send} without blocking.
+     */
+    public static CompletableFuture<Response> sendAsync(String url, String body,
+                                                        Function<String, CompletableFuture<Response>> sender) {
+        JSONObject request = new JSONObject(body);
+        String query = request.optString("query", null);
+        if (query == null) {
+            return sender.apply(body);
+        }
+        String hash = hashOf(query);
+        if (isRegistered(url, hash)) {
+            return sender.apply(hashOnly(request, hash)).thenCompose(response -> {
+                String error = persistedQueryError(response);
+                if (error == null) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                if (!handleError(url, hash, error)) {
+                    return sender.apply(body);
+                }
+                return register(url, hash, request, sender);
+            });
+        }
+        return register(url, hash, request, sender);
+    }
+
+    private static CompletableFuture<Response> register(String url, String hash, JSONObject request,
+                                                        Function<String, CompletableFuture<Response>> sender) {
+        return sender.apply(withHash(request, hash)).thenCompose(response -> registered(url, hash, response)
+                ? CompletableFuture.completedFuture(response) : sender.apply(request.toString()));
+    }
+
+    /**
+     * Handles an APQ error answer. Returns false when the endpoint does not take persisted
+     * queries at all, so the plain body has to be sent.
+     */
+    private static boolean handleError(String url, String hash, String error) {
+        if (NOT_SUPPORTED.equals(error)) {
+            if (unsupported.add(url)) {
+                System.err.println("GraphQL endpoint " + url + " does not support persisted queries, sending full documents");
+            }
+            return false;
+        }
+        forget(url, hash);
+        return true;
+    }
+
+    private static String hashOnly(JSONObject request, String hash) {
+        JSONObject hashOnly = copyOf(request);
+        hashOnly.remove("query");
+        hashOnly.put("extensions", extensions(request, hash));
+        return hashOnly.toString();
+    }
+
+    private static String withHash(JSONObject request, String hash) {
+        JSONObject withHash = copyOf(request);
+        withHash.put("extensions", extensions(request, hash));
+        return withHash.toString();
+    }
+
+    private static JSONObject extensions(JSONObject request, String hash) {
+        JSONObject extensions = request.has("extensions") ? copyOf(request.getJSONObject("extensions")) : new JSONObject();
+        extensions.put("persistedQuery", new JSONObject().put("version", 1).put("sha256Hash", hash));
+        return extensions;
+    }
+
+    // Key by key: going through toMap() would drop the variables set to null
+    private static JSONObject copyOf(JSONObject object) {
+        JSONObject copy = new JSONObject();
+        for (String key : object.keySet()) {
+            copy.put(key, object.get(key));
+        }
+        return copy;
+    }
+
+    /**
+     * PersistedQueryNotFound or PersistedQueryNotSupported when the endpoint answered with one of
+     * them, by message or by error code, otherwise null.
+     */
+    private static String persistedQueryError(Response response) {
+        String body = response.asString();
+        if (body == null || !(body.contains("PersistedQuery") || body.contains("PERSISTED_QUERY"))) {
+            return null;
+        }
+        try {
+            for (JsonNode error : JsonSupport.readTree(body).path("errors")) {
+                String message = error.path("message").asText();
+                String code = error.path("extensions").path("code").asText();
+                if (NOT_FOUND.equals(message) || "PERSISTED_QUERY_NOT_FOUND".equals(code)) {
+                    return NOT_FOUND;
+                }
+                if (NOT_SUPPORTED.equals(message) || "PERSISTED_QUERY_NOT_SUPPORTED".equals(code)) {
+                    return NOT_SUPPORTED;
+                }
+            }
+        } catch (IOException e) {
+            // Not JSON: not an APQ answer
+        }
+        return null;
+    }
+
+    /**
+     * Records that the endpoint has a document it was sent in full. Returns false when it does
+     * not take persisted queries, so the plain body has to be sent.
+     */
+    private static boolean registered(String url, String hash, Response response) {
+        String error = persistedQueryError(response);
+        if (error != null) {
+            return handleError(url, hash, error);
+        }
+        if (response.getStatusCode() < 400) {
+            remember(url, hash);
+        }
+        return true;
+    }
+
+    // Not memoized: documents that carry run-specific values would pile up for the whole run
+    static String hashOf(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static synchronized boolean isRegistered(String url, String hash) {
+        Set<String> endpointHashes = registry().get(url);
+        if (endpointHashes == null || !endpointHashes.remove(hash)) {
+            return false;
+        }
+        // Most recently used last
+        endpointHashes.add(hash);
+        return true;
+    }
+
+    private static synchronized void remember(String url, String hash) {
+        Set<String> endpointHashes = registry().computeIfAbsent(url, k -> new LinkedHashSet<>());
+        endpointHashes.remove(hash);
+        endpointHashes.add(hash);
+        int max = Math.max(1, RunOptions.getInt("apq.registry.max", 5000));
+        Iterator<String> oldest = endpointHashes.iterator();
+        while (endpointHashes.size() > max) {
+            oldest.next();
+            oldest.remove();
+        }
+        changed = true;
+    }
+
+    private static synchronized void forget(String url, String hash) {
+        Set<String> endpointHashes = registry().get(url);
+        if (endpointHashes != null && endpointHashes.remove(hash)) {
+            changed = true;
+        }
+    }
+
+    private static Path registryFile() {
+        return Paths.get(RunOptions.getHistoryDir(), "apq-registry.json");
+    }
+
+    private static Map<String, Set<String>> registry() {
+        if (registry == null) {
+            registry = new HashMap<>();
+            Path file = registryFile();
+            if (Files.exists(file)) {
+                try {
+                    JsonNode root = JsonSupport.readTree(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                    root.fields().forEachRemaining(endpoint -> {
+                        Set<String> endpointHashes = new LinkedHashSet<>();
+                        endpoint.getValue().forEach(hash -> endpointHashes.add(hash.asText()));
+                        registry.put(endpoint.getKey(), endpointHashes);
+                    });
+                } catch (IOException e) {
+                    System.err.println("Ignoring unreadable persisted query registry " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Writes the registry if it changed during the run. Called once the suite has finished.
+     */
+    public static synchronized void save() {
+        if (!changed) {
+            return;
+        }
+        ObjectNode root = JsonSupport.mapper().createObjectNode();
+        for (Map.Entry<String, Set<String>> endpoint : registry.entrySet()) {
+            ArrayNode endpointHashes = root.putArray(endpoint.getKey());
+            endpoint.getValue().forEach(endpointHashes::add);
+        }
+        Path file = registryFile();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, JsonSupport.mapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } catch (IOException e) {
+            System.err.println("Could not save the persisted query registry " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sending documents by their hash to a stand-in GraphQL endpoint.
+ */
+public class PersistedQueriesTest {
+
+    private static final String BODY = "{\"query\":\"query Profile($id: ID) { profile(id: $id) { name } }\","
+            + "\"variables\":{\"id\":null}}";
+
+    private HttpServer server;
+    private Path historyDir;
+    // What the endpoint got, in order: full (registered), hash, plain, refused or missing
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        historyDir = Files.createTempDirectory("apq-test");
+        System.setProperty("history.dir", historyDir.toString());
+        System.setProperty("apq.enabled", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/graphql", exchange -> answer(exchange, true));
+        server.createContext("/legacy", exchange -> answer(exchange, false));
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() throws IOException {
+        server.stop(0);
+        System.clearProperty("history.dir");
+        System.clearProperty("apq.enabled");
+        Files.deleteIfExists(historyDir.resolve("apq-registry.json"));
+        Files.delete(historyDir);
+    }
+
+    @Test
+    public void registersSendsByHashAndRegistersAgainWhenTheEndpointForgot() throws IOException {
+        String url = url("/graphql");
+
+        Assert.assertEquals(send(url), "full");
+        Assert.assertEquals(send(url), "hash");
+        Assert.assertFalse(bodies.get(1).contains("\"query\""), "the document is not sent again");
+        Assert.assertTrue(bodies.get(1).contains("\"id\":null"), "variables set to null are kept");
+
+        known.clear();
+        Assert.assertEquals(send(url), "full");
+        Assert.assertEquals(send(url), "hash");
+        Assert.assertEquals(received, List.of("full", "hash", "missing", "full", "hash"));
+    }
+
+    @Test
+    public void sendsFullDocumentsToAnEndpointWithoutPersistedQueries() throws IOException {
+        String url = url("/legacy");
+
+        Assert.assertEquals(send(url), "plain");
+        Assert.assertEquals(received, List.of("refused", "plain"));
+        Assert.assertFalse(PersistedQueries.appliesTo(url, BODY), "the endpoint is not asked again");
+    }
+
+    private String send(String url) throws IOException {
+        Response response = PersistedQueries.send(url, BODY, body -> RestAssured.given()
+                .contentType("application/json").body(body).post(url));
+        return response.jsonPath().getString("data.sent");
+    }
+
+    private String url(String path) {
+        received.clear();
+        bodies.clear();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Answers like an APQ endpoint, or like one that does not take persisted queries.
+     */
+    private void answer(HttpExchange exchange, boolean persistedQueries) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        bodies.add(body);
+        JSONObject request = new JSONObject(body);
+        JSONObject persisted = request.has("extensions")
+                ? request.getJSONObject("extensions").optJSONObject("persistedQuery") : null;
+        String answer;
+        if (persisted == null) {
+            answer = sent("plain");
+        } else if (!persistedQueries) {
+            answer = error("refused", "PersistedQueryNotSupported");
+        } else if (request.has("query")) {
+            Assert.assertEquals(persisted.getString("sha256Hash"), PersistedQueries.hashOf(request.getString("query")));
+            known.add(persisted.getString("sha256Hash"));
+            answer = sent("full");
+        } else if (known.contains(persisted.getString("sha256Hash"))) {
+            answer = sent("hash");
+        } else {
+            answer = error("missing", "PersistedQueryNotFound");
+        }
+        byte[] bytes = answer.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String sent(String kind) {
+        received.add(kind);
+        return "{\"data\":{\"sent\":\"" + kind + "\"}}";
+    }
+
+    private String error(String kind, String message) {
+        received.add(kind);
+        return "{\"errors\":[{\"message\":\"" + message + "\"}]}";
+    }
+}
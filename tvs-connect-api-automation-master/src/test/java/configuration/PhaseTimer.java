@@ -0,0 +1,224 @@
+package configuration;
+
+import Utils.JsonSupport;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time a scenario spends in each of its phases, in nanoseconds.
+ *
+ * Every invocation has its own timer on its ExecutionContext; TestCaseExecuter adds the time of
+ * each phase as it runs, logs the row's timings to its report node and the result journal, and
+ * adds them to the totals of the row's API. At the end of the suite the totals go to the Extent
+ * report and to Reports/phase-timings.json.
+ */
+public class PhaseTimer {
+
+    public enum Phase {
+        EXCEL_READ("excelRead", "Excel read"),
+        JSON_VALIDATION("jsonValidation", "JSON column validation"),
+        REQUEST_FORMATTING("requestFormatting", "Request formatting"),
+        SIMULATION("simulation", "Simulation"),
+        HTTP("http", "HTTP round-trip"),
+        RESPONSE_PARSING("responseParsing", "Response parsing"),
+        STATUS_VALIDATION("statusValidation", "Status validation"),
+        RESPONSE_VALIDATION("responseValidation", "Response validation"),
+        LIVE_LOCATION_VALIDATION("liveLocationValidation", "Live location validation"),
+        REPORT_LOGGING("reportLogging", "Report logging");
+
+        private final String key;
+        private final String label;
+
+        Phase(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        /** Name of the phase in the machine-readable outputs. */
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    // Totals per API name
+    private static final Map<String, Totals> totalsByApi = new ConcurrentHashMap<>();
+
+    private final long[] nanos = new long[PHASES.length];
+
+    /**
+     * Adds time spent in a phase.
+     */
+    public void add(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+    }
+
+    /**
+     * Adds the time since {@code startNanos} (a System.nanoTime() value) to a phase.
+     */
+    public void since(Phase phase, long startNanos) {
+        add(phase, System.nanoTime() - startNanos);
+    }
+
+    public long get(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long phaseNanos : nanos) {
+            total += phaseNanos;
+        }
+        return total;
+    }
+
+    /**
+     * The phases that took time, in milliseconds, as JSON.
+     */
+    public String toJson() {
+        ObjectNode node = JsonSupport.mapper().createObjectNode();
+        for (Phase phase : PHASES) {
+            if (get(phase) > 0) {
+                node.put(phase.getKey(), millis(get(phase)));
+            }
+        }
+        return node.toString();
+    }
+
+    /**
+     * The phases that took time as a table for the report, with a total row.
+     */
+    public String[][] toTable() {
+        int rows = 1;
+        for (Phase phase : PHASES) {
+            if (get(phase) > 0) {
+                rows++;
+            }
+        }
+        String[][] table = new String[rows + 1][];
+        table[0] = new String[] { "Phase", "ms" };
+        int row = 1;
+        for (Phase phase : PHASES) {
+            if (get(phase) > 0) {
+                table[row++] = new String[] { phase.getLabel(), format(get(phase)) };
+            }
+        }
+        table[row] = new String[] { "Total", format(getTotal()) };
+        return table;
+    }
+
+    /**
+     * Adds a finished row's timings to the totals of its API.
+     */
+    public static void aggregate(String apiName, PhaseTimer timer) {
+        String api = apiName != null && !apiName.trim().isEmpty() ? apiName.trim() : "unknown";
+        totalsByApi.computeIfAbsent(api, k -> new Totals()).add(timer);
+    }
+
+    /**
+     * Average time of every phase, by API, for the report: over the rows that spent time in the
+     * phase, as in the JSON export, so a phase only some rows have (a simulation, a live location
+     * check) is not averaged down by the rows that skipped it. "-" when no row had the phase.
+     */
+    public static String[][] summaryTable() {
+        Map<String, Totals> sorted = new TreeMap<>(totalsByApi);
+        String[][] table = new String[sorted.size() + 1][];
+        String[] header = new String[PHASES.length + 2];
+        header[0] = "API (avg ms)";
+        header[1] = "Rows";
+        for (Phase phase : PHASES) {
+            header[phase.ordinal() + 2] = phase.getLabel();
+        }
+        table[0] = header;
+        int row = 1;
+        for (Map.Entry<String, Totals> api : sorted.entrySet()) {
+            Totals totals = api.getValue();
+            String[] line = new String[PHASES.length + 2];
+            synchronized (totals) {
+                line[0] = api.getKey();
+                line[1] = String.valueOf(totals.rows);
+                for (Phase phase : PHASES) {
+                    int i = phase.ordinal();
+                    line[i + 2] = totals.count[i] > 0 ? format(totals.sum[i] / totals.count[i]) : "-";
+                }
+            }
+            table[row++] = line;
+        }
+        return table;
+    }
+
+    public static boolean hasTotals() {
+        return !totalsByApi.isEmpty();
+    }
+
+    /**
+     * Writes the totals by API to a JSON file: for every phase the number of rows that spent time
+     * in it, the total, average and longest time in milliseconds.
+     */
+    public static void export(String fileName) throws IOException {
+        ObjectNode root = JsonSupport.mapper().createObjectNode();
+        ObjectNode apis = root.putObject("apis");
+        for (Map.Entry<String, Totals> api : new TreeMap<>(totalsByApi).entrySet()) {
+            Totals totals = api.getValue();
+            synchronized (totals) {
+                ObjectNode apiNode = apis.putObject(api.getKey());
+                apiNode.put("rows", totals.rows);
+                ObjectNode phases = apiNode.putObject("phases");
+                for (Phase phase : PHASES) {
+                    int i = phase.ordinal();
+                    if (totals.count[i] == 0) {
+                        continue;
+                    }
+                    ObjectNode phaseNode = phases.putObject(phase.getKey());
+                    phaseNode.put("count", totals.count[i]);
+                    phaseNode.put("totalMs", millis(totals.sum[i]));
+                    phaseNode.put("avgMs", millis(totals.sum[i] / totals.count[i]));
+                    phaseNode.put("maxMs", millis(totals.max[i]));
+                }
+            }
+        }
+        Path path = Paths.get(fileName);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.write(path, JsonSupport.mapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+        System.out.println("Phase timings written to " + path);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static String format(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static final class Totals {
+        int rows;
+        final long[] count = new long[PHASES.length];
+        final long[] sum = new long[PHASES.length];
+        final long[] max = new long[PHASES.length];
+
+        synchronized void add(PhaseTimer timer) {
+            rows++;
+            for (int i = 0; i < PHASES.length; i++) {
+                long phaseNanos = timer.nanos[i];
+                if (phaseNanos > 0) {
+                    count[i]++;
+                    sum[i] += phaseNanos;
+                    max[i] = Math.max(max[i], phaseNanos);
+                }
+            }
+        }
+    }
+}
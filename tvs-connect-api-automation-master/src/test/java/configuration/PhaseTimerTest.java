@@ -0,0 +1,52 @@
+package configuration;
+
+import Utils.JsonSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Averaging the phase timings of the rows of an API.
+ */
+public class PhaseTimerTest {
+
+    @Test
+    public void bothReportsAverageAPhaseOverTheRowsThatHadIt() throws IOException {
+        String api = "phaseTimerTestApi";
+        PhaseTimer simulated = new PhaseTimer();
+        simulated.add(PhaseTimer.Phase.SIMULATION, 30_000_000);
+        simulated.add(PhaseTimer.Phase.HTTP, 10_000_000);
+        PhaseTimer plain = new PhaseTimer();
+        plain.add(PhaseTimer.Phase.HTTP, 20_000_000);
+        PhaseTimer.aggregate(api, simulated);
+        PhaseTimer.aggregate(api, plain);
+
+        String[] line = null;
+        for (String[] row : PhaseTimer.summaryTable()) {
+            if (api.equals(row[0])) {
+                line = row;
+            }
+        }
+        Assert.assertNotNull(line);
+        Assert.assertEquals(line[1], "2");
+        Assert.assertEquals(line[PhaseTimer.Phase.SIMULATION.ordinal() + 2], String.format("%.2f", 30.0));
+        Assert.assertEquals(line[PhaseTimer.Phase.HTTP.ordinal() + 2], String.format("%.2f", 15.0));
+        Assert.assertEquals(line[PhaseTimer.Phase.LIVE_LOCATION_VALIDATION.ordinal() + 2], "-");
+
+        Path file = Files.createTempFile("phase-timings", ".json");
+        try {
+            PhaseTimer.export(file.toString());
+            JsonNode phases = JsonSupport.readTree(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+                    .path("apis").path(api).path("phases");
+            Assert.assertEquals(phases.path("simulation").path("avgMs").doubleValue(), 30.0, 0.0);
+            Assert.assertEquals(phases.path("http").path("avgMs").doubleValue(), 15.0, 0.0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
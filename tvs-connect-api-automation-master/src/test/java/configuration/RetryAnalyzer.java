@@ -10,6 +10,10 @@ public class RetryAnalyzer implements IRetryAnalyzer
 
     @Override
     public boolean retry(ITestResult result) {
+        if (result.getThrowable() instanceof CircuitBreaker.OpenException) {
+            // The backend is down: retrying only adds the delays
+            return false;
+        }
         if (retryCount < maxRetryCount) {
             try {
                 System.out.println("Retrying test: " + result.getName() + " | Attempt: " + (retryCount + 1) +
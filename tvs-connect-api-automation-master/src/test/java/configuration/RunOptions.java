@@ -0,0 +1,165 @@
+package configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Run-level switches of the suite.
+ *
+ * Each option is looked up as a system property first (-Dresume=true), then as a suite
+ * parameter in the TestNG xml (&lt;parameter name="resume" value="true"/&gt;), and falls
+ * back to its default.
+ */
+public class RunOptions {
+
+    private static volatile Map<String, String> suiteParameters = Collections.emptyMap();
+
+    /**
+     * Registers the parameters of the running suite. Called once from BaseClassTest.beforeSuite.
+     */
+    public static void init(Map<String, String> parameters) {
+        suiteParameters = parameters != null ? new HashMap<>(parameters) : Collections.emptyMap();
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            value = suiteParameters.get(key);
+        }
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)));
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value '" + value + "' for run option " + key);
+            return defaultValue;
+        }
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value '" + value + "' for run option " + key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A fraction between 0 and 1 (an error rate, a sample rate); the default when the value is
+     * not a number or out of range.
+     */
+    public static double getRate(String key, double defaultValue) {
+        double value = getDouble(key, defaultValue);
+        if (!(value >= 0 && value <= 1)) {
+            System.err.println("Ignoring run option " + key + " = " + value + ", it must be between 0 and 1");
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Continue an interrupted run from its result journal, skipping rows that already finished.
+     */
+    public static boolean isResume() {
+        return getBoolean("resume", false);
+    }
+
+    /**
+     * Where the test plan rows come from: a workbook, a .csv/.jsonl file, or a directory
+     * with one such file per sheet. Defaults to the environment's test data workbook.
+     */
+    public static String getPlanSource(String defaultWorkbook) {
+        return get("plan.source", defaultWorkbook);
+    }
+
+    /**
+     * Directory of the result journals.
+     */
+    public static String getJournalDir() {
+        return get("journal.dir", "./Reports/journal");
+    }
+
+    /**
+     * Send the scenario requests without blocking the row's thread during the round trip (see
+     * TestCaseExecuter.RequestMethodAsync). The row still waits for the response to validate it,
+     * so this only frees a thread when rows run on virtual threads ("scenario.executor" =
+     * virtual): a waiting virtual thread gives its carrier back, a waiting platform thread is just
+     * as blocked as with a plain request.
+     */
+    public static boolean isAsyncRequests() {
+        return getBoolean("http.async", false);
+    }
+
+    /**
+     * Directory of the run history (row durations and outcomes of earlier runs).
+     */
+    public static String getHistoryDir() {
+        return get("history.dir", "./Reports/history");
+    }
+
+    /**
+     * Order the rows by their history even when they run one after another: flaky rows first,
+     * the rest longest first, keeping rows after the rows they depend on. Rows running on several
+     * threads are always ordered this way. Only rows the graph leaves independent can move, so
+     * this needs "scenario.graph" = inferred: on the default serial graph every row depends on
+     * the row before it and the order stays the sheet's.
+     */
+    public static boolean isHistoryOrder() {
+        return getBoolean("history.order", false);
+    }
+
+    /**
+     * Whether rows are independent unless their keys link them ("scenario.graph" = inferred)
+     * rather than each depending on the row before it (serial, the default). See ScenarioGraph.
+     */
+    public static boolean isInferredGraph() {
+        return "inferred".equalsIgnoreCase(get("scenario.graph", "serial"));
+    }
+
+    /**
+     * Number of shards the plan is split into (-Dshard.count or the suite parameter of the
+     * same name). 1, the default, runs every row in this JVM.
+     */
+    public static int getShardCount() {
+        return Math.max(1, getInt("shard.count", 1));
+    }
+
+    /**
+     * Which shard this JVM runs, from 0 to shard.count - 1.
+     */
+    public static int getShardIndex() {
+        int index = getInt("shard.index", 0);
+        if (index < 0 || index >= getShardCount()) {
+            throw new IllegalArgumentException("shard.index must be between 0 and " + (getShardCount() - 1) + ", was " + index);
+        }
+        return index;
+    }
+
+    public static boolean isSharded() {
+        return getShardCount() > 1;
+    }
+
+    /**
+     * Adds the shard to a file name ("Report.xlsx" becomes "Report.shard-1-of-4.xlsx"), so the
+     * shards of a run can write to the same directory. Unchanged when the run is not sharded.
+     */
+    public static String shardFileName(String fileName) {
+        if (!isSharded()) {
+            return fileName;
+        }
+        String shard = ".shard-" + getShardIndex() + "-of-" + getShardCount();
+        int dot = fileName.lastIndexOf('.');
+        int slash = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+        return dot > slash ? fileName.substring(0, dot) + shard + fileName.substring(dot) : fileName + shard;
+    }
+}
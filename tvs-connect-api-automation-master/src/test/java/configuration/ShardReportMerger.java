@@ -0,0 +1,140 @@
+package configuration;
+
+import Utils.ResultJournal;
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static ReportGenerator.CsvReportGenerator.defaultFilename;
+
+/**
+ * Combines the results of a sharded run into one Excel and one Extent report.
+ *
+ * Each shard (-Dshard.index=i -Dshard.count=n) writes its own scenario journal and Extent JSON
+ * archive. Once every shard has finished and their Reports directories are gathered in one
+ * place, run this class from the project directory:
+ * <pre>
+ * mvn exec:java@MergeShardReports [-Djournal.dir=./Reports/journal] [-Dreport.name=TestExecutionReport(UAT).html]
+ * </pre>
+ * The Excel report lists every row once, block by block in sheet order; the Extent report
+ * holds the tests of all shards.
+ */
+public class ShardReportMerger {
+
+    private static final Pattern SHARD_JOURNAL = Pattern.compile(
+            Pattern.quote(BaseClassTest.SCENARIO_JOURNAL_PREFIX) + "(.+)\\.shard-(\\d+)-of-(\\d+)\\.journal");
+    private static final Pattern SHARD_ARCHIVE = Pattern.compile("extent\\.shard-(\\d+)-of-(\\d+)\\.json");
+
+    public static void main(String[] args) throws IOException {
+        mergeJournals(RunOptions.getJournalDir());
+        mergeExtentArchives(Listeners.SHARD_FOLDER,
+                BaseClassTest.OUTPUT_FOLDER + RunOptions.get("report.name", BaseClassTest.FILE_NAME));
+    }
+
+    /**
+     * Writes one Excel report from the scenario journals of all shards in the directory.
+     */
+    public static void mergeJournals(String journalDir) throws IOException {
+        // Shard journals by workbook, in shard order
+        Map<String, TreeMap<Integer, File>> shardsByWorkbook = new LinkedHashMap<>();
+        Map<String, Integer> shardCounts = new LinkedHashMap<>();
+        for (File file : listFiles(journalDir)) {
+            Matcher matcher = SHARD_JOURNAL.matcher(file.getName());
+            if (matcher.matches()) {
+                shardsByWorkbook.computeIfAbsent(matcher.group(1), k -> new TreeMap<>())
+                        .put(Integer.parseInt(matcher.group(2)), file);
+                shardCounts.put(matcher.group(1), Integer.parseInt(matcher.group(3)));
+            }
+        }
+        if (shardsByWorkbook.isEmpty()) {
+            System.err.println("No shard journals found in " + journalDir);
+            return;
+        }
+
+        // Rows of each <test> block, collected from every shard
+        Map<String, List<ResultJournal.Entry>> rowsByBlock = new LinkedHashMap<>();
+        for (Map.Entry<String, TreeMap<Integer, File>> workbook : shardsByWorkbook.entrySet()) {
+            int expected = shardCounts.get(workbook.getKey());
+            if (workbook.getValue().size() != expected) {
+                System.err.println("Workbook '" + workbook.getKey() + "': found the journals of shards "
+                        + workbook.getValue().keySet() + " of " + expected + "; the report misses the others");
+            }
+            for (File file : workbook.getValue().values()) {
+                ResultJournal journal = ResultJournal.open(journalDir, file.getName().replaceFirst("\\.journal$", ""), true);
+                try {
+                    journal.forEachEntry(entry -> rowsByBlock
+                            .computeIfAbsent(blockOf(entry.getKey()), k -> new ArrayList<>()).add(entry));
+                } finally {
+                    journal.close();
+                }
+            }
+        }
+
+        List<ResultJournal.Entry> entries = new ArrayList<>();
+        for (List<ResultJournal.Entry> rows : rowsByBlock.values()) {
+            rows.sort(Comparator.comparingInt(ShardReportMerger::rowOf));
+            entries.addAll(rows);
+        }
+        Listeners.generateReport(entries, defaultFilename());
+        System.out.println("Merged " + entries.size() + " result(s) of " + shardsByWorkbook.size() + " workbook(s)");
+    }
+
+    /**
+     * Writes one Extent report from the JSON archives of all shards in the directory.
+     */
+    public static void mergeExtentArchives(String archiveDir, String reportPath) throws IOException {
+        ExtentReports merged = new ExtentReports();
+        int archives = 0;
+        for (File file : listFiles(archiveDir)) {
+            if (SHARD_ARCHIVE.matcher(file.getName()).matches()) {
+                merged.createDomainFromJsonArchive(file.getPath());
+                archives++;
+            }
+        }
+        if (archives == 0) {
+            System.err.println("No shard Extent archives found in " + archiveDir);
+            return;
+        }
+
+        ExtentSparkReporter htmlReporter = new ExtentSparkReporter(reportPath);
+        htmlReporter.loadXMLConfig(new File("./src/main/java/extentReport/extentReportConfig.xml"));
+        merged.attachReporter(htmlReporter);
+        merged.flush();
+        System.out.println("Merged " + archives + " shard Extent report(s) into " + reportPath);
+    }
+
+    private static List<File> listFiles(String directory) {
+        File[] files = new File(directory).listFiles(File::isFile);
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        List<File> sorted = new ArrayList<>(Arrays.asList(files));
+        sorted.sort(Comparator.comparing(File::getName));
+        return sorted;
+    }
+
+    // Journal keys are "<test>/<sheet>!<row>"
+    private static String blockOf(String key) {
+        int bang = key.lastIndexOf('!');
+        return bang >= 0 ? key.substring(0, bang) : key;
+    }
+
+    private static int rowOf(ResultJournal.Entry entry) {
+        try {
+            return Integer.parseInt(entry.get("row"));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
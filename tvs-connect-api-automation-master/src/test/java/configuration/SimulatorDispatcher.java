@@ -1,8 +1,29 @@
 package configuration;
 
+import org.eclipse.paho.client.mqttv3.MqttException;
 import simulation.*;
 
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
 public class SimulatorDispatcher {
+
+    /**
+     * Whether a simulation failed because the broker could not be reached or refused the
+     * device (an MQTT or network error anywhere in the cause chain), as opposed to a problem of
+     * the row or its model, which says nothing about the simulator backend.
+     */
+    public static boolean isConnectionFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MqttException || cause instanceof SocketException
+                    || cause instanceof SocketTimeoutException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static void simulate(String model, String executingInstance, int row, int column) throws Exception {
         simulate(model, executingInstance, row, column, -1); // default seqNo as -1 (or any invalid value)
     }
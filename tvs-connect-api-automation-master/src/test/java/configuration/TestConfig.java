@@ -0,0 +1,177 @@
+package configuration;
+
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuration of one &lt;test&gt; block: its model, environment, vehicle and tokens.
+ *
+ * BaseClassTest fills it in beforeTest and beforeClass and stores it on the block's
+ * ITestContext, so &lt;test&gt; blocks of the suite can run side by side (parallel="tests")
+ * with their own model, VIN and tokens. The values rows hand on to later rows are kept per
+ * block as well. Code that has no test context at hand finds the configuration of the block it
+ * runs for through {@link #current()}.
+ */
+public class TestConfig {
+
+    /** ITestContext attribute holding the configuration of the block. */
+    public static final String CONTEXT_ATTRIBUTE = "testConfig";
+
+    private static final Map<String, TestConfig> byTestName = new ConcurrentHashMap<>();
+
+    private final String testName;
+    private final Map<String, Object> dynamicValues = new ConcurrentHashMap<>();
+    private final Map<String, Object> dynamicContext = new ConcurrentHashMap<>();
+    private volatile String model;
+    private volatile String executingInstance;
+    private volatile String excelFilePath;
+    private volatile String serviceAuthToken;
+    private volatile String baseUrl;
+    private volatile String vin;
+    private volatile String userId;
+    private volatile String deviceId;
+    private volatile String authToken;
+
+    private TestConfig(String testName) {
+        this.testName = testName;
+    }
+
+    /**
+     * The configuration of a &lt;test&gt; block, created on first use.
+     */
+    public static TestConfig of(ITestContext context) {
+        synchronized (context) {
+            Object config = context.getAttribute(CONTEXT_ATTRIBUTE);
+            if (config instanceof TestConfig) {
+                return (TestConfig) config;
+            }
+            TestConfig created = new TestConfig(context.getName());
+            context.setAttribute(CONTEXT_ATTRIBUTE, created);
+            byTestName.put(context.getName(), created);
+            return created;
+        }
+    }
+
+    /**
+     * A configuration that belongs to no &lt;test&gt; block, for code that runs outside the
+     * blocks (e.g. the warm-up). It is not registered and never returned by {@link #current()}
+     * unless set on an ExecutionContext.
+     */
+    public static TestConfig detached(String name) {
+        return new TestConfig(name);
+    }
+
+    /**
+     * The configuration of the block the current thread works for: the one of the running
+     * row's ExecutionContext, else the one of the test TestNG is running on this thread.
+     * With a single block in the suite that block's configuration is used everywhere.
+     * Not for threads shared by rows of several blocks (the HTTP client's, the batcher's): take
+     * the configuration on the row's thread and hand it to the work those threads do.
+     */
+    public static TestConfig current() {
+        TestConfig config = ExecutionContext.current().getConfig();
+        if (config != null) {
+            return config;
+        }
+        ITestResult result = Reporter.getCurrentTestResult();
+        if (result != null && result.getTestContext() != null) {
+            return of(result.getTestContext());
+        }
+        if (byTestName.size() == 1) {
+            return byTestName.values().iterator().next();
+        }
+        throw new IllegalStateException("No <test> configuration known on thread " + Thread.currentThread().getName());
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    /** Values extracted from responses for later rows of this block (DynamicValuesFormatter). */
+    public Map<String, Object> getDynamicValues() {
+        return dynamicValues;
+    }
+
+    /** Backing map of DynamicContext for the rows of this block. */
+    public Map<String, Object> getDynamicContext() {
+        return dynamicContext;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    /** Name of the environment's URL property (DEV_URL, UAT_URL, ...). */
+    public String getExecutingInstance() {
+        return executingInstance;
+    }
+
+    public void setExecutingInstance(String executingInstance) {
+        this.executingInstance = executingInstance;
+    }
+
+    public String getExcelFilePath() {
+        return excelFilePath;
+    }
+
+    public void setExcelFilePath(String excelFilePath) {
+        this.excelFilePath = excelFilePath;
+    }
+
+    public String getServiceAuthToken() {
+        return serviceAuthToken;
+    }
+
+    public void setServiceAuthToken(String serviceAuthToken) {
+        this.serviceAuthToken = serviceAuthToken;
+    }
+
+    /** GraphQL endpoint of the environment. */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String getVin() {
+        return vin;
+    }
+
+    public void setVin(String vin) {
+        this.vin = vin;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+}
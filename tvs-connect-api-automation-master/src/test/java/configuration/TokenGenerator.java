@@ -1,6 +1,5 @@
 package configuration;
 
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import org.json.JSONObject;
 
@@ -14,7 +13,7 @@ public class TokenGenerator {
 
 		System.out.println("graphqlBody: "+graphqlBody);
 		// Make the API request
-		Response response = RestAssured.given()
+		Response response = HttpTransport.given()
 				.header("Content-Type", "application/json")
 				.body(graphqlBody)
 				.post(baseUrl);
@@ -22,7 +21,7 @@ public class TokenGenerator {
 		return serviveAuthToken;
 	}
 	// Helper method to make a GraphQL request and extract the token
-	private static String makeGraphQLRequest(String baseUrl, String Body, String jsonPath) {
+	private static String makeGraphQLRequest(String baseUrl, String serviceAuthToken, String Body, String jsonPath) {
 		// Construct the GraphQL body
 		JSONObject json = new JSONObject();
 		String graphqlBody = json.put("query", Body).toString();
@@ -30,8 +29,8 @@ public class TokenGenerator {
 		System.out.println("URL ="+baseUrl);
 		System.out.println("graphqlBody: "+graphqlBody);
 		// Make the API request
-		Response response = RestAssured.given().contentType("application/json")
-				.header("Authorization", "Bearer " + BaseClassTest.serviceAuthToken)
+		Response response = HttpTransport.given().contentType("application/json")
+				.header("Authorization", "Bearer " + serviceAuthToken)
 				.body(graphqlBody)
 				.post(baseUrl);
 
@@ -40,21 +39,21 @@ public class TokenGenerator {
 		return response.jsonPath().getString(jsonPath);
 	}
 	// Method to regenerate token
-	public static String reGenerateToken(String baseUrl, String vinNo, String appUserId) {
+	public static String reGenerateToken(String baseUrl, String serviceAuthToken, String vinNo, String appUserId) {
 		String graphqlQuery = Mutations.regenerateToken
 				.replace("VehicleVin", vinNo)
 				.replace("appUserId", appUserId);
 		// Provide the correct JSON path for this case
-		return makeGraphQLRequest(baseUrl, graphqlQuery, "data.regenerateToken.token");
+		return makeGraphQLRequest(baseUrl, serviceAuthToken, graphqlQuery, "data.regenerateToken.token");
 	}
 
 	// Method to regenerate accessory token
-	public static String reGenerateToken(String baseUrl,String vinNo, String appUserId, String deviceId) {
+	public static String reGenerateToken(String baseUrl, String serviceAuthToken, String vinNo, String appUserId, String deviceId) {
 		String graphqlQuery = Mutations.regenerateTokenAccessory
 				.replace("VehicleVin", vinNo)
 				.replace("appUserId", appUserId)
 				.replace("deviceId", deviceId);
 		// Provide the correct JSON path for this case
-		return makeGraphQLRequest(baseUrl, graphqlQuery, "data.regenerateToken.token");
+		return makeGraphQLRequest(baseUrl, serviceAuthToken, graphqlQuery, "data.regenerateToken.token");
 	}
 }
@@ -0,0 +1,107 @@
+package configuration;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.fasterxml.jackson.databind.JsonNode;
+import controllers.graphqlRequestFormatters.GraphQLRequestFormatter;
+import controllers.validators.ResponseValidator;
+import controllers.validators.StatusCodeAndStatusMsgValidator;
+import Utils.JsonSupport;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.testng.asserts.SoftAssert;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Warm-up before the first row runs.
+ *
+ * The first rows of a run used to be much slower than the rest: they paid for the TLS handshake
+ * with the GraphQL endpoint, for loading RestAssured and Groovy, for compiling JsonPath
+ * expressions and for running the formatters and validators in the interpreter. The warm-up
+ * pays those costs up front, outside any row, so they do not show up in the row durations:
+ * <ul>
+ * <li>beforeSuite runs the request formatters and the status and response validators on
+ * synthetic rows ("warmup.iterations" times, default 200), with their console output muted;</li>
+ * <li>beforeTest sends "warmup.requests" (default 3) trivial GraphQL queries to each endpoint,
+ * outside the circuit breaker.</li>
+ * </ul>
+ * Set "warmup" to false to skip it.
+ */
+public class WarmUp {
+
+    private static final String REQUEST = "query { getAllAlerts(vin: \"WARMUP00000000000\", "
+            + "start_time: \"2024-01-01 00:00:00\", end_time: \"2024-01-01 23:59:59\") { status statusMessage } }";
+    private static final String RESPONSE = "{\"data\":{\"warmUp\":{\"status\":200,\"statusMessage\":\"Success\","
+            + "\"id\":\"42\",\"count\":5,\"speed\":12.5,\"active\":true,\"name\":\"warm\"}}}";
+    private static final String RULES = "{\"id\":{\"Datatype\":\"string\",\"Regex\":\"^[0-9]+$\",\"Length\":2},"
+            + "\"count\":{\"Datatype\":\"integer\",\"MinLimit\":0,\"MaxLimit\":10},\"speed\":{\"Datatype\":\"float\"},"
+            + "\"active\":{\"Datatype\":\"boolean\"},\"name\":{\"Datatype\":\"NA\"}}";
+    private static final String QUERY = "{\"query\":\"{ __typename }\"}";
+
+    private static final Set<String> primedEndpoints = ConcurrentHashMap.newKeySet();
+
+    public static boolean isEnabled() {
+        return RunOptions.getBoolean("warmup", true);
+    }
+
+    /**
+     * Runs the formatters and validators on synthetic rows. Called from beforeSuite, while no row
+     * runs yet, so muting the console does not hide anything else.
+     */
+    public static void exerciseCodePaths() {
+        int iterations = RunOptions.getInt("warmup.iterations", 200);
+        long started = System.nanoTime();
+        PrintStream out = System.out;
+        // A context of its own: nothing the warm-up does ends up in a row, a report or a block
+        ExecutionContext context = ExecutionContext.begin();
+        context.setConfig(TestConfig.detached("warm-up"));
+        context.setTest(new ExtentReports().createTest("warm-up"));
+        int done = 0;
+        try {
+            JsonNode expected = JsonSupport.readTree(RESPONSE);
+            JsonNode rules = JsonSupport.readTree(RULES);
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            for (; done < iterations; done++) {
+                context.setSoftAssert(new SoftAssert());
+                GraphQLRequestFormatter.processRequest(REQUEST, "getAllAlerts");
+                JsonNode actual = JsonSupport.readTree(RESPONSE);
+                StatusCodeAndStatusMsgValidator.validateStatusFields("200", new JsonPath(RESPONSE), "warmUp", "Success");
+                ResponseValidator.compareAndValidateFields(expected.path("data").path("warmUp"),
+                        actual.path("data").path("warmUp"), "", rules, System.currentTimeMillis() / 1000);
+            }
+        } catch (Exception e) {
+            System.err.println("Warm-up of the formatters and validators stopped after " + done + " row(s): " + e);
+        } finally {
+            System.setOut(out);
+            ExecutionContext.end();
+        }
+        System.out.println("Warmed up the formatters and validators with " + done + " synthetic row(s) in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Opens pooled connections to a GraphQL endpoint and loads the HTTP stack with a few trivial
+     * queries. Each endpoint is primed once per run; a failure is only logged.
+     */
+    public static void primeEndpoint(String baseUrl, String token) {
+        if (baseUrl == null || !primedEndpoints.add(baseUrl)) {
+            return;
+        }
+        int requests = RunOptions.getInt("warmup.requests", 3);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            try {
+                Response response = HttpTransport.postGraphQL(baseUrl, token, QUERY);
+                response.jsonPath().get("data");
+            } catch (Exception e) {
+                System.err.println("Warm-up request to " + baseUrl + " failed: " + e.getMessage());
+                return;
+            }
+        }
+        System.out.println("Warmed up " + baseUrl + " with " + requests + " request(s) in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+}
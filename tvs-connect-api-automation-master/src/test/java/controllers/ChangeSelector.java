@@ -0,0 +1,108 @@
+package controllers;
+
+import Utils.RunHistory;
+import Utils.SheetRow;
+import configuration.RunOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Leaves out the rows of a sheet that did not change and passed when they last ran.
+ *
+ * Every row's content (API name, simulation, request, expected response and status, method
+ * name, validation rules) is hashed and the hash is kept in the {@link RunHistory} with the row's
+ * last result. With "selection.mode" set, a row runs when:
+ * <ul>
+ * <li>it is new, its hash changed, or its last run failed;</li>
+ * <li>it was left out in the last "selection.full.every" - 1 runs (default 7), so every row still
+ * runs at least once every that many runs;</li>
+ * <li>"selection.mode" is sample and the row is drawn: "selection.sample.rate" (a fraction
+ * between 0 and 1, default 0.1) of the unchanged rows, a different share each run;</li>
+ * <li>a selected row depends on it, so the selected row still finds the values it reads. With
+ * the default serial {@link ScenarioGraph} that is every row above it.</li>
+ * </ul>
+ * "selection.mode" = all, the default, runs every row.
+ */
+final class ChangeSelector {
+
+    private ChangeSelector() {
+    }
+
+    static boolean isEnabled() {
+        String mode = mode();
+        return "changed".equals(mode) || "sample".equals(mode);
+    }
+
+    private static String mode() {
+        return RunOptions.get("selection.mode", "all").toLowerCase();
+    }
+
+    /**
+     * The rows of this run, in sheet order.
+     */
+    static Iterator<SheetRow> select(Iterator<SheetRow> rows, String workbook, String sheetName, RunHistory history) {
+        int fullEvery = Math.max(1, RunOptions.getInt("selection.full.every", 7));
+        boolean sample = "sample".equals(mode());
+        double sampleRate = RunOptions.getRate("selection.sample.rate", 0.1);
+
+        List<SheetRow> sheetRows = new ArrayList<>();
+        List<TestCaseExecuter.TestCase> testCases = new ArrayList<>();
+        while (rows.hasNext()) {
+            SheetRow row = rows.next();
+            sheetRows.add(row);
+            testCases.add(TestCaseExecuter.TestCase.from(row, workbook, sheetName));
+        }
+
+        Set<Integer> wanted = new HashSet<>();
+        int changed = 0;
+        int stale = 0;
+        int sampled = 0;
+        for (TestCaseExecuter.TestCase testCase : testCases) {
+            RunHistory.Stats stats = history.get(ScenarioGraph.rowKey(sheetName, testCase));
+            if (stats == null || !stats.lastPassed() || !testCase.getContentHash().equals(stats.getContentHash())) {
+                changed++;
+            } else if (stats.getDeselectedRuns() + 1 >= fullEvery) {
+                stale++;
+            } else if (sample && drawn(ScenarioGraph.rowKey(sheetName, testCase),
+                    stats.getRuns() + stats.getDeselectedRuns(), sampleRate)) {
+                sampled++;
+            } else {
+                continue;
+            }
+            wanted.add(testCase.getRow());
+        }
+
+        Set<Integer> selected = new HashSet<>();
+        for (TestCaseExecuter.TestCase testCase : ScenarioGraph.build(sheetName, testCases).withDependencies(wanted)) {
+            selected.add(testCase.getRow());
+        }
+        List<SheetRow> selectedRows = new ArrayList<>(selected.size());
+        for (int i = 0; i < sheetRows.size(); i++) {
+            if (selected.contains(sheetRows.get(i).getRowIndex())) {
+                selectedRows.add(sheetRows.get(i));
+            } else {
+                history.deselected(ScenarioGraph.rowKey(sheetName, testCases.get(i)));
+            }
+        }
+        System.out.println("Selected " + selectedRows.size() + " of " + sheetRows.size() + " row(s) of sheet '" + sheetName
+                + "': " + changed + " new, changed or failed, " + stale + " due for a full run, " + sampled + " sampled, "
+                + (selected.size() - wanted.size()) + " needed by those");
+        return selectedRows.iterator();
+    }
+
+    /**
+     * Whether an unchanged row is drawn for this run. The draw depends on the row and on how many
+     * runs it has seen, so every run samples other rows, and reruns of a run sample the same ones.
+     */
+    private static boolean drawn(String rowKey, int runs, double rate) {
+        CRC32 crc = new CRC32();
+        crc.update((rowKey + "#" + runs).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() % 10_000 < rate * 10_000;
+    }
+}
@@ -0,0 +1,118 @@
+package controllers;
+
+import Utils.ResultJournal;
+import Utils.RunHistory;
+import Utils.SheetRow;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Leaving out the rows that did not change and passed.
+ */
+public class ChangeSelectorTest {
+
+    private static final String[] OPTIONS = {
+            "selection.mode", "selection.sample.rate", "selection.full.every", "scenario.graph" };
+
+    private Path dir;
+    private RunHistory history;
+
+    @BeforeMethod
+    public void openHistory() throws IOException {
+        dir = Files.createTempDirectory("selection-test");
+        history = RunHistory.open(dir.toString(), "plan");
+        System.setProperty("scenario.graph", "inferred");
+    }
+
+    @AfterMethod
+    public void clearOptions() throws IOException {
+        for (String option : OPTIONS) {
+            System.clearProperty(option);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void runsNewChangedAndFailedRows() {
+        System.setProperty("selection.mode", "changed");
+        passed(row(1, "getProfile", "query { profile }"));
+        passed(row(2, "getTripList", "query { trips }"));
+        history.record("Plan/TC_3", ResultJournal.FAIL, 100, row(3, "getDealers", "query { dealers }").getContentHash());
+
+        List<SheetRow> rows = List.of(sheetRow(1, "getProfile", "query { profile }"),
+                sheetRow(2, "getTripList", "query { trips(last: 5) }"), sheetRow(3, "getDealers", "query { dealers }"),
+                sheetRow(4, "getFaq", "query { faq }"));
+
+        Assert.assertEquals(selected(rows), List.of(2, 3, 4));
+        Assert.assertEquals(history.get("Plan/TC_1").getDeselectedRuns(), 1);
+    }
+
+    @Test
+    public void runsRowsLeftOutTooOften() {
+        System.setProperty("selection.mode", "changed");
+        System.setProperty("selection.full.every", "2");
+        passed(row(1, "getProfile", "query { profile }"));
+        List<SheetRow> rows = List.of(sheetRow(1, "getProfile", "query { profile }"));
+
+        Assert.assertEquals(selected(rows), List.of());
+        Assert.assertEquals(selected(rows), List.of(1), "left out once, due the second time");
+    }
+
+    @Test
+    public void samplesTheShareOfUnchangedRowsSet() {
+        System.setProperty("selection.mode", "sample");
+        List<SheetRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            passed(row(i, "getProfile" + i, "query { profile }"));
+            rows.add(sheetRow(i, "getProfile" + i, "query { profile }"));
+        }
+
+        System.setProperty("selection.sample.rate", "0");
+        Assert.assertEquals(selected(rows).size(), 0);
+        System.setProperty("selection.sample.rate", "1");
+        Assert.assertEquals(selected(rows).size(), 20);
+    }
+
+    @Test
+    public void anInvalidSampleRateFallsBackToTheDefault() {
+        System.setProperty("selection.mode", "sample");
+        System.setProperty("selection.sample.rate", "10");
+        List<SheetRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            passed(row(i, "getProfile" + i, "query { profile }"));
+            rows.add(sheetRow(i, "getProfile" + i, "query { profile }"));
+        }
+
+        // A rate of 10 would draw every row; the default draws about one in ten
+        Assert.assertTrue(selected(rows).size() < 20);
+    }
+
+    private List<Integer> selected(List<SheetRow> rows) {
+        List<Integer> selected = new ArrayList<>();
+        Iterator<SheetRow> iterator = ChangeSelector.select(rows.iterator(), "plan.xlsx", "Plan", history);
+        iterator.forEachRemaining(row -> selected.add(row.getRowIndex()));
+        return selected;
+    }
+
+    private void passed(TestCaseExecuter.TestCase testCase) {
+        history.record(ScenarioGraph.rowKey("Plan", testCase), ResultJournal.PASS, 100, testCase.getContentHash());
+    }
+
+    private static TestCaseExecuter.TestCase row(int row, String apiName, String request) {
+        return TestCaseExecuter.TestCase.from(sheetRow(row, apiName, request), "plan.xlsx", "Plan");
+    }
+
+    private static SheetRow sheetRow(int row, String apiName, String request) {
+        String[] cells = { "TC_" + row, apiName, "NA", "", request, "NA", "{\"status\":200}", apiName, "NA" };
+        return new SheetRow(row, cells);
+    }
+}
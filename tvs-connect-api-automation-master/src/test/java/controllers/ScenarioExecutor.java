@@ -0,0 +1,236 @@
+package controllers;
+
+import configuration.ExecutionContext;
+import configuration.TestConfig;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the rows of a sheet concurrently, in the order of the sheet's {@link ScenarioGraph}, on
+ * threads of its own.
+ *
+ * On virtual threads ("scenario.executor" = virtual) every row gets a thread at once. A scenario
+ * spends nearly all its time blocked on the GraphQL call, MQTT publishes and the simulators'
+ * sleeps, so hundreds of rows can be in flight without a sized platform pool. Each row first
+ * waits for the rows it depends on, then takes one of the concurrency ceiling's permits while it
+ * runs; a row waiting for its dependencies holds no permit, so the ceiling cannot starve a chain.
+ *
+ * On a pool of "scenario.threads" platform threads a row is only submitted once every row it
+ * depends on has finished, so no pool thread ever waits for another row and the pool cannot
+ * dead-lock, whatever order it takes its tasks in. Ready rows are taken in the graph's schedule
+ * order.
+ *
+ * TestNG still reports every row through its own invocation: runAllScenario waits for the
+ * row's outcome and replays it, with the context the row ran with. The rows' threads know no
+ * TestNG test: each row's context gets the configuration of its block when the row starts.
+ */
+final class ScenarioExecutor {
+
+    /**
+     * Runs one row with the given context, throwing when the row fails or is skipped.
+     */
+    interface ScenarioRunner {
+        void run(TestCaseExecuter.TestCase testCase, ExecutionContext context);
+    }
+
+    /**
+     * The context a row ran with and what it threw, if anything.
+     */
+    static final class Outcome {
+        private final ExecutionContext context;
+        private final Throwable failure;
+
+        Outcome(ExecutionContext context, Throwable failure) {
+            this.context = context;
+            this.failure = failure;
+        }
+
+        ExecutionContext getContext() {
+            return context;
+        }
+
+        /**
+         * Throws what the row threw, so TestNG records the same result as for a row it ran itself.
+         */
+        void rethrow() {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw new RuntimeException(failure.getMessage(), failure);
+            }
+        }
+    }
+
+    private final String sheetName;
+    private final Map<Integer, CompletableFuture<Outcome>> outcomes = new ConcurrentHashMap<>();
+
+    private ScenarioExecutor(String sheetName, List<TestCaseExecuter.TestCase> order) {
+        this.sheetName = sheetName;
+        for (TestCaseExecuter.TestCase testCase : order) {
+            outcomes.put(testCase.getRow(), new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * Starts every row of the graph on its own virtual thread and returns at once.
+     *
+     * @param config            the configuration of the sheet's block
+     * @param maxConcurrent     the most rows running at the same time
+     * @param waitSeconds       how long a row waits for a predecessor that never finishes
+     */
+    static ScenarioExecutor startOnVirtualThreads(TestConfig config, ScenarioGraph graph, int maxConcurrent,
+                                                  long waitSeconds, ScenarioRunner runner) {
+        String sheetName = config.getModel();
+        List<TestCaseExecuter.TestCase> order = graph.getScheduleOrder();
+        ScenarioExecutor executor = new ScenarioExecutor(sheetName, order);
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrent));
+
+        ExecutorService threads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("scenario-" + sheetName + "-", 0).factory());
+        try {
+            for (TestCaseExecuter.TestCase testCase : order) {
+                CompletableFuture<Outcome> outcome = executor.outcomes.get(testCase.getRow());
+                threads.execute(() -> outcome.complete(runRow(testCase, config, graph, permits, waitSeconds, runner)));
+            }
+        } finally {
+            // Rows already started keep running; the executor only stops accepting new ones
+            threads.shutdown();
+        }
+        return executor;
+    }
+
+    /**
+     * Starts the rows of the graph that depend on no other row on a pool of platform threads,
+     * and each other row as soon as the last row it depends on has finished. Returns at once.
+     */
+    static ScenarioExecutor startOnPool(TestConfig config, ScenarioGraph graph, int threadCount,
+                                        ScenarioRunner runner) {
+        String sheetName = config.getModel();
+        List<TestCaseExecuter.TestCase> order = graph.getScheduleOrder();
+        ScenarioExecutor executor = new ScenarioExecutor(sheetName, order);
+        Map<Integer, Integer> rank = new HashMap<>();
+        Map<Integer, AtomicInteger> waitingFor = new HashMap<>();
+        for (TestCaseExecuter.TestCase testCase : order) {
+            rank.put(testCase.getRow(), rank.size());
+            waitingFor.put(testCase.getRow(), new AtomicInteger(graph.getDependencyCount(testCase)));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "scenario-" + sheetName + "-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger remaining = new AtomicInteger(order.size());
+        Dispatcher dispatcher = new Dispatcher() {
+            @Override
+            public void submit(TestCaseExecuter.TestCase testCase) {
+                pool.execute(new RankedRow(rank.get(testCase.getRow()), () -> {
+                    Outcome outcome = runRow(testCase, config, graph, null, 0, runner);
+                    for (TestCaseExecuter.TestCase dependent : graph.getDependents(testCase)) {
+                        if (waitingFor.get(dependent.getRow()).decrementAndGet() == 0) {
+                            submit(dependent);
+                        }
+                    }
+                    executor.outcomes.get(testCase.getRow()).complete(outcome);
+                    if (remaining.decrementAndGet() == 0) {
+                        pool.shutdown();
+                    }
+                }));
+            }
+        };
+        if (order.isEmpty()) {
+            pool.shutdown();
+        }
+        for (TestCaseExecuter.TestCase testCase : order) {
+            if (graph.getDependencyCount(testCase) == 0) {
+                dispatcher.submit(testCase);
+            }
+        }
+        return executor;
+    }
+
+    private interface Dispatcher {
+        void submit(TestCaseExecuter.TestCase testCase);
+    }
+
+    /**
+     * A row's task, taken from the pool's queue in schedule order.
+     */
+    private static final class RankedRow implements Runnable, Comparable<RankedRow> {
+        private final int rank;
+        private final Runnable task;
+
+        RankedRow(int rank, Runnable task) {
+            this.rank = rank;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(RankedRow other) {
+            return Integer.compare(rank, other.rank);
+        }
+    }
+
+    private static Outcome runRow(TestCaseExecuter.TestCase testCase, TestConfig config, ScenarioGraph graph,
+                                  Semaphore permits, long waitSeconds, ScenarioRunner runner) {
+        ExecutionContext context = ExecutionContext.begin();
+        context.setConfig(config);
+        Throwable failure = null;
+        boolean acquired = false;
+        try {
+            if (permits != null) {
+                graph.awaitDependencies(testCase, waitSeconds);
+                permits.acquire();
+                acquired = true;
+            }
+            runner.run(testCase, context);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new RuntimeException("Interrupted before row " + testCase.getRow() + " could run", e);
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+            // The runner releases the row's dependents itself; this covers a row that never ran
+            graph.finished(testCase);
+            ExecutionContext.end();
+        }
+        return new Outcome(context, failure);
+    }
+
+    /**
+     * Waits for a row to finish and returns its outcome.
+     */
+    Outcome awaitOutcome(TestCaseExecuter.TestCase testCase) {
+        CompletableFuture<Outcome> outcome = outcomes.get(testCase.getRow());
+        if (outcome == null) {
+            throw new IllegalStateException("Row " + testCase.getRow() + " of sheet '" + sheetName
+                    + "' was not started by the scenario executor");
+        }
+        return outcome.join();
+    }
+}
@@ -0,0 +1,544 @@
+package controllers;
+
+import Utils.RunHistory;
+import configuration.RunOptions;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dependency graph of the rows of one sheet, used to run independent scenario chains concurrently.
+ *
+ * By default ("scenario.graph" = serial) every row depends on the row before it: the sheet is one
+ * chain and runs in sheet order, whatever the thread count. Rows share more state than the rules
+ * below can see (user settings, the VIN's state on the backend), so running them side by side is
+ * opt-in, with "scenario.graph" = inferred, for sheets whose rows are known to only share the keys
+ * below.
+ *
+ * Rows hand values to later rows through DynamicValuesFormatter.dynamicValues() and DynamicContext
+ * (addUser -> offBoardUser, setGeofence -> editGeofence, setVehicleSettings -> seqNo -> cluster
+ * approval simulation, ...). Each row reads and writes named keys: the keys are inferred from its
+ * API name and simulation column with the rules below, and a row can declare more in its
+ * expected status JSON (column 6). A row that simulates writes the device's telemetry and a row
+ * that does not reads it, so queries of the vehicle's state never overlap a simulation:
+ * <pre>
+ * { "status": 200, "statusMessage": "...", "responseRootPath": "...", "produces": ["key"], "consumes": ["key"] }
+ * </pre>
+ * In sheet order, a row depends on the last earlier writer of every key it reads or writes, and a
+ * writer also on the readers of the previous value, so every row sees the same values as in a
+ * serial run. Rows without a path between them are independent.
+ *
+ * Rows are started in a topological order (see {@link ScenarioExecutor}), each one only once its
+ * predecessors have finished. Among the rows that are ready, rows that were flaky in their recent
+ * runs go first, so their failures show up early; then the row with the longest chain behind it,
+ * measured in the durations the {@link RunHistory} recorded (longest processing time first), or in
+ * rows when there is no history.
+ */
+final class ScenarioGraph {
+
+    /** Key written by every row that sends simulated device packets. */
+    static final String TELEMETRY = "telemetry";
+
+    private static final Map<String, String[]> WRITES = new HashMap<>();
+    private static final Map<String, String[]> READS = new HashMap<>();
+
+    static {
+        // Mirrors DynamicValuesFormatter.extractDynamicValues / updateDynamicFields and the
+        // time fence handling of TestCaseExecuter
+        WRITES.put("addUser", new String[] { "app_user_id" });
+        READS.put("offBoardUser", new String[] { "app_user_id" });
+
+        WRITES.put("addEmergencyContacts", new String[] { "emergency_contact_id" });
+        READS.put("fetchEmergencyContacts", new String[] { "emergency_contact_id" });
+        READS.put("updateEmergencyContacts", new String[] { "emergency_contact_id" });
+        READS.put("deleteEmergencyContacts", new String[] { "emergency_contact_id" });
+
+        WRITES.put("setGeofence", new String[] { "geofence_id" });
+        WRITES.put("getAllGeofenceAlerts", new String[] { "geofence_id" });
+        READS.put("getGeofenceList", new String[] { "geofence_id" });
+        READS.put("editGeofence", new String[] { "geofence_id" });
+        READS.put("deleteGeofence", new String[] { "geofence_id" });
+
+        WRITES.put("shareLiveLocation", new String[] { "request_id", "sharing_timestamp" });
+        READS.put("getAllSharedLiveLocation", new String[] { "request_id", "sharing_timestamp" });
+        READS.put("stopLiveLocation", new String[] { "request_id" });
+
+        WRITES.put("getAllSharedDestinations", new String[] { "place_id", "location_id" });
+        READS.put("getAllSharedDestinations", new String[] { "place_id" });
+        READS.put("deleteSharedDestination", new String[] { "place_id" });
+
+        WRITES.put("setVehicleSettings", new String[] { "seqNo" });
+        WRITES.put("setOverspeedThreshold", new String[] { "seqNo" });
+        WRITES.put("setHomeChargerSettings", new String[] { "seqNo" });
+        WRITES.put("setPortableChargerSettings", new String[] { "seqNo" });
+
+        WRITES.put("setTimeFence", new String[] { "storedTimeFenceDetails" });
+        WRITES.put("updateTimeFence", new String[] { "storedTimeFenceDetails" });
+        READS.put("getTimeFenceAlertConfig", new String[] { "storedTimeFenceDetails" });
+    }
+
+    private final String sheetName;
+    private final boolean inferred;
+    private final List<TestCaseExecuter.TestCase> testCases;
+    private final Map<Integer, Integer> indexByRow = new HashMap<>();
+    private final List<Set<Integer>> predecessors = new ArrayList<>();
+    private final List<Set<Integer>> successors = new ArrayList<>();
+    private final CountDownLatch[] finished;
+    private final int[] chainLength;
+    private final long[] estimatedMillis;
+    private final long[] chainMillis;
+    private final boolean[] flaky;
+    private final int[] component;
+    private int componentCount;
+
+    private ScenarioGraph(String sheetName, List<TestCaseExecuter.TestCase> testCases, boolean inferred) {
+        this.sheetName = sheetName;
+        this.inferred = inferred;
+        this.testCases = testCases;
+        this.finished = new CountDownLatch[testCases.size()];
+        this.chainLength = new int[testCases.size()];
+        this.estimatedMillis = new long[testCases.size()];
+        this.chainMillis = new long[testCases.size()];
+        this.flaky = new boolean[testCases.size()];
+        this.component = new int[testCases.size()];
+        for (int i = 0; i < testCases.size(); i++) {
+            indexByRow.put(testCases.get(i).getRow(), i);
+            predecessors.add(new LinkedHashSet<>());
+            successors.add(new LinkedHashSet<>());
+            finished[i] = new CountDownLatch(1);
+        }
+    }
+
+    /**
+     * Whether rows are independent unless their keys link them ("scenario.graph" = inferred)
+     * rather than one serial chain.
+     */
+    static boolean isInferred() {
+        return RunOptions.isInferredGraph();
+    }
+
+    /**
+     * Builds the graph of the given rows, which must be in sheet order.
+     */
+    static ScenarioGraph build(String sheetName, List<TestCaseExecuter.TestCase> testCases) {
+        return build(sheetName, testCases, null);
+    }
+
+    /**
+     * Builds the graph of the given rows, which must be in sheet order, ordering ready rows by
+     * their history (may be null).
+     */
+    static ScenarioGraph build(String sheetName, List<TestCaseExecuter.TestCase> testCases, RunHistory history) {
+        return build(sheetName, testCases, history, isInferred());
+    }
+
+    /**
+     * Builds the graph of the given rows, either as one serial chain or from the keys they share.
+     */
+    static ScenarioGraph build(String sheetName, List<TestCaseExecuter.TestCase> testCases, RunHistory history,
+                               boolean inferred) {
+        ScenarioGraph graph = new ScenarioGraph(sheetName, testCases, inferred);
+        graph.addEdges();
+        graph.applyHistory(history);
+        graph.computeChainLengths();
+        graph.computeComponents();
+        return graph;
+    }
+
+    /**
+     * Keys a row reads: from the rules, its "consumes" declaration, seqNo for every row that
+     * simulates (the simulator switches to cluster approval once a seqNo is set) and the
+     * device's telemetry for every row that does not.
+     */
+    static Set<String> readsOf(TestCaseExecuter.TestCase testCase) {
+        Set<String> keys = new LinkedHashSet<>();
+        String apiName = apiNameOf(testCase);
+        if (READS.containsKey(apiName)) {
+            keys.addAll(Arrays.asList(READS.get(apiName)));
+        }
+        if ("to_getTimeFenceAlertConfig_response_by_comparing_updateTimeFence".equals(testCase.getName())) {
+            keys.add("storedTimeFenceDetails");
+        }
+        if (simulates(testCase)) {
+            keys.add("seqNo");
+        } else {
+            keys.add(TELEMETRY);
+        }
+        keys.addAll(declared(testCase, "consumes"));
+        return keys;
+    }
+
+    /**
+     * Keys a row writes: from the rules, its "produces" declaration, and the device's
+     * telemetry for every row that simulates.
+     */
+    static Set<String> writesOf(TestCaseExecuter.TestCase testCase) {
+        Set<String> keys = new LinkedHashSet<>();
+        String apiName = apiNameOf(testCase);
+        if (WRITES.containsKey(apiName)) {
+            keys.addAll(Arrays.asList(WRITES.get(apiName)));
+        }
+        if (simulates(testCase)) {
+            keys.add(TELEMETRY);
+        }
+        keys.addAll(declared(testCase, "produces"));
+        return keys;
+    }
+
+    /**
+     * Key of a row that stays the same across runs (run history, shards): the sheet and its test
+     * case id, or its row number when the id is blank.
+     */
+    static String rowKey(String sheetName, TestCaseExecuter.TestCase testCase) {
+        String id = testCase.getId();
+        return sheetName + "/" + (id != null && !id.trim().isEmpty() ? id.trim() : "row " + testCase.getRow());
+    }
+
+    /**
+     * Whether a row changes state that other rows may see: it simulates the device, writes a
+     * key, or sends a mutation (settings, the VIN's state on the backend).
+     */
+    static boolean touchesState(TestCaseExecuter.TestCase testCase) {
+        if (simulates(testCase) || !writesOf(testCase).isEmpty()) {
+            return true;
+        }
+        String request = testCase.getRequest();
+        return request != null && request.trim().startsWith("mutation");
+    }
+
+    private static String apiNameOf(TestCaseExecuter.TestCase testCase) {
+        return testCase.getApiName() != null ? testCase.getApiName().trim() : "";
+    }
+
+    private static boolean simulates(TestCaseExecuter.TestCase testCase) {
+        String simulationValue = testCase.getSimulationValue();
+        return simulationValue == null || !simulationValue.trim().equalsIgnoreCase("NA");
+    }
+
+    private static List<String> declared(TestCaseExecuter.TestCase testCase, String field) {
+        JSONObject expectedStatus = testCase.getExpectedStatusObj();
+        if (expectedStatus == null || !expectedStatus.has(field)) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        JSONArray array = expectedStatus.optJSONArray(field);
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                keys.add(array.optString(i).trim());
+            }
+        } else {
+            for (String key : expectedStatus.optString(field).split(",")) {
+                keys.add(key.trim());
+            }
+        }
+        keys.removeIf(String::isEmpty);
+        return keys;
+    }
+
+    private void addEdges() {
+        if (!inferred) {
+            for (int i = 1; i < testCases.size(); i++) {
+                addEdge(i - 1, i);
+            }
+            return;
+        }
+        Map<String, Integer> lastWriter = new HashMap<>();
+        Map<String, List<Integer>> readersSinceWrite = new HashMap<>();
+
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCaseExecuter.TestCase testCase = testCases.get(i);
+            Set<String> writes = writesOf(testCase);
+            for (String key : readsOf(testCase)) {
+                Integer writer = lastWriter.get(key);
+                if (writer != null) {
+                    addEdge(writer, i);
+                }
+                if (!writes.contains(key)) {
+                    readersSinceWrite.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                }
+            }
+            for (String key : writes) {
+                Integer writer = lastWriter.get(key);
+                if (writer != null) {
+                    addEdge(writer, i);
+                }
+                List<Integer> readers = readersSinceWrite.remove(key);
+                if (readers != null) {
+                    for (int reader : readers) {
+                        addEdge(reader, i);
+                    }
+                }
+                lastWriter.put(key, i);
+            }
+        }
+    }
+
+    private void addEdge(int from, int to) {
+        if (from != to) {
+            successors.get(from).add(to);
+            predecessors.get(to).add(from);
+        }
+    }
+
+    /**
+     * Estimates each row's duration from its history. Rows that never ran are assumed to take
+     * the median of the rows that did.
+     */
+    private void applyHistory(RunHistory history) {
+        if (history == null) {
+            return;
+        }
+        List<Long> known = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            RunHistory.Stats stats = history.get(rowKey(sheetName, testCases.get(i)));
+            if (stats != null && stats.getRuns() > 0) {
+                estimatedMillis[i] = stats.getAverageMillis();
+                flaky[i] = stats.isFlaky();
+                known.add(estimatedMillis[i]);
+            } else {
+                estimatedMillis[i] = -1;
+            }
+        }
+        Collections.sort(known);
+        long median = known.isEmpty() ? 0 : known.get(known.size() / 2);
+        for (int i = 0; i < testCases.size(); i++) {
+            if (estimatedMillis[i] < 0) {
+                estimatedMillis[i] = median;
+            }
+        }
+    }
+
+    /**
+     * Rows and estimated time on the longest path from each row to the end of its chain. Edges
+     * always point down the sheet, so one pass from the bottom is enough.
+     */
+    private void computeChainLengths() {
+        for (int i = testCases.size() - 1; i >= 0; i--) {
+            int longest = 0;
+            long slowest = 0;
+            for (int next : successors.get(i)) {
+                longest = Math.max(longest, chainLength[next]);
+                slowest = Math.max(slowest, chainMillis[next]);
+            }
+            chainLength[i] = longest + 1;
+            chainMillis[i] = slowest + estimatedMillis[i];
+        }
+    }
+
+    private void computeComponents() {
+        Arrays.fill(component, -1);
+        for (int start = 0; start < testCases.size(); start++) {
+            if (component[start] != -1) {
+                continue;
+            }
+            List<Integer> pending = new ArrayList<>();
+            pending.add(start);
+            component[start] = componentCount;
+            while (!pending.isEmpty()) {
+                int node = pending.remove(pending.size() - 1);
+                for (Set<Integer> neighbours : Arrays.asList(predecessors.get(node), successors.get(node))) {
+                    for (int neighbour : neighbours) {
+                        if (component[neighbour] == -1) {
+                            component[neighbour] = componentCount;
+                            pending.add(neighbour);
+                        }
+                    }
+                }
+            }
+            componentCount++;
+        }
+    }
+
+    /**
+     * The rows in the order they are started: topological, flaky rows first, then the longest
+     * remaining chain by time and by rows, sheet order between equals.
+     */
+    List<TestCaseExecuter.TestCase> getScheduleOrder() {
+        int[] waitingFor = new int[testCases.size()];
+        PriorityQueue<Integer> ready = new PriorityQueue<>((a, b) -> {
+            if (flaky[a] != flaky[b]) {
+                return flaky[a] ? -1 : 1;
+            }
+            if (chainMillis[a] != chainMillis[b]) {
+                return Long.compare(chainMillis[b], chainMillis[a]);
+            }
+            return chainLength[a] != chainLength[b] ? Integer.compare(chainLength[b], chainLength[a]) : Integer.compare(a, b);
+        });
+        for (int i = 0; i < testCases.size(); i++) {
+            waitingFor[i] = predecessors.get(i).size();
+            if (waitingFor[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        List<TestCaseExecuter.TestCase> order = new ArrayList<>(testCases.size());
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            order.add(testCases.get(node));
+            for (int next : successors.get(node)) {
+                if (--waitingFor[next] == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Number of independent chains (connected groups of rows) in the sheet.
+     */
+    int getChainCount() {
+        return componentCount;
+    }
+
+    /**
+     * The independent chains, each with its rows in sheet order, ordered by their first row.
+     */
+    List<List<TestCaseExecuter.TestCase>> getChains() {
+        List<List<TestCaseExecuter.TestCase>> chains = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            chains.add(new ArrayList<>());
+        }
+        // Components are numbered in the order of their first row
+        for (int i = 0; i < testCases.size(); i++) {
+            chains.get(component[i]).add(testCases.get(i));
+        }
+        return chains;
+    }
+
+    /**
+     * The given rows and every row they depend on, directly or through other rows, in sheet order.
+     */
+    List<TestCaseExecuter.TestCase> withDependencies(Set<Integer> rows) {
+        boolean[] needed = new boolean[testCases.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int row : rows) {
+            Integer index = indexByRow.get(row);
+            if (index != null && !needed[index]) {
+                needed[index] = true;
+                pending.add(index);
+            }
+        }
+        while (!pending.isEmpty()) {
+            for (int predecessor : predecessors.get(pending.remove(pending.size() - 1))) {
+                if (!needed[predecessor]) {
+                    needed[predecessor] = true;
+                    pending.add(predecessor);
+                }
+            }
+        }
+
+        List<TestCaseExecuter.TestCase> result = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            if (needed[i]) {
+                result.add(testCases.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of rows on the longest dependency chain.
+     */
+    int getCriticalPathLength() {
+        int longest = 0;
+        for (int length : chainLength) {
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    /**
+     * Estimated duration of the slowest chain from the run history, 0 without history.
+     */
+    long getCriticalPathMillis() {
+        long slowest = 0;
+        for (long millis : chainMillis) {
+            slowest = Math.max(slowest, millis);
+        }
+        return slowest;
+    }
+
+    /**
+     * Number of rows that were flaky in their recent runs.
+     */
+    int getFlakyCount() {
+        int count = 0;
+        for (boolean isFlaky : flaky) {
+            if (isFlaky) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int size() {
+        return testCases.size();
+    }
+
+    /**
+     * Number of rows a row waits for directly.
+     */
+    int getDependencyCount(TestCaseExecuter.TestCase testCase) {
+        Integer index = indexByRow.get(testCase.getRow());
+        return index != null ? predecessors.get(index).size() : 0;
+    }
+
+    /**
+     * The rows that wait directly for a row.
+     */
+    List<TestCaseExecuter.TestCase> getDependents(TestCaseExecuter.TestCase testCase) {
+        Integer index = indexByRow.get(testCase.getRow());
+        List<TestCaseExecuter.TestCase> dependents = new ArrayList<>();
+        if (index != null) {
+            for (int next : successors.get(index)) {
+                dependents.add(testCases.get(next));
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Blocks until every row this row depends on has finished. A predecessor that never
+     * finishes (e.g. TestNG skipped it without running it) releases its dependents after
+     * the given timeout, with a warning.
+     */
+    void awaitDependencies(TestCaseExecuter.TestCase testCase, long timeoutSeconds) {
+        Integer index = indexByRow.get(testCase.getRow());
+        if (index == null) {
+            return;
+        }
+        for (int predecessor : predecessors.get(index)) {
+            try {
+                if (!finished[predecessor].await(timeoutSeconds, TimeUnit.SECONDS)) {
+                    System.err.println("Row " + testCase.getRow() + " of sheet '" + sheetName + "' stopped waiting for row "
+                            + testCases.get(predecessor).getRow() + " after " + timeoutSeconds + " s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while row " + testCase.getRow() + " waited for its dependencies", e);
+            }
+        }
+    }
+
+    /**
+     * Marks a row as finished, whatever its result, and releases the rows waiting for it.
+     */
+    void finished(TestCaseExecuter.TestCase testCase) {
+        Integer index = indexByRow.get(testCase.getRow());
+        if (index != null) {
+            finished[index].countDown();
+        }
+    }
+}
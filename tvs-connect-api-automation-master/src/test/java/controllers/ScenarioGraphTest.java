@@ -0,0 +1,147 @@
+package controllers;
+
+import Utils.SheetRow;
+import configuration.TestConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordering the rows of a sheet by their dependencies, and running them without dead-locks.
+ */
+public class ScenarioGraphTest {
+
+    @Test
+    public void rowsFormOneSerialChainByDefault() {
+        List<TestCaseExecuter.TestCase> rows = List.of(
+                row(1, "addUser", "NA"), row(2, "setGeofence", "NA"), row(3, "getVehicleStatus", "NA"));
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows, null, false);
+
+        Assert.assertEquals(graph.getChainCount(), 1);
+        Assert.assertEquals(graph.getCriticalPathLength(), 3);
+        Assert.assertEquals(rowsOf(graph.getScheduleOrder()), List.of(1, 2, 3));
+    }
+
+    @Test
+    public void inferredRowsOnlyWaitForTheRowsTheyShareKeysWith() {
+        List<TestCaseExecuter.TestCase> rows = List.of(
+                row(1, "addUser", "NA"), row(2, "setGeofence", "NA"),
+                row(3, "offBoardUser", "NA"), row(4, "editGeofence", "NA"));
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows, null, true);
+
+        Assert.assertEquals(graph.getChainCount(), 2);
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(3))), List.of(1, 3));
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(4))), List.of(2, 4));
+        assertTopological(graph, graph.getScheduleOrder());
+    }
+
+    @Test
+    public void rowsThatDoNotSimulateWaitForTheSimulationBeforeThem() {
+        List<TestCaseExecuter.TestCase> rows = List.of(
+                row(1, "getVehicleStatus", "IGNITION_ON"), row(2, "getVehicleStatus", "NA"),
+                row(3, "getTripList", "NA"), row(4, "getVehicleStatus", "IGNITION_OFF"));
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows, null, true);
+
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(2))), List.of(1, 2));
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(3))), List.of(1, 3), "readers do not wait for each other");
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(4))), List.of(1, 2, 3, 4),
+                "the next simulation waits for the readers of the last one");
+    }
+
+    @Test
+    public void declaredKeysLinkRows() {
+        List<TestCaseExecuter.TestCase> rows = List.of(
+                row(1, "createTrip", "NA", "{\"status\":200,\"produces\":[\"trip_id\"]}"),
+                row(2, "getProfile", "NA"),
+                row(3, "getTrip", "NA", "{\"status\":200,\"consumes\":\"trip_id\"}"));
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows, null, true);
+
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(3))), List.of(1, 3));
+        Assert.assertEquals(rowsOf(graph.withDependencies(Set.of(2))), List.of(2));
+    }
+
+    @Test(timeOut = 20000)
+    public void aPoolOfOneThreadRunsEveryRowAfterItsDependencies() {
+        assertRunsWithoutDeadlock(1);
+    }
+
+    @Test(timeOut = 20000)
+    public void aPoolOfSeveralThreadsRunsEveryRowAfterItsDependencies() {
+        assertRunsWithoutDeadlock(3);
+    }
+
+    private static void assertRunsWithoutDeadlock(int threads) {
+        List<TestCaseExecuter.TestCase> rows = new ArrayList<>();
+        for (int i = 1; i <= 24; i += 3) {
+            rows.add(row(i, "addUser", "NA"));
+            rows.add(row(i + 1, "getTripList", "NA"));
+            rows.add(row(i + 2, "offBoardUser", "NA"));
+        }
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows, null, true);
+
+        TestConfig config = TestConfig.detached("unit");
+        config.setModel("Plan");
+        Set<Integer> finished = ConcurrentHashMap.newKeySet();
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        ScenarioExecutor executor = ScenarioExecutor.startOnPool(config, graph, threads, (testCase, context) -> {
+            for (TestCaseExecuter.TestCase dependency : graph.withDependencies(Set.of(testCase.getRow()))) {
+                if (dependency != testCase && !finished.contains(dependency.getRow())) {
+                    violations.add("row " + testCase.getRow() + " started before row " + dependency.getRow());
+                }
+            }
+            try {
+                if (testCase.getRow() % 5 == 0) {
+                    throw new AssertionError("row " + testCase.getRow() + " failed");
+                }
+            } finally {
+                finished.add(testCase.getRow());
+            }
+        });
+
+        int failures = 0;
+        for (TestCaseExecuter.TestCase testCase : rows) {
+            try {
+                executor.awaitOutcome(testCase).rethrow();
+            } catch (AssertionError e) {
+                failures++;
+            }
+        }
+        Assert.assertEquals(failures, 4, "rows 5, 10, 15 and 20 fail, their dependents still run");
+        Assert.assertEquals(violations, List.of());
+    }
+
+    private static void assertTopological(ScenarioGraph graph, List<TestCaseExecuter.TestCase> order) {
+        List<Integer> started = new ArrayList<>();
+        for (TestCaseExecuter.TestCase testCase : order) {
+            for (TestCaseExecuter.TestCase dependency : graph.withDependencies(Set.of(testCase.getRow()))) {
+                if (dependency != testCase) {
+                    Assert.assertTrue(started.contains(dependency.getRow()),
+                            "row " + testCase.getRow() + " is scheduled before row " + dependency.getRow());
+                }
+            }
+            started.add(testCase.getRow());
+        }
+    }
+
+    private static List<Integer> rowsOf(List<TestCaseExecuter.TestCase> testCases) {
+        List<Integer> rows = new ArrayList<>();
+        for (TestCaseExecuter.TestCase testCase : testCases) {
+            rows.add(testCase.getRow());
+        }
+        return rows;
+    }
+
+    private static TestCaseExecuter.TestCase row(int row, String apiName, String simulation) {
+        return row(row, apiName, simulation, "{\"status\":200}");
+    }
+
+    private static TestCaseExecuter.TestCase row(int row, String apiName, String simulation, String expectedStatus) {
+        String[] cells = { "TC_" + row, apiName, simulation, "", "{}", "NA", expectedStatus, apiName, "NA" };
+        return TestCaseExecuter.TestCase.from(new SheetRow(row, cells), "plan.xlsx", "Plan");
+    }
+}
@@ -0,0 +1,110 @@
+package controllers;
+
+import Utils.SheetRow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Picks the rows of a sheet that belong to this JVM's shard.
+ *
+ * Rows are assigned a whole dependency chain at a time (see {@link ScenarioGraph}), so a row
+ * always runs in the same JVM as the rows that produce the values it reads. Every chain with a
+ * row that touches shared state (a simulation, a mutation, a row that writes a key) goes to the
+ * same shard, {@code crc32(sheet) % shard.count}: the shards share the VIN and the user, so two
+ * of them changing settings or driving the device at once would break each other's rows. The
+ * other chains only read, and go to shard {@code crc32(sheet + "/" + id of its first row) %
+ * shard.count}. Every shard computes the same assignment from the same plan without talking to
+ * the others, and adding or removing rows elsewhere in the sheet does not move a chain to
+ * another shard. The split is done on the full sheet before a resume skips finished rows, so a
+ * resumed shard keeps its rows.
+ *
+ * With the default serial graph a sheet is one chain and runs in one shard; sheets are spread
+ * over the shards with "scenario.graph" = inferred. Even then, a read-only row still reads the
+ * state the stateful shard is changing, so sharding a sheet is only safe when its rows do not
+ * read what its other rows change: in practice, read-only sheets.
+ */
+final class ShardSelector {
+
+    private ShardSelector() {
+    }
+
+    /**
+     * The rows of this shard, in sheet order.
+     */
+    static Iterator<SheetRow> select(Iterator<SheetRow> rows, String workbook, String sheetName, int shardIndex,
+                                     int shardCount) {
+        List<SheetRow> sheetRows = new ArrayList<>();
+        List<TestCaseExecuter.TestCase> testCases = new ArrayList<>();
+        while (rows.hasNext()) {
+            SheetRow row = rows.next();
+            sheetRows.add(row);
+            testCases.add(TestCaseExecuter.TestCase.from(row, workbook, sheetName));
+        }
+
+        ScenarioGraph graph = ScenarioGraph.build(sheetName, testCases);
+        List<List<TestCaseExecuter.TestCase>> chains = chainsOfShard(sheetName, graph, shardIndex, shardCount);
+        Set<Integer> selected = new HashSet<>();
+        for (List<TestCaseExecuter.TestCase> chain : chains) {
+            for (TestCaseExecuter.TestCase testCase : chain) {
+                selected.add(testCase.getRow());
+            }
+        }
+
+        List<SheetRow> shardRows = new ArrayList<>(selected.size());
+        for (SheetRow row : sheetRows) {
+            if (selected.contains(row.getRowIndex())) {
+                shardRows.add(row);
+            }
+        }
+        System.out.println("Shard " + shardIndex + " of " + shardCount + " runs " + shardRows.size() + " of "
+                + sheetRows.size() + " row(s) of sheet '" + sheetName + "' (" + chains.size() + " of "
+                + graph.getChainCount() + " chain(s))");
+        return shardRows.iterator();
+    }
+
+    /**
+     * The chains of the graph that belong to the shard.
+     */
+    static List<List<TestCaseExecuter.TestCase>> chainsOfShard(String sheetName, ScenarioGraph graph, int shardIndex,
+                                                              int shardCount) {
+        List<List<TestCaseExecuter.TestCase>> chains = new ArrayList<>();
+        for (List<TestCaseExecuter.TestCase> chain : graph.getChains()) {
+            if (shardOf(sheetName, chain, shardCount) == shardIndex) {
+                chains.add(chain);
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * The shard a chain goes to: the sheet's stateful shard when one of its rows touches shared
+     * state, otherwise the one of its first row.
+     */
+    static int shardOf(String sheetName, List<TestCaseExecuter.TestCase> chain, int shardCount) {
+        for (TestCaseExecuter.TestCase testCase : chain) {
+            if (ScenarioGraph.touchesState(testCase)) {
+                return crc32(sheetName) % shardCount;
+            }
+        }
+        return shardOf(sheetName, chain.get(0), shardCount);
+    }
+
+    /**
+     * The shard a read-only chain goes to, keyed by its first row.
+     */
+    static int shardOf(String sheetName, TestCaseExecuter.TestCase first, int shardCount) {
+        return crc32(ScenarioGraph.rowKey(sheetName, first)) % shardCount;
+    }
+
+    private static int crc32(String key) {
+        CRC32 crc = new CRC32();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() & Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,99 @@
+package controllers;
+
+import Utils.SheetRow;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splitting the rows of a sheet over shards.
+ */
+public class ShardSelectorTest {
+
+    private static final int SHARDS = 3;
+
+    @Test
+    public void everyRowRunsInExactlyOneShard() {
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows(), null, true);
+        Set<Integer> seen = new HashSet<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (Integer row : rowsOf(ShardSelector.chainsOfShard("Plan", graph, shard, SHARDS))) {
+                Assert.assertTrue(seen.add(row), "row " + row + " is in two shards");
+            }
+        }
+        Assert.assertEquals(seen.size(), rows().size());
+    }
+
+    @Test
+    public void rowsThatTouchStateShareOneShard() {
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows(), null, true);
+        Set<Integer> stateful = Set.of(1, 2, 3, 4, 5);
+        int statefulShard = -1;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Set<Integer> rows = rowsOf(ShardSelector.chainsOfShard("Plan", graph, shard, SHARDS));
+            if (rows.stream().anyMatch(stateful::contains)) {
+                Assert.assertEquals(statefulShard, -1, "stateful rows are in shards " + statefulShard + " and " + shard);
+                Assert.assertTrue(rows.containsAll(stateful));
+                statefulShard = shard;
+            }
+        }
+        Assert.assertNotEquals(statefulShard, -1);
+    }
+
+    @Test
+    public void aSerialSheetRunsInOneShard() {
+        ScenarioGraph graph = ScenarioGraph.build("Plan", rows(), null, false);
+        int shards = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (!ShardSelector.chainsOfShard("Plan", graph, shard, SHARDS).isEmpty()) {
+                shards++;
+            }
+        }
+        Assert.assertEquals(shards, 1);
+    }
+
+    @Test
+    public void touchingStateIsSimulatingWritingOrMutating() {
+        Assert.assertTrue(ScenarioGraph.touchesState(row(1, "getVehicleStatus", "IGNITION_ON", "query { status }")));
+        Assert.assertTrue(ScenarioGraph.touchesState(row(2, "addUser", "NA", "mutation { addUser }")));
+        Assert.assertTrue(ScenarioGraph.touchesState(row(3, "updateTheme", "NA", " mutation { updateTheme }")));
+        Assert.assertFalse(ScenarioGraph.touchesState(row(4, "getProfile", "NA", "query { profile }")));
+    }
+
+    /**
+     * Rows 1 to 5 touch state: two independent chains and two lone mutations. Rows 6 to 11 only
+     * read, each on its own.
+     */
+    private static List<TestCaseExecuter.TestCase> rows() {
+        return List.of(
+                row(1, "addUser", "NA", "mutation { addUser }"),
+                row(2, "offBoardUser", "NA", "mutation { offBoardUser }"),
+                row(3, "setGeofence", "NA", "mutation { setGeofence }"),
+                row(4, "updateTheme", "NA", "mutation { updateTheme }"),
+                row(5, "updateUnits", "NA", "mutation { updateUnits }"),
+                row(6, "getProfile", "NA", "query { profile }"),
+                row(7, "getTripList", "NA", "query { trips }"),
+                row(8, "getDealers", "NA", "query { dealers }"),
+                row(9, "getFaq", "NA", "{ faq }"),
+                row(10, "getOffers", "NA", "query { offers }"),
+                row(11, "getBanners", "NA", "query { banners }"));
+    }
+
+    private static Set<Integer> rowsOf(List<List<TestCaseExecuter.TestCase>> chains) {
+        Set<Integer> rows = new HashSet<>();
+        for (List<TestCaseExecuter.TestCase> chain : chains) {
+            for (TestCaseExecuter.TestCase testCase : chain) {
+                rows.add(testCase.getRow());
+            }
+        }
+        return rows;
+    }
+
+    private static TestCaseExecuter.TestCase row(int row, String apiName, String simulation, String request) {
+        String[] cells = { "TC_" + row, apiName, simulation, "", request, "NA", "{\"status\":200}", apiName, "NA" };
+        return TestCaseExecuter.TestCase.from(new SheetRow(row, cells), "plan.xlsx", "Plan");
+    }
+}
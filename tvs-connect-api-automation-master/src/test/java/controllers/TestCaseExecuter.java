@@ -1,17 +1,26 @@
 package controllers;
 
 import configuration.BaseClassTest;
+import configuration.CircuitBreaker;
+import configuration.ExecutionContext;
+import configuration.HttpTransport;
+import configuration.PhaseTimer;
+import configuration.PhaseTimer.Phase;
+import configuration.RunOptions;
+import configuration.TestConfig;
 import Utils.*;
 
+import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.markuputils.Markup;
 import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.Reporter;
+import org.testng.SkipException;
 import configuration.SimulatorDispatcher;
 import java.io.IOException;
 import org.testng.annotations.*;
@@ -24,56 +33,184 @@ import controllers.graphqlRequestFormatters.*;
 import controllers.validators.LiveLocationValidator;
 import controllers.validators.StatusCodeAndStatusMsgValidator;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Main test class to run API validation using TestNG.
  */
 public class TestCaseExecuter extends BaseClassTest {
-    static JSONObject json = new JSONObject();
 
     /**
-     * Inner class representing a single test case fetched from Excel.
+     * Immutable snapshot of a single test case, built once from its Excel row.
+     * Every column is read once and every JSON column is parsed once when the
+     * data provider loads the plan, so the test itself does no Excel I/O.
      */
-    static class TestCase {
-        private final int row;
-        private String rawExpectedStatusCode; // Store raw string before parsing
-        private String simulationValue;
+    static final class TestCase {
+        private static final Pattern VIN_PATTERN = Pattern.compile("vin\\s*:\\s*\"([^\"]+)\"");
 
-        public TestCase(int row) {
+        private final int row;
+        private final String id;
+        private final String apiName;
+        private final String simulationValue;
+        private final String request;
+        private final String expectedStatusCode;
+        private final String name;
+        private final JsonNode expectedJson;
+        private final String expected;
+        private final JSONObject expectedStatusObj;
+        private final JsonNode validationObject;
+        private final JSONParsingException jsonError; // first invalid JSON column, reported by the test
+        private final String contentHash;
+        private final long readNanos; // time spent reading the row's cells
+        private final long parseNanos; // time spent parsing and checking its JSON columns
+
+        private TestCase(int row, String id, String apiName, String simulationValue, String request,
+                         String expectedStatusCode, String name, JsonNode expectedJson, JSONObject expectedStatusObj,
+                         JsonNode validationObject, JSONParsingException jsonError, String contentHash,
+                         long readNanos, long parseNanos) {
             this.row = row;
+            this.id = id;
+            this.apiName = apiName;
+            this.simulationValue = simulationValue;
+            this.request = request;
+            this.expectedStatusCode = expectedStatusCode;
+            this.name = name;
+            this.expectedJson = expectedJson;
+            this.expected = expectedJson != null ? expectedJson.toString() : null;
+            this.expectedStatusObj = expectedStatusObj;
+            this.validationObject = validationObject;
+            this.jsonError = jsonError;
+            this.contentHash = contentHash;
+            this.readNanos = readNanos;
+            this.parseNanos = parseNanos;
+        }
+
+        /**
+         * Builds the snapshot for one sheet row. Invalid JSON does not abort loading
+         * the plan; it is kept and reported when the test case runs.
+         */
+        static TestCase from(SheetRow cells, String workbook, String sheetName) {
+            return from(cells, workbook, sheetName, 0);
+        }
+
+        /**
+         * Reads the next row from the plan and builds its snapshot, timing both.
+         */
+        static TestCase read(Iterator<SheetRow> rows, String workbook, String sheetName) {
+            long started = System.nanoTime();
+            SheetRow cells = rows.next();
+            return from(cells, workbook, sheetName, System.nanoTime() - started);
+        }
+
+        private static TestCase from(SheetRow cells, String workbook, String sheetName, long fetchNanos) {
+            long started = System.nanoTime();
+            int row = cells.getRowIndex();
+            JSONParsingException jsonError = null;
+
+            JsonNode expectedJson = null;
+            try {
+                expectedJson = parseObjectColumn(cells.get(5), cells.getJson(5), workbook, sheetName, row, 5, "Expected");
+            } catch (JSONParsingException e) {
+                jsonError = e;
+            }
+
+            String rawStatus = cells.get(6);
+            JSONObject expectedStatusObj = new JSONObject();
+            try {
+                expectedStatusObj = safeParseJSONObject(rawStatus, 6, row);
+            } catch (JSONParsingException e) {
+                if (jsonError == null) jsonError = e;
+            }
+
+            JsonNode validationObject = null;
+            try {
+                validationObject = parseObjectColumn(cells.get(8), cells.getJson(8), workbook, sheetName, row, 8, "ValidationObject");
+            } catch (JSONParsingException e) {
+                if (jsonError == null) jsonError = e;
+            }
+            long parseNanos = System.nanoTime() - started;
+
+            String contentHash = hashOf(cells);
+            return new TestCase(row, cells.get(0), cells.get(1), cells.get(2), cells.get(4), rawStatus,
+                    cells.get(7), expectedJson, expectedStatusObj, validationObject, jsonError, contentHash,
+                    fetchNanos + System.nanoTime() - started - parseNanos, parseNanos);
+        }
+
+        /**
+         * SHA-256 of the columns that decide what a row does: API name, simulation, request,
+         * expected response, expected status, method name and validation rules.
+         */
+        private static String hashOf(SheetRow cells) {
+            try {
+                java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+                for (int column : new int[] { 1, 2, 4, 5, 6, 7, 8 }) {
+                    digest.update(cells.getOrEmpty(column).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                return java.util.HexFormat.of().formatHex(digest.digest());
+            } catch (java.security.NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
         }
 
-        // Methods to fetch data from Excel for a given row
-        public String getId() throws IOException {
-            id = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 0);
+        /**
+         * Parses a JSON column that must hold either an object or "NA".
+         * Uses the tree from the compiled plan when the row carries one.
+         */
+        private static JsonNode parseObjectColumn(String raw, JsonNode preParsed, String workbook, String sheetName,
+                                                  int row, int column, String field) throws JSONParsingException {
+            JsonNode node;
+            try {
+                node = preParsed != null ? preParsed : ExcelCommunicator.parseJsonCell(raw, workbook, sheetName, row, column);
+            } catch (Exception e) {
+                throw new JSONParsingException("Invalid JSON format in " + field + " field: " + e.getMessage(),
+                        column, row, raw);
+            }
+            if (shouldValidateJSON(node.toString()) && !node.isObject()) {
+                throw new JSONParsingException("Invalid JSON format in " + field
+                        + " field: A JSONObject text must begin with '{'", column, row, raw);
+            }
+            return node;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getId() {
             return id;
         }
 
-        public String getName() throws IOException {
-            name = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 7).toString();
+        public String getName() {
             return name;
         }
 
-        public String getRequest() throws IOException {
-            request = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 4).toString();
+        public String getRequest() {
             return request;
         }
 
+        /** Hash of the row's content, to tell whether it changed since it last ran. */
+        public String getContentHash() {
+            return contentHash;
+        }
+
         /**
          * Helper method to modify the request with dynamic timestamp values and
          * API-specific values if needed
          */
-        public String getModifiedRequest() throws IOException {
-            String originalRequest = getRequest();
-
-            // Get API name for dynamic field updates
-            String apiName = getApiName();
-
+        public String getModifiedRequest() {
             // Process the request with all formatting using enhanced
             // GraphQLRequestFormatter
-            String modifiedRequest = GraphQLRequestFormatter.processRequest(originalRequest, apiName);
+            long started = System.nanoTime();
+            String modifiedRequest = GraphQLRequestFormatter.processRequest(request, apiName);
+            ExecutionContext.current().getPhaseTimer().since(Phase.REQUEST_FORMATTING, started);
 
             System.out.println("Modified request: " + modifiedRequest);
 
@@ -83,10 +220,11 @@ public class TestCaseExecuter extends BaseClassTest {
         /**
          * Extracts VIN value from GraphQL request
          */
-        public String extractVinFromRequest() throws IOException {
-            String request = getRequest();
-            Pattern vinPattern = Pattern.compile("vin\\s*:\\s*\"([^\"]+)\"");
-            Matcher matcher = vinPattern.matcher(request);
+        public String extractVinFromRequest() {
+            if (request == null) {
+                return null;
+            }
+            Matcher matcher = VIN_PATTERN.matcher(request);
 
             if (matcher.find()) {
                 return matcher.group(1);
@@ -95,54 +233,36 @@ public class TestCaseExecuter extends BaseClassTest {
             return null; // Or throw an exception / warning
         }
 
-        public JsonNode getExpectedJson() throws IOException {
-            return ExcelCommunicator.getJsonFromExcel(ExcelFilePath, model, row, 5);
+        public JsonNode getExpectedJson() {
+            return expectedJson;
         }
 
-        public String getExpected() throws IOException {
-            expected = getExpectedJson().toString();
+        public String getExpected() {
             return expected;
         }
 
-        // Removed JSON parsing from here - will be handled in test class
-        public String getRawExpected() throws IOException {
-            return getExpected();
-        }
-
-        public String getExpectedStatusCode() throws IOException {
-            // Get the raw string from Excel
-            rawExpectedStatusCode = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 6);
-            expectedStatusCode = rawExpectedStatusCode;
+        public String getExpectedStatusCode() {
             return expectedStatusCode;
         }
 
-        // Removed JSON parsing from here - will be handled in test class
-        public String getRawExpectedStatusCodeString() throws IOException {
-            getExpectedStatusCode(); // sets rawExpectedStatusCode
-            return expectedStatusCode;
+        public JSONObject getExpectedStatusObj() {
+            return expectedStatusObj;
         }
 
-        public String getApiName() throws IOException {
-            apiName = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 1);
+        public String getApiName() {
             return apiName;
         }
 
-        public JsonNode getValidationObject() throws IOException {
-            validationObject = ExcelCommunicator.getJsonFromExcel(ExcelFilePath, model, row, 8);
+        public JsonNode getValidationObject() {
             return validationObject;
         }
 
-        // Removed JSON parsing from here - will be handled in test class
-        public String getRawValidationObject() throws IOException {
-            JsonNode node = getValidationObject();
-            if (node == null || node.toString().trim().isEmpty()) return null;
-            return node.toString();
+        public String getSimulationValue() {
+            return simulationValue;
         }
 
-        // Add this method to get simulation value
-        public String getSimulationValue() throws IOException {
-            simulationValue = ExcelCommunicator.getDataFromExcel(ExcelFilePath, model, row, 2);
-            return simulationValue;
+        public JSONParsingException getJsonError() {
+            return jsonError;
         }
     }
 
@@ -177,72 +297,14 @@ public class TestCaseExecuter extends BaseClassTest {
 
     /**
      * Centralized JSON validation method for all columns
-     * Skips validation if column value is "NA" (case-insensitive)
+     * The columns were parsed when the test case was loaded; this reports the first invalid one.
+     * Columns holding "NA" (case-insensitive) are not validated.
      */
     private static void validateAllJSONFields(TestCase testCase) throws JSONParsingException {
-        try {
-            // Validate Column 5: Expected Response
-            try {
-                String rawExpected = testCase.getRawExpected();
-                if (shouldValidateJSON(rawExpected)) {
-                    new JSONObject(rawExpected);
-                    System.out.println("✓ Column 5 (Expected) - JSON validation passed for row " + testCase.row);
-                } else {
-                    System.out.println("⚠ Column 5 (Expected) - Skipping JSON validation (value: " + rawExpected + ") for row " + testCase.row);
-                }
-            } catch (JSONException | IOException e) {
-                String rawValue = null;
-                try {
-                    rawValue = testCase.getRawExpected();
-                } catch (IOException ignored) {}
-                throw new JSONParsingException("Invalid JSON format in Expected field: " + e.getMessage(),
-                        5, testCase.row, rawValue);
-            }
-
-            // Validate Column 6: Expected Status Code
-            try {
-                String rawStatusCode = testCase.getRawExpectedStatusCodeString();
-                if (shouldValidateJSON(rawStatusCode)) {
-                    new JSONObject(rawStatusCode);
-                    System.out.println("✓ Column 6 (ExpectedStatusCode) - JSON validation passed for row " + testCase.row);
-                } else {
-                    System.out.println("⚠ Column 6 (ExpectedStatusCode) - Skipping JSON validation (value: " + rawStatusCode + ") for row " + testCase.row);
-                }
-            } catch (JSONException | IOException e) {
-                String rawValue = null;
-                try {
-                    rawValue = testCase.getRawExpectedStatusCodeString();
-                } catch (IOException ignored) {}
-                throw new JSONParsingException("Invalid JSON format in ExpectedStatusCode field: " + e.getMessage(),
-                        6, testCase.row, rawValue);
-            }
-
-            // Validate Column 8: Validation Object
-            try {
-                String rawValidation = testCase.getRawValidationObject();
-                if (shouldValidateJSON(rawValidation)) {
-                    new JSONObject(rawValidation);
-                    System.out.println("✓ Column 8 (ValidationObject) - JSON validation passed for row " + testCase.row);
-                } else {
-                    System.out.println("⚠ Column 8 (ValidationObject) - Skipping JSON validation (value: " + rawValidation + ") for row " + testCase.row);
-                }
-            } catch (JSONException | IOException e) {
-                String rawValue = null;
-                try {
-                    rawValue = testCase.getRawValidationObject();
-                } catch (IOException ignored) {}
-                throw new JSONParsingException("Invalid JSON format in ValidationObject field: " + e.getMessage(),
-                        8, testCase.row, rawValue);
-            }
-
-        } catch (JSONParsingException e) {
-            // Re-throw our custom exception
-            throw e;
-        } catch (Exception e) {
-            // Handle any other unexpected exceptions
-            throw new JSONParsingException("Unexpected error during JSON validation: " + e.getMessage(),
-                    -1, testCase.row, "Unknown");
+        if (testCase.getJsonError() != null) {
+            throw testCase.getJsonError();
         }
+        System.out.println("✓ Columns 5, 6 and 8 - JSON validation passed for row " + testCase.row);
     }
 
     /**
@@ -283,39 +345,297 @@ public class TestCaseExecuter extends BaseClassTest {
 
 
     /**
-     * This method will Perform HTTP POST with the appropriate token
+     * This method will Perform HTTP POST with the appropriate token.
+     * The call goes through the endpoint's circuit breaker: an HTTP 5xx or a connection error
+     * counts against the backend. The request goes over the transport of the run: pooled
+     * HTTP/1.1 connections, or HTTP/2 streams with "http.transport" = http2. The URL and token
+     * are the ones of the row's block, passed in by the row.
      */
-    public static Response RequestMethod(String body, String apiName)
+    public static Response RequestMethod(String body, String apiName, TestConfig config)
             throws IOException {
 
-        String graphqlBody = json.put("query", body).toString();
+        String graphqlBody = new JSONObject().put("query", body).toString();
+        PhaseTimer timings = ExecutionContext.current().getPhaseTimer();
 
         // Log request body
+        long started = System.nanoTime();
         Markup markup = MarkupHelper.createCodeBlock("Request Body: " + graphqlBody);
-        test.info(markup);
+        ExecutionContext.test().info(markup);
+        timings.since(Phase.REPORT_LOGGING, started);
 
-        System.out.println("authToken: " + authToken);
+        System.out.println("authToken: " + config.getAuthToken());
         // Perform HTTP POST with the appropriate token
-        Response response = RestAssured.given()
-                .contentType("application/json")
-                .header("Authorization", "Bearer " + authToken)
-                .body(graphqlBody)
-                .post(instanceE);
-        return response;
+        started = System.nanoTime();
+        try {
+            return CircuitBreaker.forBackend("GraphQL " + config.getBaseUrl()).call(
+                    () -> HttpTransport.postGraphQL(config.getBaseUrl(), config.getAuthToken(), graphqlBody),
+                    r -> r.getStatusCode() >= 500 ? "HTTP " + r.getStatusCode() : null);
+        } finally {
+            timings.since(Phase.HTTP, started);
+        }
+    }
+
+    /**
+     * Non-blocking {@link #RequestMethod}: the future completes with the response on the HTTP
+     * client's thread, and the calling thread is free while the request is in flight. Goes
+     * through the endpoint's circuit breaker like the blocking call. Everything the callbacks
+     * need is taken from the row before the request is sent: they run on the HTTP client's or
+     * the batcher's threads, which know no row or block.
+     */
+    public static CompletableFuture<Response> RequestMethodAsync(String body, String apiName, TestConfig config) {
+        String graphqlBody = new JSONObject().put("query", body).toString();
+        PhaseTimer timings = ExecutionContext.current().getPhaseTimer();
+
+        // Log request body
+        long started = System.nanoTime();
+        Markup markup = MarkupHelper.createCodeBlock("Request Body: " + graphqlBody);
+        ExecutionContext.test().info(markup);
+        timings.since(Phase.REPORT_LOGGING, started);
+
+        long sent = System.nanoTime();
+        return CircuitBreaker.forBackend("GraphQL " + config.getBaseUrl()).callAsync(
+                        () -> HttpTransport.postGraphQLAsync(config.getBaseUrl(), config.getAuthToken(), graphqlBody),
+                        r -> r.getStatusCode() >= 500 ? "HTTP " + r.getStatusCode() : null)
+                .whenComplete((response, failure) -> timings.since(Phase.HTTP, sent));
     }
 
     /**
-     * Provides test case data from Excel to the test method.
+     * Provides test case data to the test method, one row at a time.
+     * Rows come from the plan source (the workbook's compiled plan by default, or the CSV /
+     * JSON Lines plan set with "plan.source") and are turned into test cases only when TestNG
+     * asks for the next one, so the first scenario starts while later rows are still loading.
+     * The sheet and workbook are the ones of the &lt;test&gt; block the provider runs for.
+     * With "shard.count" above 1 only the dependency chains of this JVM's shard are run, and with
+     * "selection.mode" only the rows that changed or failed since their last run (see ChangeSelector).
+     * Only the serial path streams: sharding and selection need the whole sheet to build its
+     * dependency graph, and so do the schedules of scheduleTestCases and the virtual thread
+     * executor, so those read every row before the first one runs.
      */
     @DataProvider(name = "testCasesProvider")
-    public Object[][] getTestCases() throws IOException {
-        int totalTestCases = ExcelCommunicator.getLastRow(ExcelFilePath, model);
-        Object[][] data = new Object[totalTestCases][1];
+    public Iterator<Object[]> getTestCases(ITestContext testContext) throws IOException {
+        TestConfig config = TestConfig.of(testContext);
+        // The thread may still hold the context of another block's last row
+        ExecutionContext.begin().setConfig(config);
+        String sheetName = config.getModel();
+        TestCaseSource source = TestCaseSources.open(RunOptions.getPlanSource(config.getExcelFilePath()), sheetName);
+        Iterator<SheetRow> rows = source.dataRowIterator();
+        if (RunOptions.isSharded()) {
+            rows = ShardSelector.select(rows, config.getExcelFilePath(), sheetName, RunOptions.getShardIndex(), RunOptions.getShardCount());
+        }
+        if (ChangeSelector.isEnabled()) {
+            rows = ChangeSelector.select(rows, config.getExcelFilePath(), sheetName, rowHistory(config.getExcelFilePath()));
+        }
+        if (RunOptions.isResume()) {
+            rows = new ResumingRowIterator(rows, config, scenarioJournal(config.getExcelFilePath()));
+        }
+        if (virtualScenarioThreads()) {
+            return startOnVirtualThreads(rows, config);
+        }
+        if (scenarioThreads() > 1 || RunOptions.isHistoryOrder()) {
+            return scheduleTestCases(rows, config);
+        }
 
-        for (int i = 0; i < totalTestCases; i++) {
-            data[i][0] = new TestCase(i + 1);
+        Iterator<SheetRow> dataRows = rows;
+        return new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return dataRows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                return new Object[] { TestCase.read(dataRows, config.getExcelFilePath(), sheetName) };
+            }
+        };
+    }
+
+    // Dependency graphs of the blocks whose rows TestNG runs in schedule order, by <test> name
+    private static final Map<String, ScenarioGraph> scenarioGraphs = new ConcurrentHashMap<>();
+    // Blocks whose rows run on threads of their own, by <test> name
+    private static final Map<String, ScenarioExecutor> scenarioExecutors = new ConcurrentHashMap<>();
+
+    /**
+     * Loads all rows of the sheet and orders them by their dependency graph. With
+     * "scenario.threads" above 1 the rows are started on a pool of that many threads, so
+     * independent chains of rows run side by side; otherwise TestNG runs them one by one in the
+     * order of the graph.
+     */
+    private Iterator<Object[]> scheduleTestCases(Iterator<SheetRow> rows, TestConfig config) {
+        List<TestCase> testCases = loadTestCases(rows, config);
+        ScenarioGraph graph = buildGraph(testCases, config);
+        int threads = scenarioThreads();
+        if (threads == 1) {
+            scenarioGraphs.put(config.getTestName(), graph);
+            return toData(graph.getScheduleOrder());
+        }
+        scenarioExecutors.put(config.getTestName(), ScenarioExecutor.startOnPool(config, graph, threads,
+                (testCase, context) -> runScenario(testCase, context, config, graph)));
+        return toData(testCases);
+    }
+
+    /**
+     * Starts every row of the sheet on a virtual thread right away, in the order of its
+     * dependency graph and with at most "scenario.concurrency" rows running at a time.
+     * TestNG then reports the rows in sheet order as their outcomes come in.
+     */
+    private Iterator<Object[]> startOnVirtualThreads(Iterator<SheetRow> rows, TestConfig config) {
+        String sheetName = config.getModel();
+        List<TestCase> testCases = loadTestCases(rows, config);
+        ScenarioGraph graph = buildGraph(testCases, config);
+        int maxConcurrent = RunOptions.getInt("scenario.concurrency", 200);
+        scenarioExecutors.put(config.getTestName(), ScenarioExecutor.startOnVirtualThreads(config, graph,
+                maxConcurrent, scenarioWaitSeconds(), (testCase, context) -> runScenario(testCase, context, config, graph)));
+        System.out.println("Running rows of sheet '" + sheetName + "' on virtual threads, at most "
+                + maxConcurrent + " at a time");
+        return toData(testCases);
+    }
+
+    private static List<TestCase> loadTestCases(Iterator<SheetRow> rows, TestConfig config) {
+        List<TestCase> testCases = new ArrayList<>();
+        while (rows.hasNext()) {
+            testCases.add(TestCase.read(rows, config.getExcelFilePath(), config.getModel()));
+        }
+        // Every row needs the resumed values before the first one starts
+        restoreResumeState(config);
+        return testCases;
+    }
+
+    private static ScenarioGraph buildGraph(List<TestCase> testCases, TestConfig config) {
+        String sheetName = config.getModel();
+        ScenarioGraph graph = ScenarioGraph.build(sheetName, testCases, rowHistory(config.getExcelFilePath()));
+        System.out.println("Scheduled " + graph.size() + " row(s) of sheet '" + sheetName + "' as "
+                + graph.getChainCount() + " independent chain(s), longest chain " + graph.getCriticalPathLength()
+                + " row(s) / ~" + graph.getCriticalPathMillis() / 1000 + " s, " + graph.getFlakyCount() + " flaky row(s) first");
+        return graph;
+    }
+
+    private static Iterator<Object[]> toData(List<TestCase> testCases) {
+        List<Object[]> data = new ArrayList<>(testCases.size());
+        for (TestCase testCase : testCases) {
+            data.add(new Object[] { testCase });
+        }
+        return data.iterator();
+    }
+
+    private static long scenarioWaitSeconds() {
+        return RunOptions.getInt("scenario.wait.seconds", 900);
+    }
+
+    // Dynamic state recorded with the last finished row, restored before the first resumed row, by <test> name
+    private static final Map<String, String> resumeState = new ConcurrentHashMap<>();
+
+    /**
+     * Skips the rows the result journal already has a PASS or FAIL for. When the first
+     * remaining row is reached, the dynamic values recorded with the finished row before it
+     * are queued for restoring, so later rows still see the ids their producers created.
+     */
+    private static class ResumingRowIterator implements Iterator<SheetRow> {
+        private final Iterator<SheetRow> rows;
+        private final TestConfig config;
+        private final String sheetName;
+        private final ResultJournal journal;
+        private SheetRow next;
+        private String lastFinishedKey;
+        private boolean reachedRemaining;
+        private boolean reported;
+        private int skipped;
+
+        ResumingRowIterator(Iterator<SheetRow> rows, TestConfig config, ResultJournal journal) {
+            this.rows = rows;
+            this.config = config;
+            this.sheetName = config.getModel();
+            this.journal = journal;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && rows.hasNext()) {
+                SheetRow row = rows.next();
+                String key = journalKey(config, row.getRowIndex());
+                if (!journal.isFinished(key)) {
+                    next = row;
+                } else {
+                    skipped++;
+                    if (!reachedRemaining) {
+                        lastFinishedKey = key;
+                    }
+                }
+            }
+            if (next != null && !reachedRemaining) {
+                reachedRemaining = true;
+                queueResumeState();
+            }
+            if (next == null && !reported) {
+                reported = true;
+                System.out.println("Resuming sheet '" + sheetName + "': " + skipped + " finished row(s) skipped");
+            }
+            return next != null;
+        }
+
+        @Override
+        public SheetRow next() {
+            if (!hasNext()) {
+                throw new java.util.NoSuchElementException();
+            }
+            SheetRow row = next;
+            next = null;
+            return row;
+        }
+
+        private void queueResumeState() {
+            if (lastFinishedKey == null) {
+                return;
+            }
+            try {
+                ResultJournal.Entry last = journal.get(lastFinishedKey);
+                if (last != null && last.get("state") != null) {
+                    resumeState.put(config.getTestName(), last.get("state"));
+                }
+            } catch (IOException e) {
+                System.err.println("Could not read the resume state of " + lastFinishedKey + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Key of a row in the journal. Blocks running the same sheet of the workbook (e.g. for two
+     * VINs) share the journal, so the key starts with the &lt;test&gt; name.
+     */
+    private static String journalKey(TestConfig config, int row) {
+        return config.getTestName() + "/" + config.getModel() + "!" + row;
+    }
+
+    /**
+     * Snapshot of the values that rows hand on to later rows, as JSON.
+     */
+    private static String captureState(TestConfig config) {
+        com.fasterxml.jackson.databind.node.ObjectNode state = JsonSupport.mapper().createObjectNode();
+        state.set("dynamicValues", JsonSupport.mapper().valueToTree(config.getDynamicValues()));
+        Object seqNo = DynamicContext.get("seqNo");
+        if (seqNo instanceof Integer) {
+            state.put("seqNo", (Integer) seqNo);
+        }
+        Object timeFence = DynamicContext.get("storedTimeFenceDetails");
+        if (timeFence instanceof JsonNode) {
+            state.set("storedTimeFenceDetails", (JsonNode) timeFence);
+        }
+        return state.toString();
+    }
+
+    private static void restoreState(TestConfig config, String json) throws IOException {
+        JsonNode state = JsonSupport.readTree(json);
+        state.path("dynamicValues").fields().forEachRemaining(entry -> {
+            JsonNode value = entry.getValue();
+            // sharing_timestamp is the only numeric value and is read back as a Long
+            config.getDynamicValues().put(entry.getKey(),
+                    value.isIntegralNumber() ? (Object) value.asLong() : value.asText());
+        });
+        if (state.has("seqNo")) {
+            DynamicContext.set("seqNo", state.get("seqNo").asInt());
+        }
+        if (state.has("storedTimeFenceDetails")) {
+            DynamicContext.set("storedTimeFenceDetails", state.get("storedTimeFenceDetails"));
         }
-        return data;
     }
 
     /**
@@ -331,33 +651,84 @@ public class TestCaseExecuter extends BaseClassTest {
             public final JSONObject expectedStatusObj;
             public final String apiName;
             public final Map<String, Object> dynamicValues;
+            public final JsonNode actualJson; // parsed by the async pipeline, null otherwise
 
             public RequestResult(Response response, String responseRootPath, JSONObject expectedStatusObj,
                                  String apiName) {
+                this(response, responseRootPath, expectedStatusObj, apiName, null);
+            }
+
+            RequestResult(Response response, String responseRootPath, JSONObject expectedStatusObj, String apiName,
+                          JsonNode actualJson) {
                 this.response = response;
                 this.responseRootPath = responseRootPath;
                 this.expectedStatusObj = expectedStatusObj;
                 this.apiName = apiName;
                 this.dynamicValues = new HashMap<>();
+                this.actualJson = actualJson;
             }
         }
 
         /**
          * Builds request from test case details, performs request, and returns result.
          */
-        public static RequestResult buildAndExecuteRequest(TestCase testCase, String apiName) throws Exception {
+        public static RequestResult buildAndExecuteRequest(TestCase testCase, String apiName, TestConfig config)
+                throws Exception {
+            String responseRootPath = resolveResponseRootPath(testCase, apiName);
+
+            // Make the actual HTTP request, passing the current time for timestamp
+            // validation
+            // Also pass the apiName for token selection
+            Response response = TestCaseExecuter.RequestMethod(
+                    testCase.getModifiedRequest(), apiName, config); // Pass apiName to RequestMethod
+
+            return new RequestResult(response, responseRootPath, testCase.getExpectedStatusObj(), apiName);
+        }
+
+        /**
+         * Same as {@link #buildAndExecuteRequest} without holding the thread during the round trip:
+         * the request is formatted on the calling thread, sent with {@link #RequestMethodAsync}, and
+         * the response body is parsed on the HTTP client's thread once it arrives. The result still
+         * has to be validated on the row's thread, where its report node and SoftAssert live, so the
+         * row waits for it there: only a virtual thread gives its carrier back while it waits.
+         */
+        public static CompletableFuture<RequestResult> buildAndExecuteRequestAsync(TestCase testCase, String apiName,
+                                                                               TestConfig config) throws Exception {
+            String responseRootPath = resolveResponseRootPath(testCase, apiName);
+            JSONObject expectedStatus = testCase.getExpectedStatusObj();
+            PhaseTimer timings = ExecutionContext.current().getPhaseTimer();
+
+            return TestCaseExecuter.RequestMethodAsync(testCase.getModifiedRequest(), apiName, config)
+                    .thenApply(response -> {
+                        long started = System.nanoTime();
+                        JsonNode actualJson = null;
+                        try {
+                            actualJson = JsonSupport.readTree(response.asString());
+                        } catch (Exception e) {
+                            // Left to the row, which reports the invalid body
+                        }
+                        timings.since(Phase.RESPONSE_PARSING, started);
+                        return new RequestResult(response, responseRootPath, expectedStatus, apiName, actualJson);
+                    });
+        }
+
+        /**
+         * Where the section of the response to validate starts, from the expected response and the
+         * responseRootPath of the expected status.
+         */
+        private static String resolveResponseRootPath(TestCase testCase, String apiName) throws Exception {
             String expectedStatusCode = testCase.getExpectedStatusCode();
             System.out.println("Expected Status Code: " + expectedStatusCode);
 
-            // Use safe parsing methods
-            JSONObject expectedStatus = safeParseJSONObject(expectedStatusCode, 6, testCase.row);
-            JSONObject expectedObj = safeParseJSONObject(expected, 5, testCase.row);
+            // Both columns were parsed when the test case was loaded
+            JSONObject expectedStatus = testCase.getExpectedStatusObj();
+            JsonNode expectedObj = testCase.getExpectedJson();
 
             String responseRootPath;
             String responsedataPath = "";
 
             try {
-                if (apiName != null && expectedObj.has("data") && expectedObj.getJSONObject("data").has(apiName)) {
+                if (apiName != null && expectedObj.has("data") && expectedObj.get("data").has(apiName)) {
                     responsedataPath = "data." + apiName;
                 } else if (apiName != null && expectedObj.has(apiName)) {
                     responsedataPath = apiName;
@@ -388,18 +759,12 @@ public class TestCaseExecuter extends BaseClassTest {
                 throw new JSONException(errorMsg);
             }
 
-            // Get expected data and validation rules from Excel
-            JsonNode expectedJson = testCase.getExpectedJson();
-            JsonNode validationObject = testCase.getValidationObject();
-            System.out.println("Validation Object: " + validationObject);
-
-            // Make the actual HTTP request, passing the current time for timestamp
-            // validation
-            // Also pass the apiName for token selection
-            Response response = TestCaseExecuter.RequestMethod(
-                    testCase.getModifiedRequest(), apiName); // Pass apiName to RequestMethod
+            System.out.println("Validation Object: " + testCase.getValidationObject());
 
-            return new RequestResult(response, responseRootPath, expectedStatus, apiName);
+            if (testCase.getRequest() == null) {
+                throw new IOException("Cell at row " + testCase.row + ", column 4 (Request) is empty.");
+            }
+            return responseRootPath;
         }
     }
 
@@ -408,32 +773,173 @@ public class TestCaseExecuter extends BaseClassTest {
      */
     @Test(dataProvider = "testCasesProvider")
     public void runAllScenario(TestCase testCase) {
-        // Initialize a new SoftAssert for each test case to avoid state carrying over
-        softAssert = new SoftAssert();
-        // Clear error details from previous test cases
-        errorDetails = "";
+        TestConfig config = TestConfig.of(Reporter.getCurrentTestResult().getTestContext());
+        ScenarioExecutor executor = scenarioExecutors.get(config.getTestName());
+        if (executor != null) {
+            // The row runs on the executor's thread: report what it did there
+            ScenarioExecutor.Outcome outcome = executor.awaitOutcome(testCase);
+            outcome.getContext().attach(Reporter.getCurrentTestResult());
+            outcome.rethrow();
+            return;
+        }
 
+        ExecutionContext context = ExecutionContext.current().attach(Reporter.getCurrentTestResult());
+        runScenario(testCase, context, config, scenarioGraphs.get(config.getTestName()));
+    }
+
+    /**
+     * Runs one row once the rows it depends on have finished, and journals its result, duration
+     * and the time it spent in each phase. Failures and skips are rethrown for TestNG.
+     */
+    private void runScenario(TestCase testCase, ExecutionContext context, TestConfig config, ScenarioGraph graph) {
+        context.setConfig(config);
+        context.setModel(config.getModel());
+        context.setSoftAssert(new SoftAssert());
+        context.setErrorDetails("");
+        context.setActualStatusCode(null);
+        context.setActualResponseBody(null);
+        PhaseTimer timings = new PhaseTimer();
+        timings.add(Phase.EXCEL_READ, testCase.readNanos);
+        timings.add(Phase.JSON_VALIDATION, testCase.parseNanos);
+        context.setPhaseTimer(timings);
+
+        restoreResumeState(config);
+
+        String status = ResultJournal.FAIL;
+        String failure = "";
+        long started = System.nanoTime();
         try {
-            // Print the test case ID before starting
-            String testCaseId = "Unknown";
+            if (graph != null) {
+                graph.awaitDependencies(testCase, scenarioWaitSeconds());
+            }
+            // Time spent waiting for other rows is not the row's own
+            started = System.nanoTime();
+            executeScenario(testCase, context);
+            status = ResultJournal.PASS;
+        } catch (SkipException e) {
+            status = ResultJournal.SKIP;
+            failure = e.getMessage();
+            throw e;
+        } catch (AssertionError | RuntimeException e) {
+            String errorDetails = context.getErrorDetails();
+            failure = errorDetails != null && !errorDetails.isEmpty() ? errorDetails : e.getMessage();
+            throw e;
+        } finally {
+            long durationMillis = (System.nanoTime() - started) / 1_000_000;
+            logPhaseTimings(context, timings);
+            recordResult(testCase, context, status, failure, durationMillis);
+            if (graph != null) {
+                graph.finished(testCase);
+            }
+        }
+    }
+
+    /**
+     * Adds the row's phase timings to its report node and to the totals of its API.
+     */
+    private static void logPhaseTimings(ExecutionContext context, PhaseTimer timings) {
+        ExtentTest test = context.getTest();
+        if (test != null) {
+            test.info(MarkupHelper.createTable(timings.toTable()));
+        }
+        PhaseTimer.aggregate(context.getApiName(), timings);
+    }
+
+    /**
+     * Waits for an async request and rethrows what failed it as the blocking call would have.
+     */
+    private static <T> T awaitResult(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static void restoreResumeState(TestConfig config) {
+        String state = resumeState.remove(config.getTestName());
+        if (state != null) {
             try {
-                testCaseId = testCase.getId();
-                System.out.println("Executing Test Case ID: " + testCaseId);
+                restoreState(config, state);
+                System.out.println("Restored dynamic values recorded by the interrupted run");
             } catch (IOException e) {
-                System.err.println("Error getting test case ID: " + e.getMessage());
+                System.err.println("Could not restore dynamic values from the result journal: " + e.getMessage());
             }
+        }
+    }
+
+    /**
+     * Appends the result of a row to the scenario journal as soon as it finishes, and adds it to
+     * the run history used to order the next run.
+     */
+    private static void recordResult(TestCase testCase, ExecutionContext context, String status, String failure,
+                                     long durationMillis) {
+        Map<String, String> fields = new java.util.LinkedHashMap<>();
+        fields.put("row", String.valueOf(testCase.row));
+        fields.put("id", testCase.getId());
+        fields.put("model", context.getModel());
+        fields.put("apiName", testCase.getApiName());
+        fields.put("method", testCase.getName());
+        fields.put("request", testCase.getRequest());
+        fields.put("expectedStatusCode", testCase.getExpectedStatusCode());
+        fields.put("expected", testCase.getExpected());
+        fields.put("actualStatusCode", context.getActualStatusCode());
+        fields.put("actualResponse", context.getActualResponseBody());
+        fields.put("failure", failure);
+        fields.put("durationMs", String.valueOf(durationMillis));
+        fields.put("phases", context.getPhaseTimer().toJson());
+        TestConfig config = context.getConfig();
+        fields.put("state", captureState(config));
+        rowHistory(config.getExcelFilePath()).record(ScenarioGraph.rowKey(config.getModel(), testCase), status, durationMillis,
+                testCase.getContentHash());
+        try {
+            scenarioJournal(config.getExcelFilePath()).append(journalKey(config, testCase.row), status, fields);
+        } catch (Exception e) {
+            System.err.println("Could not record result of row " + testCase.row + " in the result journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one scenario end-to-end: simulation, request and response validation.
+     */
+    private void executeScenario(TestCase testCase, ExecutionContext context) {
+        ExtentTest test = context.getTest();
+        PhaseTimer timings = context.getPhaseTimer();
+        long phaseStarted;
+
+        try {
+            // Publish this row's data for the report listener
+            context.setId(testCase.getId());
+            context.setName(testCase.getName());
+            context.setRequest(testCase.getRequest());
+            context.setExpected(testCase.getExpected());
+            context.setExpectedStatusCode(testCase.getExpectedStatusCode());
+            context.setApiName(testCase.getApiName());
+            context.setValidationObject(testCase.getValidationObject());
+
+            // Print the test case ID before starting
+            String testCaseId = testCase.getId() != null ? testCase.getId() : "Unknown";
+            System.out.println("Executing Test Case ID: " + testCaseId);
 
             // CENTRALIZED JSON VALIDATION - Handle all JSON errors here
+            phaseStarted = System.nanoTime();
             try {
                 validateAllJSONFields(testCase);
+                timings.since(Phase.JSON_VALIDATION, phaseStarted);
                 System.out.println("JSON validation passed for all fields in test case: " + testCaseId);
             } catch (JSONParsingException e) {
+                timings.since(Phase.JSON_VALIDATION, phaseStarted);
                 String errorMsg = e.getDetailedMessage();
                 System.err.println("JSON Validation Error: " + errorMsg);
 
                 // Create test in report for proper logging
                 String testName = "Scenario: " + testCaseId + " - JSON Validation Error";
                 test = extent.createTest(testName);
+                context.setTest(test);
                 test.fail("JSON Validation Failed: " + errorMsg);
 
                 Assert.fail(errorMsg);
@@ -441,24 +947,16 @@ public class TestCaseExecuter extends BaseClassTest {
             }
 
             // Create the test in the report
-            String testName = "Scenario: " + testCaseId;
-            String apiName = "";
-            String methodName = "";
-            try {
-                apiName = testCase.getApiName();
-                methodName = testCase.getName();
-                testName += " - " + apiName;
-            } catch (IOException e) {
-                System.err.println("Error getting API name: " + e.getMessage());
-            }
+            String apiName = testCase.getApiName() != null ? testCase.getApiName() : "";
+            String methodName = testCase.getName() != null ? testCase.getName() : "";
+            String testName = "Scenario: " + testCaseId + " - " + apiName;
+            phaseStarted = System.nanoTime();
             test = extent.createTest(testName);
+            context.setTest(test);
+            timings.since(Phase.REPORT_LOGGING, phaseStarted);
 
             // Initial test data preparation
             try {
-                testCase.getName();
-                testCase.getExpected();
-
-                // Get simulation value using the method
                 String simulationValue = testCase.getSimulationValue();
                 System.out.println("Simulation value for test case " + testCaseId + ": " + simulationValue);
 
@@ -470,10 +968,23 @@ public class TestCaseExecuter extends BaseClassTest {
 
                 if (simulationValue == null || !simulationValue.trim().equalsIgnoreCase("NA")) {
                     System.out.println("Running simulation for test case: " + testCaseId);
-                    SimulatorDispatcher.simulate(model, executingInstance, testCase.row, 2, seqNo);
+                    int simulationSeqNo = seqNo;
+                    String instance = context.getConfig().getExecutingInstance();
+                    long simulationStarted = System.nanoTime();
+                    try {
+                        // One breaker per model and environment: a broken model must not stop the others
+                        CircuitBreaker.forBackend("Simulator " + context.getModel() + " " + instance).call(() -> {
+                            SimulatorDispatcher.simulate(context.getModel(), instance, testCase.row, 2, simulationSeqNo);
+                            return null;
+                        }, null, SimulatorDispatcher::isConnectionFailure);
+                    } finally {
+                        timings.since(Phase.SIMULATION, simulationStarted);
+                    }
                 } else {
                     System.out.println("Skipping simulation for test case: " + testCaseId + " since value is NA");
                 }
+            } catch (CircuitBreaker.OpenException e) {
+                throw e;
             } catch (Exception e) {
                 String errorMsg = "Error preparing test data: " + e.getMessage();
                 test.fail(errorMsg);
@@ -487,7 +998,9 @@ public class TestCaseExecuter extends BaseClassTest {
             // Execute request
             RequestBuilderUtil.RequestResult result;
             try {
-                result = RequestBuilderUtil.buildAndExecuteRequest(testCase, apiName);
+                result = RunOptions.isAsyncRequests()
+                        ? awaitResult(RequestBuilderUtil.buildAndExecuteRequestAsync(testCase, apiName, context.getConfig()))
+                        : RequestBuilderUtil.buildAndExecuteRequest(testCase, apiName, context.getConfig());
             } catch (JSONParsingException e) {
                 String errorMsg = "JSON parsing error in test case " + testCaseId + ": " + e.getDetailedMessage();
                 test.fail(errorMsg);
@@ -499,6 +1012,8 @@ public class TestCaseExecuter extends BaseClassTest {
                 e.printStackTrace();
                 Assert.fail(errorMsg);
                 return;
+            } catch (CircuitBreaker.OpenException e) {
+                throw e;
             } catch (RuntimeException e) {
                 Assert.fail(e.getMessage());
                 return;
@@ -511,18 +1026,18 @@ public class TestCaseExecuter extends BaseClassTest {
             }
 
             Response response = result.response;
+            phaseStarted = System.nanoTime();
             System.out.println("Actual Response: " + response.asPrettyString());
 
             // take dynamic values from previous test case
             DynamicValuesFormatter.extractDynamicValues(apiName, response);
 
-            // Parse actual response and expected JSON
+            // Parse actual response; the expected JSON was parsed when the test case was loaded
             JsonNode actualJson;
-            JsonNode expectedJson;
+            JsonNode expectedJson = testCase.getExpectedJson();
             try {
-                actualJson = new ObjectMapper().readTree(response.asString());
-                actualResponseBody = response.asPrettyString();
-                expectedJson = testCase.getExpectedJson();
+                actualJson = result.actualJson != null ? result.actualJson : JsonSupport.readTree(response.asString());
+                context.setActualResponseBody(response.asPrettyString());
             } catch (Exception e) {
                 String errorMsg = "Error parsing JSON response for test case " +
                         testCaseId + ": " + e.getMessage();
@@ -530,20 +1045,12 @@ public class TestCaseExecuter extends BaseClassTest {
                 e.printStackTrace();
                 Assert.fail(errorMsg);
                 return;
+            } finally {
+                timings.since(Phase.RESPONSE_PARSING, phaseStarted);
             }
 
             // Get validation rules
-            JsonNode validationObject;
-            try {
-                validationObject = testCase.getValidationObject();
-            } catch (Exception e) {
-                String errorMsg = "Error getting validation rules for test case " +
-                        testCaseId + ": " + e.getMessage();
-                test.fail(errorMsg);
-                e.printStackTrace();
-                Assert.fail(errorMsg);
-                return;
-            }
+            JsonNode validationObject = testCase.getValidationObject();
 
             // Log for debugging
             test.info("Validation Rules: "
@@ -563,8 +1070,10 @@ public class TestCaseExecuter extends BaseClassTest {
                 String expectedStatusCode = String.valueOf(result.expectedStatusObj.getInt("status"));
                 String expectedStatusMsg = String.valueOf(result.expectedStatusObj.getString("statusMessage"));
 
+                phaseStarted = System.nanoTime();
                 responseData = StatusCodeAndStatusMsgValidator.validateStatusFields(
                         expectedStatusCode, response.jsonPath(), apiName, expectedStatusMsg);
+                timings.since(Phase.STATUS_VALIDATION, phaseStarted);
 
                 // After obtaining responseData from validateStatusFields
                 boolean skipStandardValidation = ("getTimeFenceAlertConfig".equals(apiName)
@@ -601,8 +1110,10 @@ public class TestCaseExecuter extends BaseClassTest {
                         test.info("Performing validation on entire response (responseRootPath is NA)");
                     }
 
+                    phaseStarted = System.nanoTime();
                     responseData = controllers.validators.ResponseValidator.compareAndValidateFields(
                             expectedResponse, actualResponse, "", validationObject, currentTimeSeconds);
+                    timings.since(Phase.RESPONSE_VALIDATION, phaseStarted);
                 }
             } catch (Exception e) {
                 String errorMsg = "Error validating response for test case " +
@@ -620,6 +1131,7 @@ public class TestCaseExecuter extends BaseClassTest {
                 test.info("Detected '" + apiName + "' method - performing live location validation");
                 System.out.println("inside live location validation for " + apiName);
 
+                phaseStarted = System.nanoTime();
                 try {
                     String requestVin = testCase.extractVinFromRequest();
                     System.out.println("requestVin: " + requestVin);
@@ -643,6 +1155,8 @@ public class TestCaseExecuter extends BaseClassTest {
                     System.err.println(errorMsg);
                     e.printStackTrace();
                     // Don't fail test for this additional validation
+                } finally {
+                    timings.since(Phase.LIVE_LOCATION_VALIDATION, phaseStarted);
                 }
             }
 
@@ -704,11 +1218,13 @@ public class TestCaseExecuter extends BaseClassTest {
             }
 
             // Assert and log results
+            phaseStarted = System.nanoTime();
             if (responseData.isValid() &&
                     responseData.getMismatchedFields().isEmpty() &&
                     responseData.getFailedValidations().isEmpty()) {
 
                 test.pass("Validation passed for all fields.");
+                timings.since(Phase.REPORT_LOGGING, phaseStarted);
                 // All validations passed successfully
                 System.out.println("All validations passed successfully for test case: " + testCaseId);
 
@@ -727,8 +1243,10 @@ public class TestCaseExecuter extends BaseClassTest {
                             .append(responseData.getFailedValidations().toString());
                 }
 
-                errorDetails = errorBuilder.toString();
+                String errorDetails = errorBuilder.toString();
+                context.setErrorDetails(errorDetails);
                 test.fail("Validation failed: " + errorDetails);
+                timings.since(Phase.REPORT_LOGGING, phaseStarted);
 
                 // Fail the test with detailed error message
                 Assert.fail("Validation failed: " + errorDetails);
@@ -740,6 +1258,12 @@ public class TestCaseExecuter extends BaseClassTest {
             // This captures Assert.fail() calls from above
             // We've already logged the error details, so just rethrow
             throw e;
+        } catch (CircuitBreaker.OpenException e) {
+            // The backend is down: skip the row instead of failing it
+            if (test != null) {
+                test.skip(e.getMessage());
+            }
+            throw e;
         } catch (Exception e) {
             String errorMsg = "Unexpected exception in test execution: " + e.getMessage();
             test.fail(errorMsg);
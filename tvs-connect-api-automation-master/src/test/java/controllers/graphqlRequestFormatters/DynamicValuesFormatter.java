@@ -4,23 +4,28 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import Utils.DynamicContext;
+import configuration.TestConfig;
+import Utils.JsonSupport;
 import io.restassured.response.Response;
 
 public class DynamicValuesFormatter {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    // Store dynamic values from previous test case responses
-    public static final Map<String, Object> dynamicValues = new HashMap<>();
+    /**
+     * Dynamic values from previous test case responses, kept per &lt;test&gt; block so models
+     * running side by side do not see each other's ids.
+     */
+    public static Map<String, Object> dynamicValues() {
+        return TestConfig.current().getDynamicValues();
+    }
 
     /**
      * Enhanced method to handle dynamic time ranges for getAllSharedLiveLocation
@@ -34,7 +39,7 @@ public class DynamicValuesFormatter {
         // Special handling for getAllSharedLiveLocation to ensure proper time range
         if ("getAllSharedLiveLocation".equals(apiName)) {
             // Store the sharing timestamp when shareLiveLocation is called
-            Long sharingTimestamp = (Long) dynamicValues.get("sharing_timestamp");
+            Long sharingTimestamp = (Long) dynamicValues().get("sharing_timestamp");
 
             if (sharingTimestamp != null) {
                 // Calculate time range that includes the sharing time with buffer
@@ -80,15 +85,14 @@ public class DynamicValuesFormatter {
         }
 
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(response.asString());
+            JsonNode rootNode = JsonSupport.readTree(response.asString());
 
             // Extract app_user_id from addUser API response
             if (apiName.equals("addUser")) {
                 JsonNode userDetails = rootNode.path("data").path("addUser").path("user_details");
                 if (userDetails.has("app_user_id")) {
                     String appUserId = userDetails.get("app_user_id").asText();
-                    dynamicValues.put("app_user_id", appUserId);
+                    dynamicValues().put("app_user_id", appUserId);
                 }
             }
 
@@ -99,7 +103,7 @@ public class DynamicValuesFormatter {
                     JsonNode firstContact = contactsDetails.get(0);
                     if (firstContact.has("emergency_contact_id")) {
                         int emergencyContactId = firstContact.get("emergency_contact_id").asInt();
-                        dynamicValues.put("emergency_contact_id", emergencyContactId);
+                        dynamicValues().put("emergency_contact_id", emergencyContactId);
                     }
                 }
             }
@@ -133,7 +137,7 @@ public class DynamicValuesFormatter {
                 JsonNode geofenceNode = rootNode.at("/data/setGeofence/geofenceid");
                 if (!geofenceNode.isMissingNode()) {
                     int geofenceId = geofenceNode.asInt();
-                    dynamicValues.put("geofence_id", geofenceId);
+                    dynamicValues().put("geofence_id", geofenceId);
                 }
             }
 
@@ -144,7 +148,7 @@ public class DynamicValuesFormatter {
                     JsonNode firstAlert = geofenceAlerts.get(0);
                     if (firstAlert.has("geofenceId")) {
                         int geofenceId = firstAlert.get("geofenceId").asInt();
-                        dynamicValues.put("geofence_id", geofenceId);
+                        dynamicValues().put("geofence_id", geofenceId);
                         System.out.println("Extracted geofenceId from getAllGeofenceAlerts: " + geofenceId);
                     }
                 }
@@ -155,11 +159,11 @@ public class DynamicValuesFormatter {
                 JsonNode sharedDetails = rootNode.path("data").path("shareLiveLocation").path("shared_details");
                 if (sharedDetails.has("request_Id")) {
                     int requestId = sharedDetails.get("request_Id").asInt();
-                    dynamicValues.put("request_id", requestId);
+                    dynamicValues().put("request_id", requestId);
 
                     // Store the timestamp when sharing occurred
                     long currentTimestamp = System.currentTimeMillis() / 1000;
-                    dynamicValues.put("sharing_timestamp", currentTimestamp);
+                    dynamicValues().put("sharing_timestamp", currentTimestamp);
                 }
             }
 
@@ -170,14 +174,14 @@ public class DynamicValuesFormatter {
                     JsonNode firstDestination = destinationDetails.get(0);
                     if (firstDestination.has("placeId")) {
                         String placeId = firstDestination.get("placeId").asText();
-                        dynamicValues.put("place_id", placeId);
+                        dynamicValues().put("place_id", placeId);
                         System.out.println("Extracted placeId: " + placeId);
                     }
 
                     // Also extract location_id if present
                     if (firstDestination.has("location_id")) {
                         String locationId = firstDestination.get("location_id").asText();
-                        dynamicValues.put("location_id", locationId);
+                        dynamicValues().put("location_id", locationId);
                         System.out.println("Extracted location_id: " + locationId);
                     }
                 }
@@ -205,12 +209,12 @@ public class DynamicValuesFormatter {
 
         // Handle app_user_id for offBoardUser API
         if (apiName != null && apiName.equals("offBoardUser")) {
-            if (modifiedRequest.contains("app_user_id") && dynamicValues.containsKey("app_user_id")) {
+            if (modifiedRequest.contains("app_user_id") && dynamicValues().containsKey("app_user_id")) {
                 // Pattern for GraphQL field: app_user_id: "value" or app_user_id: value
                 Pattern appUserIdPattern = Pattern.compile("app_user_id:\\s*\"?[^\\s,)]+\"?");
 
                 if (appUserIdPattern.matcher(modifiedRequest).find()) {
-                    String replacement = "app_user_id: \"" + dynamicValues.get("app_user_id") + "\"";
+                    String replacement = "app_user_id: \"" + dynamicValues().get("app_user_id") + "\"";
                     modifiedRequest = appUserIdPattern.matcher(modifiedRequest).replaceAll(replacement);
                 }
             }
@@ -220,7 +224,7 @@ public class DynamicValuesFormatter {
         if (apiName != null &&
                 (apiName.equals("fetchEmergencyContacts") || apiName.equals("updateEmergencyContacts")
                         || apiName.equals("deleteEmergencyContacts"))) {
-            if (modifiedRequest.contains("emergency_contact_id") && dynamicValues.containsKey("emergency_contact_id")) {
+            if (modifiedRequest.contains("emergency_contact_id") && dynamicValues().containsKey("emergency_contact_id")) {
                 Pattern simplePattern = Pattern.compile("emergency_contact_id:\\s*\\d+");
                 Pattern arrayValuePattern = Pattern.compile("emergency_contact_id:\\s*\\[\\s*\\d+\\s*\\]");
                 Pattern jsonPattern = Pattern.compile("([\"']?)emergency_contact_id\\1:\\s*\\d+");
@@ -230,15 +234,15 @@ public class DynamicValuesFormatter {
                 Matcher jsonMatch = jsonPattern.matcher(modifiedRequest);
 
                 if (arrayValueMatch.find()) {
-                    String replacement = "emergency_contact_id: [" + dynamicValues.get("emergency_contact_id") + "]";
+                    String replacement = "emergency_contact_id: [" + dynamicValues().get("emergency_contact_id") + "]";
                     modifiedRequest = arrayValueMatch.replaceAll(replacement);
                 } else if (simpleMatch.find()) {
-                    String replacement = "emergency_contact_id: " + dynamicValues.get("emergency_contact_id");
+                    String replacement = "emergency_contact_id: " + dynamicValues().get("emergency_contact_id");
                     modifiedRequest = simpleMatch.replaceAll(replacement);
                 } else if (jsonMatch.find()) {
                     String quotes = jsonMatch.group(1) != null ? jsonMatch.group(1) : "";
                     String replacement = quotes + "emergency_contact_id" + quotes + ": "
-                            + dynamicValues.get("emergency_contact_id");
+                            + dynamicValues().get("emergency_contact_id");
                     modifiedRequest = jsonMatch.replaceAll(replacement);
                 }
             }
@@ -248,7 +252,7 @@ public class DynamicValuesFormatter {
         if (apiName != null && (apiName.equals("getGeofenceList") || apiName.equals("editGeofence")
                 || apiName.equals("deleteGeofence"))) {
             if ((modifiedRequest.contains("geofenceId") || modifiedRequest.contains("geofence_id"))
-                    && dynamicValues.containsKey("geofence_id")) {
+                    && dynamicValues().containsKey("geofence_id")) {
                 Pattern simplePattern = Pattern.compile("(geofenceId|geofence_id):\\s*\\d+");
                 Pattern arrayValuePattern = Pattern.compile("(geofenceId|geofence_id):\\s*\\[\\s*\\d+\\s*\\]");
                 Pattern jsonPattern = Pattern.compile("([\"']?)(geofenceId|geofence_id)\\1:\\s*\\d+");
@@ -259,16 +263,16 @@ public class DynamicValuesFormatter {
 
                 if (arrayValueMatch.find()) {
                     String fieldName = arrayValueMatch.group(1);
-                    String replacement = fieldName + ": [" + dynamicValues.get("geofence_id") + "]";
+                    String replacement = fieldName + ": [" + dynamicValues().get("geofence_id") + "]";
                     modifiedRequest = arrayValueMatch.replaceAll(replacement);
                 } else if (simpleMatch.find()) {
                     String fieldName = simpleMatch.group(1);
-                    String replacement = fieldName + ": " + dynamicValues.get("geofence_id");
+                    String replacement = fieldName + ": " + dynamicValues().get("geofence_id");
                     modifiedRequest = simpleMatch.replaceAll(replacement);
                 } else if (jsonMatch.find()) {
                     String quotes = jsonMatch.group(1) != null ? jsonMatch.group(1) : "";
                     String fieldName = jsonMatch.group(2);
-                    String replacement = quotes + fieldName + quotes + ": " + dynamicValues.get("geofence_id");
+                    String replacement = quotes + fieldName + quotes + ": " + dynamicValues().get("geofence_id");
                     modifiedRequest = jsonMatch.replaceAll(replacement);
                 }
             }
@@ -276,12 +280,12 @@ public class DynamicValuesFormatter {
 
         // NEW: Handle request_id for getAllSharedLiveLocation API
         if (apiName != null && (apiName.equals("getAllSharedLiveLocation") || apiName.equals("stopLiveLocation"))) {
-            if (modifiedRequest.contains("request_id") && dynamicValues.containsKey("request_id")) {
+            if (modifiedRequest.contains("request_id") && dynamicValues().containsKey("request_id")) {
                 // Pattern to match request_id: value (with or without quotes)
                 Pattern requestIdPattern = Pattern.compile("request_id:\\s*\"?\\d+\"?");
 
                 if (requestIdPattern.matcher(modifiedRequest).find()) {
-                    String replacement = "request_id: " + dynamicValues.get("request_id");
+                    String replacement = "request_id: " + dynamicValues().get("request_id");
                     modifiedRequest = requestIdPattern.matcher(modifiedRequest).replaceAll(replacement);
                 }
             }
@@ -291,14 +295,14 @@ public class DynamicValuesFormatter {
         if (apiName != null && (apiName.equals("deleteSharedDestination")
                 || apiName.equals("getAllSharedDestinations"))) {
             // Handle placeId replacement
-            if (modifiedRequest.contains("placeId") && dynamicValues.containsKey("place_id")) {
+            if (modifiedRequest.contains("placeId") && dynamicValues().containsKey("place_id")) {
                 // Pattern to match placeId: "value" or placeId: value
                 Pattern placeIdPattern = Pattern.compile("placeId:\\s*\"[^\"]*\"");
 
                 if (placeIdPattern.matcher(modifiedRequest).find()) {
-                    String replacement = "placeId: \"" + dynamicValues.get("place_id") + "\"";
+                    String replacement = "placeId: \"" + dynamicValues().get("place_id") + "\"";
                     modifiedRequest = placeIdPattern.matcher(modifiedRequest).replaceAll(replacement);
-                    System.out.println("Replaced placeId with: " + dynamicValues.get("place_id"));
+                    System.out.println("Replaced placeId with: " + dynamicValues().get("place_id"));
                 }
             }
         }
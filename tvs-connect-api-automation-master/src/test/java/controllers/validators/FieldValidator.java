@@ -10,8 +10,8 @@ import java.util.TimeZone;
 import java.util.regex.Pattern;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.time.Instant;
-import static configuration.BaseClassTest.softAssert;
-import static configuration.Listeners.test;
+import static configuration.ExecutionContext.softAssert;
+import static configuration.ExecutionContext.test;
 
 /**
  * Contains field-level validation methods
@@ -67,7 +67,7 @@ public class FieldValidator {
         }
 
         if (!isValid) {
-            softAssert.fail(fieldPath + ": Expected type " + expectedType + " but got " + actualType);
+            softAssert().fail(fieldPath + ": Expected type " + expectedType + " but got " + actualType);
         }
         return isValid;
     }
@@ -91,7 +91,7 @@ public class FieldValidator {
         double min = ((Number) minLimit).doubleValue();
 
         if (actualValue < min) {
-            softAssert.fail(fieldPath + ": Value " + actualValue + " is below minimum limit " + min);
+            softAssert().fail(fieldPath + ": Value " + actualValue + " is below minimum limit " + min);
             return false;
         }
         return true;
@@ -116,7 +116,7 @@ public class FieldValidator {
         double max = ((Number) maxLimit).doubleValue();
 
         if (actualValue > max) {
-            softAssert.fail(fieldPath + ": Value " + actualValue + " is above maximum limit " + max);
+            softAssert().fail(fieldPath + ": Value " + actualValue + " is above maximum limit " + max);
             return false;
         }
         return true;
@@ -138,7 +138,7 @@ public class FieldValidator {
 
         String strValue = value.asText();
         if (strValue.length() != expectedLength) {
-            softAssert.fail(fieldPath + ": Expected length " + expectedLength +
+            softAssert().fail(fieldPath + ": Expected length " + expectedLength +
                     " but got " + strValue.length());
             return false;
         }
@@ -162,7 +162,7 @@ public class FieldValidator {
 
         String strValue = value.asText();
         if (!Pattern.matches(regex, strValue)) {
-            softAssert.fail(fieldPath + ": Value '" + strValue +
+            softAssert().fail(fieldPath + ": Value '" + strValue +
                     "' doesn't match regex pattern '" + regex + "'");
             return false;
         }
@@ -255,11 +255,11 @@ public class FieldValidator {
         System.out.println("currentTimeSeconds....."+currentTimeSeconds);
 
         if (actualValueTimeSeconds == -1) {
-            softAssert.fail(fieldPath + ": Unable to parse timestamp format: " + actaulValue);
+            softAssert().fail(fieldPath + ": Unable to parse timestamp format: " + actaulValue);
             return false;
         }
 
-        test.info("Validating timestamp: " + actualValueTimeSeconds +
+        test().info("Validating timestamp: " + actualValueTimeSeconds +
                 " (Current time: " + currentTimeSeconds + ", Offset: " + offsetSeconds + ")");
 
         if ("current".equalsIgnoreCase(timeConstraint)) {
@@ -296,22 +296,22 @@ public class FieldValidator {
             System.out.println("maxTime: "+maxTime);
             System.out.println("valueTimeSeconds: "+actualValueTimeSeconds);
             System.out.println("minTime: "+minTime);
-            test.info("Valid time range: [" + minTime + " to " + maxTime + "]");
+            test().info("Valid time range: [" + minTime + " to " + maxTime + "]");
 
             if (actualValueTimeSeconds < minTime || actualValueTimeSeconds > maxTime) {
                 long diffSeconds = Math.abs(actualValueTimeSeconds - currentTimeSeconds);
                 long diffMinutes = diffSeconds / 60;
 
-                softAssert.fail(fieldPath + ": Timestamp " + actualValueTimeSeconds +
+                softAssert().fail(fieldPath + ": Timestamp " + actualValueTimeSeconds +
                         " is not within expected range [" + minTime + " to " + maxTime + "]" +
                         " (Difference: " + diffMinutes + " minutes)");
                 return false;
             }
-            test.info("Timestamp validation passed for " + fieldPath);
+            test().info("Timestamp validation passed for " + fieldPath);
             return true;
         }
 
-        softAssert.fail(fieldPath + ": Unsupported time constraint: " + timeConstraint);
+        softAssert().fail(fieldPath + ": Unsupported time constraint: " + timeConstraint);
         return false;
     }
 
@@ -348,21 +348,21 @@ public class FieldValidator {
             if ("today".equalsIgnoreCase(dateConstraint)) {
                 expectedDate = currentDate.plusDays(offsetDays);
             } else {
-                softAssert.fail(fieldPath + ": Unsupported date constraint: " + dateConstraint);
+                softAssert().fail(fieldPath + ": Unsupported date constraint: " + dateConstraint);
                 return false;
             }
 
             System.out.println("Expected date: " + expectedDate + ", Actual date: " + actualLocalDate);
 
             if (!actualLocalDate.isEqual(expectedDate)) {
-                softAssert.fail(fieldPath + ": Date " + dateStr + " is not as expected. Expected: " + expectedDate + ", Actual: " + actualLocalDate);
+                softAssert().fail(fieldPath + ": Date " + dateStr + " is not as expected. Expected: " + expectedDate + ", Actual: " + actualLocalDate);
                 return false;
             }
 
-            test.info("Date validation passed for " + fieldPath);
+            test().info("Date validation passed for " + fieldPath);
             return true;
         } catch (ParseException e) {
-            softAssert.fail(fieldPath + ": Unable to parse date " + dateStr + " - " + e.getMessage());
+            softAssert().fail(fieldPath + ": Unable to parse date " + dateStr + " - " + e.getMessage());
             return false;
         }
     }
@@ -3,11 +3,12 @@ package controllers.validators;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import Utils.JsonSupport;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import static configuration.BaseClassTest.softAssert;
-import static configuration.Listeners.*;
+import static configuration.ExecutionContext.softAssert;
+import static configuration.ExecutionContext.test;
 
 /**
  * Handles complete API response validation
@@ -159,7 +160,7 @@ public class ResponseValidator {
 
                         if (!isNAField) {
                             mismatchedFields.add(currentPath);
-                            softAssert.fail("Field missing in actual response: " + currentPath);
+                            softAssert().fail("Field missing in actual response: " + currentPath);
                             allValid[0] = false;
                         } else {
                             System.out.println("Skipping missing field validation for " + currentPath + " as rule is set to NA");
@@ -243,7 +244,7 @@ public class ResponseValidator {
                                     isNARule(VALIDATION_RULES.get(fieldName))) &&
                                     !shouldSkipFieldValidation(fieldName, apiName)) {
                                 mismatchedFields.add(currentPath);
-                                softAssert.fail("Value mismatch for field: " + currentPath +
+                                softAssert().fail("Value mismatch for field: " + currentPath +
                                         " (Expected: " + expectedStr + ", Actual: " + actualStr + ")");
                                 allValid[0] = false;
                             } else {
@@ -261,7 +262,7 @@ public class ResponseValidator {
                             } else {
                                 // Skip validation based on API name
                                 if (!shouldSkipFieldValidation(fieldName, apiName)) {
-                                    ObjectMapper objectMapper = new ObjectMapper();
+                                    ObjectMapper objectMapper = JsonSupport.mapper();
                                     Map<String, Object> rulesMap = objectMapper.convertValue(
                                             rulesNode, new TypeReference<Map<String, Object>>() {
                                             });
@@ -273,7 +274,7 @@ public class ResponseValidator {
                         }
                     }
                 } catch (Exception e) {
-                    softAssert.fail("Error comparing field " + currentPath + ": " + e.getMessage());
+                    softAssert().fail("Error comparing field " + currentPath + ": " + e.getMessage());
                     e.printStackTrace();
                     allValid[0] = false;
                 }
@@ -340,10 +341,10 @@ public class ResponseValidator {
                         if (isNARule(timeRules)) {
                             System.out.println("Skipping validation for timestamp field " + currentPath + " as rule is set to NA");
                         } else {
-                            test.info("Found timestamp field at path: " + currentPath + ", applying special validation");
+                            test().info("Found timestamp field at path: " + currentPath + ", applying special validation");
 
                             try {
-                                ObjectMapper objectMapper = new ObjectMapper();
+                                ObjectMapper objectMapper = JsonSupport.mapper();
                                 Map<String, Object> timeRulesMap = objectMapper.convertValue(
                                         timeRules, new TypeReference<Map<String, Object>>() {
                                         });
@@ -371,7 +372,7 @@ public class ResponseValidator {
                                 }
                             } catch (Exception e) {
                                 failedValidations.add(currentPath + ":TimeRange");
-                                softAssert
+                                softAssert()
                                         .fail("Timestamp validation failed for " + currentPath + ": " + e.getMessage());
                                 e.printStackTrace();
                                 allValid[0] = false;
@@ -389,10 +390,10 @@ public class ResponseValidator {
                     if (isNARule(timeRules)) {
                         System.out.println("Skipping validation for time field " + currentPath + " as rule is set to NA");
                     } else {
-                        test.info("Found time field at path: " + currentPath + ", applying time validation");
+                        test().info("Found time field at path: " + currentPath + ", applying time validation");
 
                         try {
-                            ObjectMapper objectMapper = new ObjectMapper();
+                            ObjectMapper objectMapper = JsonSupport.mapper();
                             Map<String, Object> timeRulesMap = objectMapper.convertValue(
                                     timeRules, new TypeReference<Map<String, Object>>() {
                                     });
@@ -419,7 +420,7 @@ public class ResponseValidator {
                             }
                         } catch (Exception e) {
                             failedValidations.add(currentPath + ":TimeRange");
-                            softAssert.fail("Time validation failed for " + currentPath + ": " + e.getMessage());
+                            softAssert().fail("Time validation failed for " + currentPath + ": " + e.getMessage());
                             e.printStackTrace();
                             allValid[0] = false;
                         }
@@ -435,10 +436,10 @@ public class ResponseValidator {
                     if (isNARule(dateRules)) {
                         System.out.println("Skipping validation for date field " + currentPath + " as rule is set to NA");
                     } else {
-                        test.info("Found date field at path: " + currentPath + ", applying date validation");
+                        test().info("Found date field at path: " + currentPath + ", applying date validation");
 
                         try {
-                            ObjectMapper objectMapper = new ObjectMapper();
+                            ObjectMapper objectMapper = JsonSupport.mapper();
                             Map<String, Object> dateRulesMap = objectMapper.convertValue(
                                     dateRules, new TypeReference<Map<String, Object>>() {
                                     });
@@ -465,7 +466,7 @@ public class ResponseValidator {
                             }
                         } catch (Exception e) {
                             failedValidations.add(currentPath + ":DateRange");
-                            softAssert.fail("Date validation failed for " + currentPath + ": " + e.getMessage());
+                            softAssert().fail("Date validation failed for " + currentPath + ": " + e.getMessage());
                             e.printStackTrace();
                             allValid[0] = false;
                         }
@@ -480,7 +481,7 @@ public class ResponseValidator {
                         System.out.println("Skipping validation for field " + currentPath + " as rule is set to NA");
                     } else {
                         try {
-                            ObjectMapper objectMapper = new ObjectMapper();
+                            ObjectMapper objectMapper = JsonSupport.mapper();
                             Map<String, Object> rulesMap = objectMapper.convertValue(
                                     rulesNode, new TypeReference<Map<String, Object>>() {
                                     });
@@ -489,7 +490,7 @@ public class ResponseValidator {
                             }
                         } catch (Exception e) {
                             failedValidations.add(currentPath);
-                            softAssert.fail("Validation failed for extra field " + currentPath + ": " + e.getMessage());
+                            softAssert().fail("Validation failed for extra field " + currentPath + ": " + e.getMessage());
                             e.printStackTrace();
                             allValid[0] = false;
                         }
@@ -507,7 +508,7 @@ public class ResponseValidator {
 
                 mismatchedFields.add(path + " (Array size mismatch)");
                 failedValidations.add(path + ":ArraySizeMismatch");
-                softAssert.fail(errorMessage);
+                softAssert().fail(errorMessage);
                 allValid[0] = false;
 
                 // FIXED: Return immediately to prevent field comparison when array sizes don't match
@@ -528,7 +529,7 @@ public class ResponseValidator {
             }
         } else {
             if (!expected.asText().equals(actual.asText())) {
-                softAssert.fail("Value mismatch at path: " + path +
+                softAssert().fail("Value mismatch at path: " + path +
                         " (Expected: " + expected.asText() + ", Actual: " + actual.asText() + ")");
                 mismatchedFields.add(path);
                 allValid[0] = false;
@@ -609,7 +610,7 @@ public class ResponseValidator {
                         }
                         break;
                     default:
-                        test.warning("Unknown validation rule: " + ruleType + " for field " + fieldPath);
+                        test().warning("Unknown validation rule: " + ruleType + " for field " + fieldPath);
                         ruleValid = true; // Don't fail on unknown rule types
                 }
 
@@ -619,7 +620,7 @@ public class ResponseValidator {
                 }
             } catch (Exception e) {
                 failedValidations.add(fieldPath + ":" + ruleType);
-                softAssert.fail("Validation failed for " + fieldPath +
+                softAssert().fail("Validation failed for " + fieldPath +
                         " (" + ruleType + "): " + e.getMessage());
                 e.printStackTrace();
                 isValid = false;
@@ -4,9 +4,10 @@ import java.util.List;
 import io.restassured.path.json.JsonPath;
 import org.testng.Assert;
 import configuration.BaseClassTest;
+import configuration.ExecutionContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import controllers.validators.ResponseValidator.ValidationResult;
-import static configuration.BaseClassTest.softAssert;
+import static configuration.ExecutionContext.softAssert;
 
 public class StatusCodeAndStatusMsgValidator extends BaseClassTest {
 
@@ -14,6 +15,7 @@ public class StatusCodeAndStatusMsgValidator extends BaseClassTest {
         List<String> mismatchedFields = new ArrayList<>();
         List<String> failedValidations = new ArrayList<>();
         boolean allValid = true;
+        String actualStatusCode = null;
         String actualStatusMsg = null;
 
         try {
@@ -48,6 +50,9 @@ public class StatusCodeAndStatusMsgValidator extends BaseClassTest {
                 return new ValidationResult(allValid, mismatchedFields, failedValidations, allValid);
             }
 
+            // Published for the report of the running row
+            ExecutionContext.current().setActualStatusCode(actualStatusCode);
+
             // Validate "status"
             if (actualStatusCode != null && !actualStatusCode.equals(expectedStatusCode)) {
                 mismatchedFields.add("status");
@@ -63,7 +68,7 @@ public class StatusCodeAndStatusMsgValidator extends BaseClassTest {
             }
 
         } catch (Exception ex) {
-            softAssert.fail("Error comparing status code and status message: " + ex.getMessage());
+            softAssert().fail("Error comparing status code and status message: " + ex.getMessage());
             ex.printStackTrace();
             allValid = false;
             failedValidations.add("Exception during validation: " + ex.getMessage());
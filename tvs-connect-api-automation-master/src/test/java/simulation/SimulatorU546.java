@@ -13,7 +13,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.concurrent.TimeUnit;
 
-import static Utils.ExcelCommunicator.getDataFromExcel;
+import static Utils.CompiledPlan.getDataFromPlan;
 
 public class SimulatorU546 {
     private static String BROKER_URL;
@@ -97,7 +97,7 @@ public class SimulatorU546 {
             System.out.println("Connected to MQTT broker");
 
             // Read the cell content (may contain multiple packets separated by #)
-            String cellData = getDataFromExcel(MESSAGE_FILE, sheetName, rowIndex, colIndex);
+            String cellData = getDataFromPlan(MESSAGE_FILE, sheetName, rowIndex, colIndex);
 
             if (cellData == null || cellData.trim().isEmpty()) {
                 System.out.println("No valid data found in Excel cell.");
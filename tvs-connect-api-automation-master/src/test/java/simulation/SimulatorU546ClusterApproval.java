@@ -10,7 +10,7 @@ import javax.net.ssl.SSLSocketFactory;
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.util.concurrent.TimeUnit;
-import static Utils.ExcelCommunicator.getDataFromExcel;
+import static Utils.CompiledPlan.getDataFromPlan;
 
 public class SimulatorU546ClusterApproval {
     private static String BROKER_URL;
@@ -90,7 +90,7 @@ public class SimulatorU546ClusterApproval {
             System.out.println("Connected to MQTT broker");
 
             // Read the cell content (may contain multiple packets separated by #)
-            String cellData = getDataFromExcel(MESSAGE_FILE, sheetName, rowIndex, colIndex);
+            String cellData = getDataFromPlan(MESSAGE_FILE, sheetName, rowIndex, colIndex);
 //             cellData = "#RES,SRV,VIN_GENERIC,555552000002212,1062244,1,OK*15";
             String[] packets = cellData.split("#");
 
@@ -15,7 +15,7 @@ import javax.net.ssl.SSLSocketFactory;
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.util.concurrent.TimeUnit;
-import static Utils.ExcelCommunicator.getDataFromExcel;
+import static Utils.CompiledPlan.getDataFromPlan;
 
 public class SimulatorU546PCClusterApproval {
     private static String BROKER_URL;
@@ -95,7 +95,7 @@ public class SimulatorU546PCClusterApproval {
             System.out.println("Connected to MQTT broker");
 
             // Read the cell content (may contain multiple packets separated by #)
-            String cellData = getDataFromExcel(MESSAGE_FILE, sheetName, rowIndex, colIndex);
+            String cellData = getDataFromPlan(MESSAGE_FILE, sheetName, rowIndex, colIndex);
 //            cellData = "#RESC,SRV,555434556777899,3047,7,OK,OK,OK,OK,OK,OK,OK*53";
             String[] packets = cellData.split("#");
 
@@ -10,7 +10,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.KeyStore;
-import static Utils.ExcelCommunicator.getDataFromExcel;
+import static Utils.CompiledPlan.getDataFromPlan;
 import java.util.Arrays;
 
 public class SimulatorU577 {
@@ -116,7 +116,7 @@ public class SimulatorU577 {
             client.connect(options);
             System.out.println("Connected to MQTT broker");
 
-            String cellData = getDataFromExcel(MESSAGE_FILE, sheetName, rowIndex, colIndex);
+            String cellData = getDataFromPlan(MESSAGE_FILE, sheetName, rowIndex, colIndex);
             System.out.println("Simulation Packet: " + cellData);
             if (cellData == null || cellData.trim().isEmpty()) {
                 System.out.println("No valid data found in Excel cell.");
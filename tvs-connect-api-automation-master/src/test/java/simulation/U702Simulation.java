@@ -15,7 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import static Utils.ExcelCommunicator.getDataFromExcel;
+import static Utils.CompiledPlan.getDataFromPlan;
 
 public class U702Simulation {
     private static final String BROKER_URL = "ssl://dev-p360.tvsmotor.net:8883";
@@ -64,7 +64,7 @@ public class U702Simulation {
 
             // Read messages from the file
             List<String> messages = new ArrayList<>();
-            messages.add(getDataFromExcel(MESSAGE_FILE, sheetName, rowIndex, colIndex));
+            messages.add(getDataFromPlan(MESSAGE_FILE, sheetName, rowIndex, colIndex));
             for (String line : messages) {
                 if (line.trim().isEmpty() || line.startsWith("#") || line.length() < 10) {
                     continue;